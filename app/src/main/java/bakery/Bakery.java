@@ -0,0 +1,496 @@
+package bakery;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a bakery that allows customers to select and purchase baked goods.
+ * Customers can choose from various items like bread, cake, pastries, cookies, and pies,
+ * and checkout or exit the application.
+ * Output is buffered and written out whenever the bakery waits for input, and the
+ * input can come from the console or a recorded session being replayed.
+ */
+public class Bakery {
+    
+    PrintStream out;
+    ConsoleReader scan;
+    ReceiptRenderer receipts;
+    BakerySession session;
+
+    /**
+     * Constructs a bakery that serves one customer from the console.
+     */
+    public Bakery() {
+        this(new SessionEngine().open());
+    }
+
+    /**
+     * Constructs a bakery that serves the given customer session from the console.
+     *
+     * @param session the session holding the customer's cart
+     */
+    public Bakery(BakerySession session) {
+        this(session, Channels.newChannel(System.in),
+            new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 8192)));
+    }
+
+    /**
+     * Constructs a bakery that serves the given customer session, reading their
+     * answers from a channel, such as a recorded session being replayed.
+     *
+     * @param session the session holding the customer's cart
+     * @param in      the customer's answers
+     * @param out     where to write the menus and prompts
+     */
+    public Bakery(BakerySession session, ReadableByteChannel in, PrintStream out) {
+        this.session = session;
+        this.out = out;
+        this.scan = new ConsoleReader(in, out);
+        this.receipts = new ReceiptRenderer(Channels.newChannel(out));
+    }
+
+    /**
+     * Main buying process where the user selects items or actions to perform.
+     * Displays a menu of options and processes the user's input until they exit or checkout.
+     */
+    public void buying() {
+        try {
+            buyingLoop();
+        } catch (NoSuchElementException e) {
+            // the input ended, which ends the visit
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Shows the purchase menu and handles each choice until the user checks out.
+     */
+    private void buyingLoop() {
+        boolean loop = true;
+
+        while(loop) {
+            out.writeBytes(Menus.PURCHASE);
+
+            String option = scan.next();
+            scan.nextLine();
+
+            if (option.equalsIgnoreCase("bread")) {
+                breadMethod();
+            } else if (option.equalsIgnoreCase("cake")) {
+                cakeMethod();
+            } else if (option.equalsIgnoreCase("pastry")) {
+                pastryMethod();
+            } else if (option.equalsIgnoreCase("cookie")) {
+                cookieMethod();
+            } else if (option.equalsIgnoreCase("pie")) {
+                pieMethod();
+            } else if (option.equalsIgnoreCase("checkout")) {
+                loop = checkOut();
+            } else if (option.equalsIgnoreCase("exit")) {
+                exit();
+            } else {
+                out.println("\nInvalid Input. Try Again");
+            } 
+        }
+    }
+
+    /**
+     * Handles the process of selecting and purchasing bread.
+     * Displays bread options, takes user input, calculates the price, and adds the item to the cart.
+     */
+    public void breadMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.BREADLOAF));
+                String breadKind = scan.nextLine();
+                out.println("\nHow Many Would You Like?\n");
+                int quantity = readCount();
+
+                Optional<BakeryEnum.BreadOptions> selectedBread = BakeryEnum.BreadOptions.
+                    findBreadDescription(breadKind);
+                if (selectedBread.isEmpty()) {
+                    invalidOption(BakeryEnum.BREADLOAF, breadKind);
+                    continue;
+                }
+                
+                if (session.addBread(selectedBread.get(), quantity) == BakerySession.OUT_OF_STOCK) {
+                    out.println("\nSorry, Not Enough in Stock. Try Again");
+                    continue;
+                }
+                out.println();
+                break;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+     /**
+     * Handles the process of selecting and purchasing cake.
+     * Displays cake options, takes user input for cake, frosting, and filling,
+     * calculates the price, and adds the item to the cart.
+     */
+    public void cakeMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.CAKE));
+                String cakeKind = scan.nextLine();
+                Optional<BakeryEnum.CakeOptions> selectedCake = BakeryEnum.CakeOptions.
+                findCakeDescription(cakeKind);
+                if (selectedCake.isEmpty()) {
+                    invalidOption(BakeryEnum.CAKE, cakeKind);
+                    continue;
+                }
+
+                BakeryEnum.FrostingOptions selectedFrosting = frostingMethod();
+                BakeryEnum.FillingOptions selectedFilling = fillingMethod();
+
+                if (cakeConstruct(selectedCake.get(), selectedFrosting, selectedFilling) == null) {
+                    continue;
+                }
+                out.println();
+                break;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Constructs a cake with the specified options, calculates the total price
+     * and adds it to the cart.
+     *
+     * @param cake the selected cake option
+     * @param frosting the selected frosting option
+     * @param filling the selected filling option
+     * @return a {@code Cake} object representing the purchase, or {@code null} if
+     *         there is not enough in stock
+     */
+    public Cake cakeConstruct(BakeryEnum.CakeOptions cake, BakeryEnum.FrostingOptions frosting,
+        BakeryEnum.FillingOptions filling) {
+
+        out.println("\nHow Many Layers is the Cake?\n");
+        int layers = readCount();
+
+        out.println("\nHow Many Cakes?\n");
+        int quantity = readCount();
+
+        int line = session.addCake(cake, frosting, filling, layers, quantity);
+        if (line == BakerySession.OUT_OF_STOCK) {
+            out.println("\nSorry, Not Enough in Stock. Try Again");
+            return null;
+        }
+        return (Cake) session.getShoppingCart().getItem(line);
+    }
+
+    /**
+     * Handles the process of selecting frosting for a cake.
+     *
+     * @return the selected frosting option
+     */
+    public BakeryEnum.FrostingOptions frostingMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.FROSTING));
+                String frostingKind = scan.nextLine();
+                
+                Optional<BakeryEnum.FrostingOptions> selectedFrosting = BakeryEnum.FrostingOptions.
+                    findFrostingDescription(frostingKind);
+                if (selectedFrosting.isPresent()) {
+                    return selectedFrosting.get();
+                }
+                invalidOption(BakeryEnum.FROSTING, frostingKind);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Handles the process of selecting filling for a cake.
+     *
+     * @return the selected filling option
+     */
+    public BakeryEnum.FillingOptions fillingMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.FILLING));
+                String fillingKind = scan.nextLine();
+                Optional<BakeryEnum.FillingOptions> selectedFilling = BakeryEnum.FillingOptions.
+                    findFillingDescription(fillingKind);
+                if (selectedFilling.isPresent()) {
+                    return selectedFilling.get();
+                }
+                invalidOption(BakeryEnum.FILLING, fillingKind);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Handles the process of selecting and purchasing pastries.
+     */
+    public void pastryMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.PASTRY));
+                String pastryKind = scan.nextLine();
+                out.println("\nHow Many Would You Like?\n");
+                int quantity = readCount();
+
+                Optional<BakeryEnum.PastryOptions> selectedPastry = BakeryEnum.PastryOptions.
+                    findPastryDescription(pastryKind);
+                if (selectedPastry.isEmpty()) {
+                    invalidOption(BakeryEnum.PASTRY, pastryKind);
+                    continue;
+                }
+                if (session.addPastry(selectedPastry.get(), quantity) == BakerySession.OUT_OF_STOCK) {
+                    out.println("\nSorry, Not Enough in Stock. Try Again");
+                    continue;
+                }
+                out.println();
+                break;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Handles the process of selecting and purchasing cookies.
+     */
+    public void cookieMethod() {
+        while (true) {
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.COOKIE));
+                String cookieKind = scan.nextLine();
+                out.println("\nHow Many Would You Like?\n");
+                int quantity = readCount();
+
+                Optional<BakeryEnum.CookieOptions> selectedCookie = BakeryEnum.CookieOptions.
+                    findCookieDescription(cookieKind);
+                if (selectedCookie.isEmpty()) {
+                    invalidOption(BakeryEnum.COOKIE, cookieKind);
+                    continue;
+                }
+                if (session.addCookie(selectedCookie.get(), quantity) == BakerySession.OUT_OF_STOCK) {
+                    out.println("\nSorry, Not Enough in Stock. Try Again");
+                    continue;
+                }
+                out.println();
+                break;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Handles the process of selecting and purchasing pies.
+     */
+    public void pieMethod() {
+        while (true) { 
+            try {
+                out.writeBytes(Menus.of(session.getPriceTable()).get(BakeryEnum.PIE));
+                String pieKind = scan.nextLine();
+                out.println("\nHow Many Would You Like?\n");
+                int quantity = readCount();
+
+                Optional<BakeryEnum.PieOptions> selectedPie = BakeryEnum.PieOptions.
+                    findPieDescription(pieKind);
+                if (selectedPie.isEmpty()) {
+                    invalidOption(BakeryEnum.PIE, pieKind);
+                    continue;
+                }
+                if (session.addPie(selectedPie.get(), quantity) == BakerySession.OUT_OF_STOCK) {
+                    out.println("\nSorry, Not Enough in Stock. Try Again");
+                    continue;
+                }
+                out.println();
+                break;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Handles the checkout process where the total price is displayed, 
+     * and the user can confirm or go back to continue shopping.
+     * 
+     * @return false if the user confirms checkout, true if they want to continue shopping.
+     */
+    public boolean checkOut() {
+        while (true) {
+            out.println("\nYour Selected Items are: ");
+            receipts.writeItems(session.getShoppingCart());
+            receipts.flush();
+            out.println("\nDo You Wish to Continue? (Yes/No)\n");
+            String wish = scan.next();
+
+            if (wish.equalsIgnoreCase("yes")) {
+                long discount = session.getShoppingCart().getDiscount();
+                if (discount > 0) {
+                    out.print("\nPromotions Saved You: $" + Money.format(discount));
+                }
+                out.print("\nTotal Price For Today: $" + Money.format(session.checkOut()));   
+                return false;   
+            } else if (wish.equalsIgnoreCase("no")){
+                out.println("\nWould You Like to Cancel the Purchase? (Yes/No)\n");
+                String input = scan.next();
+                scan.nextLine();
+
+                if (input.equalsIgnoreCase("yes")) {
+                    session.cancel();
+                    exit();
+                    return false;
+                } 
+            } else {
+                out.println("\nInvalid Input. Try Again");
+            }
+        }
+    }
+
+    /**
+     * Reads a count, such as a quantity, and the rest of its line.
+     *
+     * @return the count
+     * @throws IllegalArgumentException if the answer is not a positive count
+     */
+    private int readCount() {
+        int count = scan.nextCount();
+        scan.nextLine();
+        if (count <= 0) {
+            throw new IllegalArgumentException("Not a count");
+        }
+        return count;
+    }
+
+    /**
+     * Tells the customer that what they typed names no option, suggesting the
+     * options it comes closest to, if any.
+     *
+     * @param category the category of the menu
+     * @param kind     what the customer typed
+     */
+    private void invalidOption(BakeryEnum category, String kind) {
+        out.println("\nInvalid Input." + OptionMatcher.suggest(category, kind, " Did You Mean ", "?") + " Try Again");
+    }
+
+    /**
+     * Exits the application.
+     */
+    public void exit() {
+        out.println("\nThank You. Have a Nice Day!");
+    }
+    
+    /**
+     * Main method that prints a welcome statement then processes the application.
+     * Run with {@code --batch <order file> [totals file]} to price an order file
+     * without the menu instead, with {@code --serve [port]} to serve the HTTP
+     * ordering API, with {@code --plan <journal directory> [yyyy-MM-dd]} to plan
+     * a day's baking from the journal, with {@code --pipeline <order file>} to
+     * check an order file out through the staged order pipeline, or with
+     * {@code --node <number> [port]} and {@code --router <port> <node host:port>...}
+     * to serve many stores from a cluster of processes, or with
+     * {@code --follow <journal directory> <primary host:port>} to keep a replica of
+     * another bakery's journal. Set the {@code bakery.journal} system property to a
+     * directory to keep a journal of confirmed checkouts there, and
+     * {@code bakery.replication.port} as well to replicate it to followers, waiting
+     * for one to confirm each checkout if {@code bakery.replication.sync} is true.
+     * Set {@code bakery.catalogue} to a catalogue snapshot to sell from it and reload
+     * it whenever it is replaced, set {@code bakery.promotions} to a file of promotion
+     * rules to apply them, and set {@code bakery.metrics.file} to a file to write the
+     * step latencies to on exit.
+     */
+    @SuppressWarnings("try")
+    public static void main(String[] args) throws IOException {
+        String catalogueFile = System.getProperty("bakery.catalogue");
+        if (catalogueFile != null) {
+            Catalogue.map(Paths.get(catalogueFile)).publish();
+            Catalogue.watch(Paths.get(catalogueFile));
+        }
+        String promotionsFile = System.getProperty("bakery.promotions");
+        if (promotionsFile != null) {
+            PriceTable.publish(PriceTable.current().withPromotions(Promotions.load(Paths.get(promotionsFile))));
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchOrders.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            OrderServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--plan")) {
+            ProductionPlanner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--pipeline")) {
+            OrderPipeline.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--node")) {
+            StoreNode.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--router")) {
+            StoreRouter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--follow")) {
+            JournalFollower.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        System.out.println("Welcome to the Bakery!\n");   
+        String journalDirectory = System.getProperty("bakery.journal");
+        if (journalDirectory == null) {
+            Bakery b = new Bakery();
+            b.buying(); 
+        } else {
+            try (OrderJournal journal = OrderJournal.open(Paths.get(journalDirectory));
+                JournalReplicator replicator = replicate(journal);
+                SessionEngine engine = new SessionEngine(journal)) {
+                Bakery b = new Bakery(engine.open());
+                b.buying();
+            }
+        }
+        String metricsFile = System.getProperty("bakery.metrics.file");
+        if (metricsFile != null) {
+            Metrics.writeTo(Paths.get(metricsFile));
+        }
+    }
+
+    /**
+     * Starts replicating a journal if the {@code bakery.replication.port} system property is set.
+     * With {@code bakery.replication.sync} set, each checkout waits for a follower for up to
+     * {@code bakery.replication.timeout} milliseconds, one second by default.
+     *
+     * @param journal the journal
+     * @return the replicator, or {@code null} if the journal is not replicated
+     * @throws IOException if the port cannot be bound
+     */
+    private static JournalReplicator replicate(OrderJournal journal) throws IOException {
+        String port = System.getProperty("bakery.replication.port");
+        if (port == null) {
+            return null;
+        }
+        JournalReplicator.Durability durability = Boolean.getBoolean("bakery.replication.sync")
+            ? JournalReplicator.Durability.SYNC : JournalReplicator.Durability.ASYNC;
+        return new JournalReplicator(journal, new InetSocketAddress(Integer.parseInt(port)), durability,
+            1, TimeUnit.MILLISECONDS.toNanos(Long.getLong("bakery.replication.timeout", 1000)));
+    }
+}
@@ -0,0 +1,870 @@
+package bakery;
+
+import java.util.Optional;
+
+/**
+ * Enum representing different bakery categories, such as breads, cakes, pastries, pies, cookies, frostings, and fillings.
+ * Each enum type holds an array of available options for each category, with their associated prices in cents.
+ */
+public enum BakeryEnum {
+
+    /**
+     * Bread category options with different bread types.
+     */
+    BREADLOAF(new BreadOptions[] {BreadOptions.WHITE, BreadOptions.SOURDOUGH, 
+        BreadOptions.GLUTEN_FREE, BreadOptions.WHOLE_WHEAT, BreadOptions.SWEET_HAWAIIAN}), 
+
+    /**
+     * Cake category options with different cake types.
+     */
+    CAKE(new CakeOptions[] {CakeOptions.VANILLA, CakeOptions.CHOCOLATE, 
+        CakeOptions.RED_VELVET, CakeOptions.MARBLE, CakeOptions.STRAWBERRY, 
+        CakeOptions.CARAMEL, CakeOptions.CARROT, CakeOptions.FUNFETTI}),
+
+    /**
+     * Frosting category options with different frosting types.
+     */
+    FROSTING(new FrostingOptions[] {FrostingOptions.VANILLA, FrostingOptions.CHOCOLATE,
+        FrostingOptions.COOKIES_N_CREME, FrostingOptions.CARAMEL, FrostingOptions.STRAWBERRY,
+        FrostingOptions.CREAM_CHEESE, FrostingOptions.FUNFETTI, FrostingOptions.LEMON,
+        FrostingOptions.COCONUT_CREAM, FrostingOptions.WHIPPED_CREAM}),
+        
+    /**
+     * Filling category options with different filling types.
+     */
+    FILLING(new FillingOptions[] {FillingOptions.VANILLA_CUSTARD, FillingOptions.CHOCOLATE_CREAM,
+        FillingOptions.STRAWBERRIES, FillingOptions.RASPBERRIES, FillingOptions.BLUEBERRIES,
+        FillingOptions.BLACKBERRIES, FillingOptions.LEMON_CUSTARD, FillingOptions.CARAMEL,
+        FillingOptions.OREOS, FillingOptions.WHIPPED_CREAM}),
+
+    /**
+     * Pastry category options with different pastry types.
+     */
+    PASTRY(new PastryOptions[] {PastryOptions.CROISSANT, PastryOptions.CHEESE_DANISH, 
+        PastryOptions.SAUSAGE_ROLL, PastryOptions.CHOCOLATE_ROLL, PastryOptions.STRAWBERRY_ROLL, 
+        PastryOptions.ECLAIR, PastryOptions.CREAM_ROLL, PastryOptions.CINNAMON_ROLL}), 
+
+    /**
+     * Pie category options with different pie types.
+     */
+    PIE(new PieOptions[] {PieOptions.CHERRY, PieOptions.BLUEBERRY, PieOptions.COOKIES_N_CREME, 
+        PieOptions.APPLE, PieOptions.KEYLIME, PieOptions.CHOCOLATE_CREAM, PieOptions.PECAN}), 
+
+    /**
+     * Cookie category options with different cookie types.
+     */
+    COOKIE(new CookieOptions[] {CookieOptions.SUGAR, CookieOptions.CHOCOLATE_CHIP, 
+        CookieOptions.DOUBLE_CHOCOLATE, CookieOptions.MM, CookieOptions.FROSTED_SUGAR, 
+        CookieOptions.OATMEAL_RAISIN});
+     
+    /**
+     * Array of options available in each category.
+     */
+    private final Enum<?>[] options;
+
+    /**
+     * Options of the category ordered by their ordinal.
+     */
+    private final BakeryOption[] byOrdinal;
+
+    /**
+     * Index of the first option of this category among the options of all categories.
+     */
+    private int offset;
+
+    /**
+     * Number of options across all categories.
+     */
+    private static final int OPTION_COUNT;
+
+    /**
+     * Every category, kept so lookups do not copy {@code values()}.
+     */
+    private static final BakeryEnum[] CATEGORIES = values();
+
+    static {
+        int next = 0;
+        for (BakeryEnum category : values()) {
+            category.offset = next;
+            next += category.options.length;
+        }
+        OPTION_COUNT = next;
+    }
+    
+    /**
+     * Constructor to initialize the BakeryEnum with the corresponding options.
+     * @param options The array of options available in the bakery category.
+     */
+    BakeryEnum(Enum<?>[] options) {
+        this.options = options;
+        this.byOrdinal = new BakeryOption[options.length];
+        for (Enum<?> option : options) {
+            byOrdinal[option.ordinal()] = (BakeryOption) option;
+        }
+    }
+
+    /**
+     * Gets an option of this category by its ordinal.
+     * @param ordinal The ordinal of the option within its enum.
+     * @return The option with that ordinal.
+     */
+    public BakeryOption getOption(int ordinal) {
+        return byOrdinal[ordinal];
+    }
+
+    /**
+     * Gets the number of options in this category.
+     * @return The number of options in the category.
+     */
+    public int getOptionCount() {
+        return byOrdinal.length;
+    }
+
+    /**
+     * Gets the index of the first option of this category among the options of all categories.
+     * @return The offset of the category.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the number of options across all categories.
+     * @return The total number of options.
+     */
+    public static int optionCount() {
+        return OPTION_COUNT;
+    }
+
+    /**
+     * Finds a category by the name used on the bakery menu, such as "bread" or "Cake",
+     * ignoring case.
+     * @param name The menu name or enum name of the category.
+     * @return The matching category, or {@code null} if there is none.
+     */
+    public static BakeryEnum findCategory(String name) {
+        if (name == null) {
+            return null;
+        }
+        if (name.equalsIgnoreCase("bread")) {
+            return BREADLOAF;
+        }
+        for (BakeryEnum category : CATEGORIES) {
+            if (category.name().equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Enum for the different bread options available.
+     */
+    public enum BreadOptions implements BakeryOption {
+        WHITE("White Bread", 799), 
+        SOURDOUGH("Sourdough Bread", 999), 
+        GLUTEN_FREE("Gluten Free Bread", 1199), 
+        WHOLE_WHEAT("Whole Wheat Bread", 699), 
+        SWEET_HAWAIIAN("Sweet Hawaiian Bread", 850);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor to initialize bread options with description and price.
+         * @param description The description of the bread.
+         * @param value The price of the bread in cents.
+         */
+        BreadOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the bread.
+         * @return The description of the bread.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the bread.
+         * @return The {@code BakeryEnum} category of the bread.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.BREADLOAF;
+        }
+
+        /**
+         * Gets the list price of the bread.
+         * @return The price of the bread before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the bread.
+         * @return The price of the bread in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Gets the bread option by description, or by a unique prefix or near spelling
+         * of it when no description matches exactly.
+         * @param description The description of the bread to search for.
+         * @return The bread option corresponding to the description.
+         * @throws IllegalArgumentException if no bread matches, or several match equally well.
+         */
+        public static BakeryEnum.BreadOptions getBreadDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.BREADLOAF, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No bread found with: " + description);
+            }
+            return (BreadOptions) option;
+        }
+
+        /**
+         * Finds the bread option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * @param description The description of the bread to search for.
+         * @return The matching bread option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<BreadOptions> findBreadDescription(String description) {
+            return Optional.ofNullable((BreadOptions) OptionIndex.find(BakeryEnum.BREADLOAF, description));
+        }
+
+        /**
+         * Calculates the price based on the quantity of bread.
+         * @param quantity The quantity of bread.
+         * @return The total price for the specified quantity of bread in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+    }
+
+    /**
+     * Enum for the different cake options available.
+     */
+    public enum CakeOptions implements BakeryOption {
+        VANILLA("Vanilla Cake", 799), 
+        CHOCOLATE("Chocolate Cake", 899), 
+        RED_VELVET("Red Velvet Cake", 999), 
+        MARBLE("Marble Cake", 899), 
+        STRAWBERRY("Strawberry Cake", 699), 
+        CARAMEL("Caramel Cake", 999),
+        CARROT("Carrot Cake", 899), 
+        FUNFETTI("Funfetti Cake", 899);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor to initialize cake options with description and price.
+         * @param description The description of the cake.
+         * @param value The price of the cake in cents.
+         */
+        CakeOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the cake.
+         * @return The description of the cake.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the cake.
+         * @return The {@code BakeryEnum} category of the cake.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.CAKE;
+        }
+
+        /**
+         * Gets the list price of the cake.
+         * @return The price of the cake before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the cake.
+         * @return The price of the cake in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+        
+        /**
+         * Gets the cake option by description, or by a unique prefix or near spelling
+         * of it when no description matches exactly.
+         * @param description The description of the cake to search for.
+         * @return The cake option corresponding to the description.
+         * @throws IllegalArgumentException if no cake matches, or several match equally well.
+         */
+        public static CakeOptions getCakeDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.CAKE, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No cake found with: " + description);
+            }
+            return (CakeOptions) option;
+        }
+
+        /**
+         * Finds the cake option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * @param description The description of the cake to search for.
+         * @return The matching cake option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<CakeOptions> findCakeDescription(String description) {
+            return Optional.ofNullable((CakeOptions) OptionIndex.find(BakeryEnum.CAKE, description));
+        }
+
+        /**
+         * Calculates the price based on the quantity of cake.
+         * @param quantity The quantity of cake.
+         * @return The total price for the specified quantity of cake in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+    }
+
+    /**
+     * Enum for the different pastry options available.
+     */
+    public enum PastryOptions implements BakeryOption {
+        CROISSANT("Croissant", 350), 
+        CHEESE_DANISH("Cheese Danish", 299), 
+        SAUSAGE_ROLL("Sausage Roll", 450), 
+        CHOCOLATE_ROLL("Chocolate Roll", 399), 
+        STRAWBERRY_ROLL("Strawberry Roll", 350), 
+        ECLAIR("Eclair", 399), 
+        CREAM_ROLL("Cream Roll", 350), 
+        CINNAMON_ROLL("Cinnamon Roll", 399);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor to initialize pastry options with description and price.
+         * @param description The description of the pastry.
+         * @param value The price of the pastry in cents.
+         */
+        PastryOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the pastry.
+         * @return The description of the pastry.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the pastry.
+         * @return The {@code BakeryEnum} category of the pastry.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.PASTRY;
+        }
+
+        /**
+         * Gets the list price of the pastry.
+         * @return The price of the pastry before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the pastry.
+         * @return The price of the pastry in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Gets the pastry option by description, or by a unique prefix or near spelling
+         * of it when no description matches exactly.
+         * @param description The description of the pastry to search for.
+         * @return The pastry option corresponding to the description.
+         * @throws IllegalArgumentException if no pastry matches, or several match equally well.
+         */
+        public static PastryOptions getPastryDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.PASTRY, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No pastry found with: " + description);
+            }
+            return (PastryOptions) option;
+        }
+
+        /**
+         * Finds the pastry option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * @param description The description of the pastry to search for.
+         * @return The matching pastry option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<PastryOptions> findPastryDescription(String description) {
+            return Optional.ofNullable((PastryOptions) OptionIndex.find(BakeryEnum.PASTRY, description));
+        }
+
+        /**
+         * Calculates the price based on the quantity of pastry.
+         * @param quantity The quantity of pastry.
+         * @return The total price for the specified quantity of pastry in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+    }
+
+
+    /**
+     * Enum representing different pie options with descriptions and prices.
+     */
+    public enum PieOptions implements BakeryOption {
+        CHERRY("Cherry Pie", 1299), 
+        BLUEBERRY("Blueberry Pie", 1299), 
+        COOKIES_N_CREME("Cookies N Creme Pie", 1499), 
+        APPLE("Apple Pie", 1399), 
+        KEYLIME("Keylime Pie", 1199), 
+        PECAN("Pecan Pie", 1299),
+        CHOCOLATE_CREAM("Chocolate Cream Pie", 1150);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor for PieOptions.
+         * 
+         * @param description The description of the pie option.
+         * @param value The price of the pie in cents.
+         */
+        PieOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the pie.
+         * 
+         * @return The description of the pie.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the pie.
+         * 
+         * @return The {@code BakeryEnum} category of the pie.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.PIE;
+        }
+
+        /**
+         * Gets the list price of the pie.
+         * 
+         * @return The price of the pie before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the pie.
+         * 
+         * @return The price of the pie in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Retrieves the PieOptions enum value by description, or by a unique prefix
+         * or near spelling of it when no description matches exactly.
+         * 
+         * @param description The description of the pie.
+         * @return The PieOptions corresponding to the description.
+         * @throws IllegalArgumentException if no pie matches, or several match equally well.
+         */
+        public static PieOptions getPieDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.PIE, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No pie found with: " + description);
+            }
+            return (PieOptions) option;
+        }
+
+        /**
+         * Finds the pie option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * 
+         * @param description The description of the pie to search for.
+         * @return The matching pie option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<PieOptions> findPieDescription(String description) {
+            return Optional.ofNullable((PieOptions) OptionIndex.find(BakeryEnum.PIE, description));
+        }
+
+        /**
+         * Calculates the price based on the quantity of pies.
+         * 
+         * @param quantity The number of pies.
+         * @return The total price for the specified quantity of pies in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+    }
+
+    /**
+     * Enum representing different cookie options with descriptions and prices.
+     */
+    public enum CookieOptions implements BakeryOption {
+        SUGAR("Sugar Cookie", 250), 
+        CHOCOLATE_CHIP("Chocolate Chip Cookie", 350), 
+        DOUBLE_CHOCOLATE("Double Chocolate Cookie", 350), 
+        MM("M&M Cookie", 299), 
+        FROSTED_SUGAR("Frosted Sugar Cookie", 299),
+        OATMEAL_RAISIN("Oatmeal Raisin Cookie", 250);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor for CookieOptions.
+         * 
+         * @param description The description of the cookie.
+         * @param value The price of the cookie in cents.
+         */
+        CookieOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the cookie.
+         * 
+         * @return The description of the cookie.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the cookie.
+         * 
+         * @return The {@code BakeryEnum} category of the cookie.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.COOKIE;
+        }
+
+        /**
+         * Gets the list price of the cookie.
+         * 
+         * @return The price of the cookie before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the cookie.
+         * 
+         * @return The price of the cookie in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Retrieves the CookieOptions enum value by description, or by a unique prefix
+         * or near spelling of it when no description matches exactly.
+         * 
+         * @param description The description of the cookie.
+         * @return The CookieOptions corresponding to the description.
+         * @throws IllegalArgumentException if no cookie matches, or several match equally well.
+         */
+        public static CookieOptions getCookieDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.COOKIE, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No cookie found with: " + description);
+            }
+            return (CookieOptions) option;
+        }
+
+        /**
+         * Finds the cookie option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * 
+         * @param description The description of the cookie to search for.
+         * @return The matching cookie option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<CookieOptions> findCookieDescription(String description) {
+            return Optional.ofNullable((CookieOptions) OptionIndex.find(BakeryEnum.COOKIE, description));
+        }
+
+        /**
+         * Calculates the price based on the quantity of cookies.
+         * 
+         * @param quantity The number of cookies.
+         * @return The total price for the specified quantity of cookies in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+    }
+
+    /**
+     * Enum representing different frosting options with descriptions and prices.
+     */
+    public enum FrostingOptions implements BakeryOption {
+        VANILLA("Vanilla Frosting", 599), 
+        CHOCOLATE("Chocolate Frosting", 799), 
+        COOKIES_N_CREME("Cookies N Creme Frosting", 899), 
+        CARAMEL("Caramel Frosting", 799), 
+        STRAWBERRY("Frosting Frosting", 599),
+        CREAM_CHEESE("Cream Cheese Frosting", 499), 
+        FUNFETTI("Funfetti Frosting", 699), 
+        LEMON("Lemon Frosting", 599), 
+        COCONUT_CREAM("Coconut Cream Frosting", 699), 
+        WHIPPED_CREAM("Whipped Cream", 499);
+
+        private final String description; 
+        private final long value;
+
+        /**
+         * Constructor for FrostingOptions.
+         * 
+         * @param description The description of the frosting.
+         * @param value The price of the frosting in cents.
+         */
+        FrostingOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the frosting.
+         * 
+         * @return The description of the frosting.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the frosting.
+         * 
+         * @return The {@code BakeryEnum} category of the frosting.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.FROSTING;
+        }
+
+        /**
+         * Gets the list price of the frosting.
+         * 
+         * @return The price of the frosting before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the frosting.
+         * 
+         * @return The price of the frosting in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Calculates the price based on the quantity of frosting.
+         * 
+         * @param quantity The number of frostings.
+         * @return The total price for the specified quantity of frosting in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+
+        /**
+         * Retrieves the FrostingOptions enum value by description, or by a unique prefix
+         * or near spelling of it when no description matches exactly.
+         * 
+         * @param description The description of the frosting.
+         * @return The FrostingOptions corresponding to the description.
+         * @throws IllegalArgumentException if no frosting matches, or several match equally well.
+         */
+        public static FrostingOptions getFrostingDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.FROSTING, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No frosting found with: " + description);
+            }
+            return (FrostingOptions) option;
+        }
+
+        /**
+         * Finds the frosting option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * 
+         * @param description The description of the frosting to search for.
+         * @return The matching frosting option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<FrostingOptions> findFrostingDescription(String description) {
+            return Optional.ofNullable((FrostingOptions) OptionIndex.find(BakeryEnum.FROSTING, description));
+        }
+    }
+
+
+    /**
+     * Enum representing different filling options with descriptions and prices.
+     */
+    public enum FillingOptions implements BakeryOption {
+        VANILLA_CUSTARD("Vanilla Custard", 750), 
+        CHOCOLATE_CREAM("Chocolate Cream", 850), 
+        STRAWBERRIES("Strawberries", 800), 
+        RASPBERRIES("Raspberries", 900), 
+        BLUEBERRIES("Blueberries", 700), 
+        BLACKBERRIES("Blackberries", 800), 
+        LEMON_CUSTARD("Lemon Custard", 1099), 
+        CARAMEL("Caramel", 999), 
+        OREOS("Oreos", 799),
+        WHIPPED_CREAM("Whipped Cream", 699);
+
+        private final String description;
+        private final long value; 
+
+        /**
+         * Constructor for FillingOptions.
+         * 
+         * @param description The description of the filling.
+         * @param value The price of the filling in cents.
+         */
+        FillingOptions(String description, long value) {
+            this.description = description;
+            this.value = value;
+        }
+
+        /**
+         * Gets the description of the filling.
+         * 
+         * @return The description of the filling.
+         */
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the category of the filling.
+         * 
+         * @return The {@code BakeryEnum} category of the filling.
+         */
+        @Override
+        public BakeryEnum getCategory() {
+            return BakeryEnum.FILLING;
+        }
+
+        /**
+         * Gets the list price of the filling.
+         * 
+         * @return The price of the filling before any price change, in cents.
+         */
+        @Override
+        public long getListPrice() {
+            return value;
+        }
+
+        /**
+         * Gets the current price of the filling.
+         * 
+         * @return The price of the filling in cents.
+         */
+        public long getValue() {
+            return PriceTable.current().price(this);
+        }
+
+        /**
+         * Calculates the price based on the quantity of fillings.
+         * 
+         * @param quantity The number of fillings.
+         * @return The total price for the specified quantity of fillings in cents.
+         */
+        public long calculatePrice(int quantity) {
+            return PriceTable.current().calculatePrice(this, quantity);
+        }
+
+        /**
+         * Retrieves the FillingOptions enum value by description, or by a unique prefix
+         * or near spelling of it when no description matches exactly.
+         * 
+         * @param description The description of the filling.
+         * @return The FillingOptions corresponding to the description.
+         * @throws IllegalArgumentException if no filling matches, or several match equally well.
+         */
+        public static FillingOptions getFillingDescription(String description) {
+            BakeryOption option = OptionIndex.find(BakeryEnum.FILLING, description);
+            if (option == null) {
+                throw new IllegalArgumentException("No filling found with: " + description);
+            }
+            return (FillingOptions) option;
+        }
+
+        /**
+         * Finds the filling option by description, or by a unique prefix or near spelling
+         * of it, without throwing on a miss.
+         * 
+         * @param description The description of the filling to search for.
+         * @return The matching filling option, or an empty {@code Optional} if there is none
+         *         or several match equally well.
+         */
+        public static Optional<FillingOptions> findFillingDescription(String description) {
+            return Optional.ofNullable((FillingOptions) OptionIndex.find(BakeryEnum.FILLING, description));
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Abstract class representing a generic bakery item.
  * This class serves as a base for specific bakery items (e.g., cake, cookie, pie) 
@@ -6,16 +8,31 @@
 public abstract class BakeryItem {
     protected BakeryEnum typeOfItem;
     protected int quantity;
+    protected final PriceTable prices;
 
     /**
-     * Constructs a new {@code BakeryItem} with the specified type and quantity.
+     * Constructs a new {@code BakeryItem} with the specified type and quantity,
+     * priced with the current price table.
      *
      * @param typeOfItem the type of the bakery item as defined in {@code BakeryEnum}
      * @param quantity   the quantity of the bakery item being purchased
      */
     public BakeryItem(BakeryEnum typeOfItem, int quantity) {
+        this(typeOfItem, quantity, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code BakeryItem} with the specified type and quantity,
+     * priced with the given price table.
+     *
+     * @param typeOfItem the type of the bakery item as defined in {@code BakeryEnum}
+     * @param quantity   the quantity of the bakery item being purchased
+     * @param prices     the price table the item is priced with
+     */
+    public BakeryItem(BakeryEnum typeOfItem, int quantity, PriceTable prices) {
         this.typeOfItem = typeOfItem;
         this.quantity = quantity;
+        this.prices = prices;
     }
 
     /**
@@ -0,0 +1,47 @@
+package bakery;
+
+/**
+ * Interface implemented by every option enum in {@code BakeryEnum}, such as
+ * {@code BakeryEnum.BreadOptions} or {@code BakeryEnum.FrostingOptions}.
+ * It lets code that works across all categories (prices, lookups, carts)
+ * treat any option the same way.
+ */
+public interface BakeryOption {
+
+    /**
+     * Gets the bakery category this option belongs to.
+     *
+     * @return the category of the option
+     */
+    BakeryEnum getCategory();
+
+    /**
+     * Gets the description of the option as shown on the menu.
+     *
+     * @return the description of the option
+     */
+    String getDescription();
+
+    /**
+     * Gets the list price of the option that the bakery opens with.
+     *
+     * @return the list price of the option in cents
+     */
+    long getListPrice();
+
+    /**
+     * Gets the position of the option within its enum.
+     *
+     * @return the ordinal of the option
+     */
+    int ordinal();
+
+    /**
+     * Gets the position of the option among the options of all categories.
+     *
+     * @return the index of the option, from 0 to {@code BakeryEnum.optionCount() - 1}
+     */
+    default int index() {
+        return getCategory().getOffset() + ordinal();
+    }
+}
@@ -0,0 +1,255 @@
+package bakery;
+
+/**
+ * Represents one customer's visit to the bakery: their shopping cart and the
+ * running price of everything in it. The ordering rules live here so that the
+ * console, scripts and other front ends all price purchases the same way.
+ * Stock is reserved as items are added, and given back if the purchase is cancelled.
+ * Options that are not on sale in the session's price table are refused.
+ * A session is meant to be driven by a single thread at a time.
+ * Front ends that host sessions for remote clients mark each use, so that
+ * sessions left unused can be found and cancelled.
+ */
+public class BakerySession {
+
+    /**
+     * Line number returned by the add methods when there is not enough in stock.
+     */
+    public static final int OUT_OF_STOCK = -1;
+
+    private final long id;
+    private final SessionEngine engine;
+    private final Inventory inventory;
+    private final PriceTable prices = PriceTable.current();
+    private final CompactCart shoppingCart = new CompactCart(prices);
+    private volatile long lastActive = System.nanoTime();
+
+    /**
+     * Constructs a new {@code BakerySession} hosted by the given engine.
+     *
+     * @param id     the identifier of the session
+     * @param engine the engine that hosts the session and collects its revenue
+     */
+    BakerySession(long id, SessionEngine engine) {
+        this.id = id;
+        this.engine = engine;
+        this.inventory = engine.getInventory();
+    }
+
+    /**
+     * Gets the identifier of this session.
+     *
+     * @return the session identifier
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Records that the session is being used now.
+     */
+    void markActive() {
+        lastActive = System.nanoTime();
+    }
+
+    /**
+     * Gets when the session was last used.
+     *
+     * @return the {@link System#nanoTime()} of the last use, or of opening
+     */
+    long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Gets the price table this session was opened with. Every purchase in the
+     * session is priced with it, even if a newer table is published meanwhile.
+     *
+     * @return the price table of the session
+     */
+    public PriceTable getPriceTable() {
+        return prices;
+    }
+
+    /**
+     * Adds bread to the cart.
+     *
+     * @param bread    the selected bread option
+     * @param quantity the number of loaves
+     * @return the line of the cart holding the bread, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    public int addBread(BakeryEnum.BreadOptions bread, int quantity) {
+        return add(bread, quantity);
+    }
+
+    /**
+     * Adds cakes with the specified options to the cart. The stock of the cake, its
+     * frosting and its filling is released again if the cart cannot take the line.
+     *
+     * @param cake     the selected cake option
+     * @param frosting the selected frosting option
+     * @param filling  the selected filling option
+     * @param layers   the number of layers in each cake
+     * @param quantity the number of cakes
+     * @return the line of the cart holding the cakes, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    public int addCake(BakeryEnum.CakeOptions cake, BakeryEnum.FrostingOptions frosting,
+        BakeryEnum.FillingOptions filling, int layers, int quantity) {
+
+        offered(cake);
+        offered(frosting);
+        offered(filling);
+        long start = Metrics.start();
+        long finalPrice = prices.cakePrice(cake, frosting, filling, layers, quantity);
+        Metrics.record(Metrics.Step.PRICING, start);
+        long portions = Math.multiplyExact((long) layers, quantity);
+        if (!inventory.reserve(cake, quantity)) {
+            return OUT_OF_STOCK;
+        }
+        if (!inventory.reserve(frosting, portions)) {
+            inventory.release(cake, quantity);
+            return OUT_OF_STOCK;
+        }
+        if (!inventory.reserve(filling, portions)) {
+            inventory.release(cake, quantity);
+            inventory.release(frosting, portions);
+            return OUT_OF_STOCK;
+        }
+        int line;
+        try {
+            line = shoppingCart.addCake(cake, frosting, filling, layers, quantity, finalPrice);
+        } catch (RuntimeException e) {
+            inventory.release(cake, quantity);
+            inventory.release(frosting, portions);
+            inventory.release(filling, portions);
+            throw e;
+        }
+        Metrics.record(Metrics.Step.CART_ADD, start);
+        return line;
+    }
+
+    /**
+     * Adds pastries to the cart.
+     *
+     * @param pastry   the selected pastry option
+     * @param quantity the number of pastries
+     * @return the line of the cart holding the pastries, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    public int addPastry(BakeryEnum.PastryOptions pastry, int quantity) {
+        return add(pastry, quantity);
+    }
+
+    /**
+     * Adds cookies to the cart.
+     *
+     * @param cookie   the selected cookie option
+     * @param quantity the number of cookies
+     * @return the line of the cart holding the cookies, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    public int addCookie(BakeryEnum.CookieOptions cookie, int quantity) {
+        return add(cookie, quantity);
+    }
+
+    /**
+     * Adds pies to the cart.
+     *
+     * @param pie      the selected pie option
+     * @param quantity the number of pies
+     * @return the line of the cart holding the pies, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    public int addPie(BakeryEnum.PieOptions pie, int quantity) {
+        return add(pie, quantity);
+    }
+
+    /**
+     * Prices an option sold by quantity, reserves it and adds it to the cart. If the
+     * cart cannot take the line, such as when merging it would overflow, the stock is
+     * released again before the failure is passed on.
+     *
+     * @param option   the selected option
+     * @param quantity the quantity of the option
+     * @return the line of the cart holding the option, or {@code OUT_OF_STOCK}
+     *         if there is not enough in stock
+     */
+    private int add(BakeryOption option, int quantity) {
+        offered(option);
+        long start = Metrics.start();
+        long price = prices.calculatePrice(option, quantity);
+        Metrics.record(Metrics.Step.PRICING, start);
+        if (!inventory.reserve(option, quantity)) {
+            return OUT_OF_STOCK;
+        }
+        int line;
+        try {
+            line = shoppingCart.add(option, quantity, price);
+        } catch (RuntimeException e) {
+            inventory.release(option, quantity);
+            throw e;
+        }
+        Metrics.record(Metrics.Step.CART_ADD, start);
+        return line;
+    }
+
+    /**
+     * Checks that an option is on sale in this session's price table.
+     *
+     * @param option the option
+     * @throws IllegalArgumentException if the option is not on sale
+     */
+    private void offered(BakeryOption option) {
+        if (!prices.isOffered(option)) {
+            throw new IllegalArgumentException("Not on sale: " + option.getDescription());
+        }
+    }
+
+    /**
+     * Gets the cart holding the items of this session.
+     *
+     * @return the shopping cart
+     */
+    public CompactCart getShoppingCart() {
+        return shoppingCart;
+    }
+
+    /**
+     * Gets the price of everything currently in the cart.
+     *
+     * @return the running total of the cart in cents
+     */
+    public long getCollectedPrice() {
+        return shoppingCart.getTotal();
+    }
+
+    /**
+     * Confirms the purchase, keeping the reserved stock as sold, adds its total
+     * to the store revenue and empties the cart.
+     *
+     * @return the total price of the confirmed purchase in cents
+     * @throws java.io.UncheckedIOException if the journal fails
+     * @throws IllegalStateException        if the journal is closed
+     * @see SessionEngine#recordCheckout(BakerySession, long)
+     */
+    public long checkOut() {
+        long start = Metrics.start();
+        long total = shoppingCart.getTotal();
+        engine.recordCheckout(this, total);
+        shoppingCart.clear();
+        Metrics.record(Metrics.Step.CHECKOUT, start);
+        return total;
+    }
+
+    /**
+     * Cancels the purchase, giving the reserved stock back and emptying the cart
+     * without collecting anything.
+     */
+    public void cancel() {
+        inventory.release(shoppingCart);
+        shoppingCart.clear();
+        engine.close(this);
+    }
+}
@@ -0,0 +1,405 @@
+package bakery;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prices wholesale order files without the interactive menu. Each line of the file is
+ * one purchase in the comma separated form
+ * {@code order,category,option,quantity,layers,frosting,filling}, where the last three
+ * columns are only used for cakes, for example {@code 1042,cake,Carrot Cake,2,3,Lemon Frosting,Caramel}.
+ * The lines of an order must be next to each other. Lines are priced with the same rules
+ * as the console, promotions included, and a total is written for every order as
+ * {@code order,lines,total}.
+ * The file is streamed in chunks that are priced in parallel, and only a bounded
+ * number of chunks is held in memory at once.
+ */
+public class BatchOrders {
+
+    private static final int FIELDS = 7;
+
+    private final PriceTable prices;
+    private final int chunkLines;
+    private final int parallelism;
+
+    /**
+     * Summary of one processed file.
+     */
+    public static final class Result {
+        private final long lines;
+        private final long orders;
+        private final long rejected;
+        private final long total;
+        private final long elapsedNanos;
+
+        /**
+         * Constructs a summary of a processed file.
+         *
+         * @param lines        the number of purchase lines read
+         * @param orders       the number of order totals written
+         * @param rejected     the number of lines that could not be priced
+         * @param total        the total of every order in cents
+         * @param elapsedNanos the time taken to process the file
+         */
+        Result(long lines, long orders, long rejected, long total, long elapsedNanos) {
+            this.lines = lines;
+            this.orders = orders;
+            this.rejected = rejected;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of purchase lines read.
+         *
+         * @return the number of lines
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * Gets the number of order totals written.
+         *
+         * @return the number of orders
+         */
+        public long getOrders() {
+            return orders;
+        }
+
+        /**
+         * Gets the number of lines that could not be priced.
+         *
+         * @return the number of rejected lines
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Gets the total of every order.
+         *
+         * @return the total in cents
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the throughput of the run.
+         *
+         * @return the lines processed per second
+         */
+        public double getLinesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Priced output of one chunk of lines.
+     */
+    private static final class Chunk {
+        private final StringBuilder totals = new StringBuilder();
+        private long orders;
+        private long rejected;
+        private long total;
+    }
+
+    /**
+     * Constructs a batch processor.
+     *
+     * @param prices      the price table to price every line with
+     * @param chunkLines  the number of lines handed to a worker at a time
+     * @param parallelism the number of worker threads
+     */
+    public BatchOrders(PriceTable prices, int chunkLines, int parallelism) {
+        this.prices = prices;
+        this.chunkLines = Math.max(1, chunkLines);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Prices every line of an order file and writes the total of each order.
+     *
+     * @param in  the order file
+     * @param out where to write the order totals
+     * @return a summary of the run
+     * @throws IOException if the file cannot be read or the totals cannot be written
+     */
+    public Result process(BufferedReader in, Writer out) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        long lines = 0;
+        long orders = 0;
+        long rejected = 0;
+        long total = 0;
+
+        try {
+            String[] chunk = new String[chunkLines];
+            int size = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#") || (lines == 0 && line.startsWith("order,"))) {
+                    continue;
+                }
+                if (size >= chunkLines && !sameOrder(chunk[size - 1], line)) {
+                    pending.add(workers.submit(priceTask(chunk, size)));
+                    chunk = new String[chunkLines];
+                    size = 0;
+                    if (pending.size() >= parallelism * 2) {
+                        Chunk done = await(pending.poll());
+                        out.append(done.totals);
+                        orders += done.orders;
+                        rejected += done.rejected;
+                        total = Money.plus(total, done.total);
+                    }
+                }
+                if (size == chunk.length) {
+                    chunk = Arrays.copyOf(chunk, size * 2);
+                }
+                chunk[size++] = line;
+                lines++;
+            }
+            if (size > 0) {
+                pending.add(workers.submit(priceTask(chunk, size)));
+            }
+            while (!pending.isEmpty()) {
+                Chunk done = await(pending.poll());
+                out.append(done.totals);
+                orders += done.orders;
+                rejected += done.rejected;
+                total = Money.plus(total, done.total);
+            }
+            out.flush();
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Result(lines, orders, rejected, total, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates the task that prices one chunk of lines.
+     *
+     * @param lines the lines of the chunk
+     * @param size  the number of lines in use
+     * @return the pricing task
+     */
+    private Callable<Chunk> priceTask(String[] lines, int size) {
+        return () -> price(lines, size);
+    }
+
+    /**
+     * Prices a chunk of lines, totalling each order as it ends.
+     *
+     * @param lines the lines of the chunk
+     * @param size  the number of lines in use
+     * @return the order totals of the chunk
+     */
+    private Chunk price(String[] lines, int size) {
+        Chunk chunk = new Chunk();
+        String[] fields = new String[FIELDS];
+        Promotions.Tally promotions = prices.getPromotions().newTally();
+        String order = null;
+        int orderLines = 0;
+        long orderTotal = 0;
+
+        for (int i = 0; i < size; i++) {
+            split(lines[i], fields);
+            if (order != null && !order.equals(fields[0])) {
+                writeTotal(chunk, order, orderLines, orderTotal - Math.min(promotions.getDiscount(), orderTotal));
+                orderLines = 0;
+                orderTotal = 0;
+                promotions.clear();
+            }
+            order = fields[0];
+            long price = priceLine(fields, promotions);
+            if (price < 0) {
+                chunk.rejected++;
+                continue;
+            }
+            orderLines++;
+            orderTotal = Money.plus(orderTotal, price);
+        }
+        if (order != null) {
+            writeTotal(chunk, order, orderLines, orderTotal - Math.min(promotions.getDiscount(), orderTotal));
+        }
+        return chunk;
+    }
+
+    /**
+     * Prices one purchase line the way the console menus would, and counts it
+     * towards the promotions of its order. A line whose price would overflow is
+     * rejected on its own, as the order pipeline does, rather than failing the file.
+     *
+     * @param fields     the columns of the line
+     * @param promotions the promotions tally of the order
+     * @return the price of the line in cents before promotions, or -1 if the line cannot be priced
+     */
+    long priceLine(String[] fields, Promotions.Tally promotions) {
+        BakeryEnum category = BakeryEnum.findCategory(fields[1]);
+        if (category == null || category == BakeryEnum.FROSTING || category == BakeryEnum.FILLING) {
+            return -1;
+        }
+        BakeryOption option = OptionIndex.find(category, fields[2]);
+        int quantity = parseCount(fields[3]);
+        if (option == null || quantity <= 0 || !prices.isOffered(option)) {
+            return -1;
+        }
+        if (category != BakeryEnum.CAKE) {
+            long price;
+            try {
+                price = prices.calculatePrice(option, quantity);
+            } catch (ArithmeticException e) {
+                return -1;
+            }
+            promotions.add(option, quantity);
+            return price;
+        }
+
+        int layers = parseCount(fields[4]);
+        BakeryOption frosting = OptionIndex.find(BakeryEnum.FROSTING, fields[5]);
+        BakeryOption filling = OptionIndex.find(BakeryEnum.FILLING, fields[6]);
+        if (layers <= 0 || frosting == null || filling == null
+            || !prices.isOffered(frosting) || !prices.isOffered(filling)) {
+            return -1;
+        }
+        long price;
+        try {
+            price = prices.cakePrice((BakeryEnum.CakeOptions) option, (BakeryEnum.FrostingOptions) frosting,
+                (BakeryEnum.FillingOptions) filling, layers, quantity);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+        promotions.addCake((BakeryEnum.CakeOptions) option, (BakeryEnum.FrostingOptions) frosting,
+            (BakeryEnum.FillingOptions) filling, layers, quantity);
+        return price;
+    }
+
+    /**
+     * Appends the total of one order to a chunk's output.
+     *
+     * @param chunk      the chunk being priced
+     * @param order      the order identifier
+     * @param orderLines the number of priced lines in the order
+     * @param orderTotal the total of the order in cents
+     */
+    private static void writeTotal(Chunk chunk, String order, int orderLines, long orderTotal) {
+        chunk.totals.append(order).append(',').append(orderLines).append(',');
+        Money.appendTo(chunk.totals, orderTotal).append('\n');
+        chunk.orders++;
+        chunk.total = Money.plus(chunk.total, orderTotal);
+    }
+
+    /**
+     * Splits a comma separated line into a fixed number of trimmed columns.
+     * Missing columns are left empty.
+     *
+     * @param line   the line to split
+     * @param fields the array receiving the columns
+     */
+    static void split(String line, String[] fields) {
+        int from = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (from > line.length()) {
+                fields[i] = "";
+                continue;
+            }
+            int comma = i == fields.length - 1 ? -1 : line.indexOf(',', from);
+            int to = comma < 0 ? line.length() : comma;
+            fields[i] = line.substring(from, to).trim();
+            from = to + 1;
+        }
+    }
+
+    /**
+     * Checks whether two lines belong to the same order.
+     *
+     * @param line  a line of the file
+     * @param other another line of the file
+     * @return true if both lines start with the same order identifier
+     */
+    private static boolean sameOrder(String line, String other) {
+        int end = line.indexOf(',');
+        if (end < 0) {
+            end = line.length();
+        }
+        return other.regionMatches(0, line, 0, end) && (other.length() == end || other.charAt(end) == ',');
+    }
+
+    /**
+     * Parses a positive count without throwing.
+     *
+     * @param text the text to parse
+     * @return the count, or -1 if the text is not a count
+     */
+    static int parseCount(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Waits for a chunk to be priced.
+     *
+     * @param future the pending chunk
+     * @return the priced chunk
+     * @throws IOException if pricing the chunk failed
+     */
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not price order lines", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pricing order lines", e);
+        }
+    }
+
+    /**
+     * Main method that prices an order file and writes the order totals to a file or
+     * standard output, then reports the throughput.
+     * Usage: {@code BatchOrders <order file> [totals file]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BatchOrders <order file> [totals file]");
+            System.exit(2);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        BatchOrders batch = new BatchOrders(PriceTable.current(), 8192, cores);
+
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+            Writer out = args.length > 1
+                ? Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            Result result = batch.process(in, out);
+            System.err.printf("%d lines, %d orders, %d rejected, total $%s, %.0f lines/sec%n",
+                result.getLines(), result.getOrders(), result.getRejected(),
+                Money.format(result.getTotal()), result.getLinesPerSecond());
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Represents a specific type of bakery item: a bread loaf.
  * This class extends the general {@code BakeryItem} class to include details
@@ -8,13 +10,26 @@ public class BreadLoaf extends BakeryItem {
     private BakeryEnum.BreadOptions typeOfItem;
 
      /**
-     * Constructs a new {@code BreadLoaf} object with the specified type and quantity.
+     * Constructs a new {@code BreadLoaf} object with the specified type and quantity,
+     * priced with the current price table.
      *
      * @param typeOfItem the specific type of bread as defined in {@code BakeryEnum.BreadOptions}
      * @param quantity   the number of bread loaves being purchased
      */
     public BreadLoaf(BakeryEnum.BreadOptions typeOfItem, int quantity) {
-        super(BakeryEnum.BREADLOAF, quantity);
+        this(typeOfItem, quantity, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code BreadLoaf} object with the specified type and quantity,
+     * priced with the given price table.
+     *
+     * @param typeOfItem the specific type of bread as defined in {@code BakeryEnum.BreadOptions}
+     * @param quantity   the number of bread loaves being purchased
+     * @param prices     the price table the bread loaf is priced with
+     */
+    public BreadLoaf(BakeryEnum.BreadOptions typeOfItem, int quantity, PriceTable prices) {
+        super(BakeryEnum.BREADLOAF, quantity, prices);
         this.typeOfItem = typeOfItem;
     }
 
@@ -50,10 +65,10 @@ public class BreadLoaf extends BakeryItem {
      * The total price is determined by multiplying the unit price of the bread type
      * by the quantity purchased.
      *
-     * @return the total price for this bread loaf purchase
+     * @return the total price for this bread loaf purchase in cents
      */
-    public double calculateTotalPrice() {
-        return typeOfItem.getValue() * getQuantity();
+    public long calculateTotalPrice() {
+        return prices.calculatePrice(typeOfItem, getQuantity());
     }
 
     /**
@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Represents a specific type of bakery item: a cake.
  * This class extends the general {@code BakeryItem} class to include details
@@ -12,7 +14,7 @@ public class Cake extends BakeryItem {
 
     /**
      * Constructs a new {@code Cake} object with the specified type, frosting, filling,
-     * quantity, and layers.
+     * quantity, and layers, priced with the current price table.
      *
      * @param typeOfItem the specific type of cake as defined in {@code BakeryEnum.CakeOptions}
      * @param frosting   the frosting type for the cake as defined in {@code BakeryEnum.FrostingOptions}
@@ -22,7 +24,23 @@ public class Cake extends BakeryItem {
      */
     public Cake(BakeryEnum.CakeOptions typeOfItem, BakeryEnum.FrostingOptions frosting, 
         BakeryEnum.FillingOptions filling, int quantity, int layers) {
-        super(BakeryEnum.CAKE, quantity);
+        this(typeOfItem, frosting, filling, quantity, layers, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code Cake} object with the specified type, frosting, filling,
+     * quantity, and layers, priced with the given price table.
+     *
+     * @param typeOfItem the specific type of cake as defined in {@code BakeryEnum.CakeOptions}
+     * @param frosting   the frosting type for the cake as defined in {@code BakeryEnum.FrostingOptions}
+     * @param filling    the filling type for the cake as defined in {@code BakeryEnum.FillingOptions}
+     * @param quantity   the number of cakes being purchased
+     * @param layers     the number of layers in the cake
+     * @param prices     the price table the cake is priced with
+     */
+    public Cake(BakeryEnum.CakeOptions typeOfItem, BakeryEnum.FrostingOptions frosting, 
+        BakeryEnum.FillingOptions filling, int quantity, int layers, PriceTable prices) {
+        super(BakeryEnum.CAKE, quantity, prices);
         this.typeOfItem = typeOfItem;
         this.frosting = frosting;
         this.filling = filling;
@@ -58,13 +76,13 @@ public class Cake extends BakeryItem {
 
     /**
      * Calculates the total price of the cake purchase.
-     * The total price is determined by multiplying the unit price of the cake type
-     * by the quantity purchased.
+     * The cake, frosting and filling are each charged once per layer, and the
+     * price of one cake is multiplied by the quantity purchased.
      *
-     * @return the total price for this cake purchase
+     * @return the total price for this cake purchase in cents
      */
-    public double calculateTotalPrice() {
-        return typeOfItem.getValue() * getQuantity();
+    public long calculateTotalPrice() {
+        return prices.cakePrice(typeOfItem, frosting, filling, layers, getQuantity());
     }
 
     /**
@@ -0,0 +1,331 @@
+package bakery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * What is on sale and at what price, kept outside the code so the menu can change
+ * without a rebuild or restart. The catalogue is written as a definition file and
+ * compiled into a small binary snapshot, which is memory-mapped and checked when the
+ * bakery starts. A running bakery can watch the snapshot and publish a new price
+ * table whenever it is replaced; sessions already open keep the table they started
+ * with, so orders in progress never wait on a reload.
+ *
+ * <p>A definition lists every option on sale, one per line; options left out are
+ * not on sale. Options are named by description or enum name:
+ * <pre>
+ * # category/option = price
+ * bread/White Bread = 7.99
+ * cake/RED_VELVET = 10.49
+ * </pre>
+ *
+ * <p>The snapshot is laid out as
+ * <pre>
+ * int magic, int format, int layout, int optionCount,
+ * then per option index: long price in cents, or -1 if not on sale,
+ * then int crc32c of everything before it
+ * </pre>
+ * where the layout is a checksum of the option names in index order, so a snapshot
+ * compiled for a different set of options is refused instead of mispricing them.
+ */
+public final class Catalogue {
+
+    private static final int MAGIC = 0x42414B43;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long NOT_OFFERED = -1;
+    private static final int LAYOUT = layout();
+    private static final int SNAPSHOT_BYTES = HEADER_BYTES + BakeryEnum.optionCount() * 8 + 4;
+
+    private final long[] prices;
+
+    /**
+     * Constructs a catalogue.
+     *
+     * @param prices the price of every option in cents, or {@code NOT_OFFERED}, indexed by option index
+     */
+    private Catalogue(long[] prices) {
+        this.prices = prices;
+    }
+
+    /**
+     * Checks whether an option is on sale.
+     *
+     * @param option the option
+     * @return true if the option is in the catalogue
+     */
+    public boolean isOffered(BakeryOption option) {
+        return prices[option.index()] != NOT_OFFERED;
+    }
+
+    /**
+     * Gets the price of an option.
+     *
+     * @param option the option
+     * @return the price in cents, or -1 if the option is not on sale
+     */
+    public long price(BakeryOption option) {
+        return prices[option.index()];
+    }
+
+    /**
+     * Creates the next version of a price table with this catalogue's prices and
+     * options on sale. Options not on sale keep their old price so carts that hold
+     * them are still priced the same way.
+     *
+     * @param table the table to derive from
+     * @return the new table, not yet published
+     */
+    public PriceTable applyTo(PriceTable table) {
+        long[] next = new long[prices.length];
+        boolean[] offered = new boolean[prices.length];
+        for (BakeryEnum category : BakeryEnum.values()) {
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                offered[option.index()] = isOffered(option);
+                next[option.index()] = isOffered(option) ? prices[option.index()] : table.price(option);
+            }
+        }
+        return table.withCatalogue(next, offered);
+    }
+
+    /**
+     * Publishes this catalogue on top of the current price table, keeping anything
+     * published meanwhile, such as promotions.
+     *
+     * @return the published table
+     */
+    public PriceTable publish() {
+        while (true) {
+            PriceTable current = PriceTable.current();
+            PriceTable next = applyTo(current);
+            if (PriceTable.replace(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Reads a definition file.
+     *
+     * @param definition the definition file
+     * @return the catalogue
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    public static Catalogue load(Path definition) throws IOException {
+        return parse(Files.readAllLines(definition, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a definition, one option per line. Blank lines and lines starting
+     * with {@code #} are skipped.
+     *
+     * @param lines the definition
+     * @return the catalogue
+     * @throws IllegalArgumentException if a line is malformed or lists an option twice
+     */
+    public static Catalogue parse(List<String> lines) {
+        long[] prices = new long[BakeryEnum.optionCount()];
+        Arrays.fill(prices, NOT_OFFERED);
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int slash = line.indexOf('/');
+            int equals = line.lastIndexOf('=');
+            if (slash <= 0 || equals < slash) {
+                throw new IllegalArgumentException("Line " + number + ": expected category/option = price");
+            }
+            BakeryEnum category = BakeryEnum.findCategory(line.substring(0, slash).trim());
+            BakeryOption option = category == null ? null
+                : OptionIndex.findByName(category, line.substring(slash + 1, equals).trim());
+            if (option == null) {
+                throw new IllegalArgumentException("Line " + number + ": no such option: "
+                    + line.substring(0, equals).trim());
+            }
+            long price;
+            try {
+                price = Money.parse(line.substring(equals + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+            if (price < 0) {
+                throw new IllegalArgumentException("Line " + number + ": a price cannot be negative");
+            }
+            if (prices[option.index()] != NOT_OFFERED) {
+                throw new IllegalArgumentException("Line " + number + ": listed twice: " + option.getDescription());
+            }
+            prices[option.index()] = price;
+        }
+        return new Catalogue(prices);
+    }
+
+    /**
+     * Writes the catalogue as a binary snapshot, replacing the file as a whole so a
+     * bakery watching it never maps a half written snapshot.
+     *
+     * @param snapshot the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BYTES);
+        buffer.putInt(MAGIC).putInt(FORMAT).putInt(LAYOUT).putInt(prices.length);
+        for (long price : prices) {
+            buffer.putLong(price);
+        }
+        buffer.putInt(checksum(buffer, SNAPSHOT_BYTES - 4));
+
+        Path absolute = snapshot.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a binary snapshot and reads the catalogue from it.
+     *
+     * @param snapshot the snapshot file
+     * @return the catalogue
+     * @throws IOException if the file cannot be read, is damaged or was compiled for other options
+     */
+    public static Catalogue map(Path snapshot) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (in.size() != SNAPSHOT_BYTES) {
+                throw new IOException("Not a catalogue snapshot for this build: " + snapshot);
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, SNAPSHOT_BYTES);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                throw new IOException("Not a catalogue snapshot: " + snapshot);
+            }
+            if (buffer.getInt(8) != LAYOUT || buffer.getInt(12) != BakeryEnum.optionCount()) {
+                throw new IOException("Catalogue snapshot was compiled for other options: " + snapshot);
+            }
+            if (checksum(buffer, SNAPSHOT_BYTES - 4) != buffer.getInt(SNAPSHOT_BYTES - 4)) {
+                throw new IOException("Catalogue snapshot is damaged: " + snapshot);
+            }
+            long[] prices = new long[BakeryEnum.optionCount()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = buffer.getLong(HEADER_BYTES + i * 8);
+            }
+            return new Catalogue(prices);
+        }
+    }
+
+    /**
+     * Watches a snapshot file and publishes it each time it is replaced. A snapshot
+     * that cannot be read is reported and the current prices are kept.
+     *
+     * @param snapshot the snapshot file
+     * @return closes the watch
+     * @throws IOException if the directory of the snapshot cannot be watched
+     */
+    public static Closeable watch(Path snapshot) throws IOException {
+        Path absolute = snapshot.toAbsolutePath();
+        WatchService watcher = absolute.getFileSystem().newWatchService();
+        absolute.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= absolute.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    if (changed) {
+                        reload(absolute);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+        }, "catalogue-watch");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /**
+     * Maps and publishes a snapshot, reporting a snapshot that cannot be read.
+     *
+     * @param snapshot the snapshot file
+     */
+    private static void reload(Path snapshot) {
+        try {
+            map(snapshot).publish();
+        } catch (IOException e) {
+            System.err.println("Catalogue not reloaded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the CRC32C of the start of a buffer.
+     *
+     * @param buffer the buffer
+     * @param length the number of bytes to check
+     * @return the checksum
+     */
+    private static int checksum(ByteBuffer buffer, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(0).limit(length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Computes the layout checksum of the option names in index order.
+     *
+     * @return the layout checksum
+     */
+    private static int layout() {
+        CRC32C crc = new CRC32C();
+        for (BakeryEnum category : BakeryEnum.values()) {
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                crc.update((category + "/" + ((Enum<?>) category.getOption(i)).name() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Main method that compiles a definition file into a snapshot and times mapping it back.
+     * Usage: {@code Catalogue <definition file> <snapshot file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Catalogue <definition file> <snapshot file>");
+            System.exit(2);
+        }
+        Catalogue catalogue = load(Paths.get(args[0]));
+        catalogue.writeSnapshot(Paths.get(args[1]));
+        long start = System.nanoTime();
+        Catalogue mapped = map(Paths.get(args[1]));
+        long nanos = System.nanoTime() - start;
+        int offered = 0;
+        for (long price : mapped.prices) {
+            offered += price == NOT_OFFERED ? 0 : 1;
+        }
+        System.out.printf("%d of %d options on sale, snapshot of %d bytes mapped in %.3f ms%n",
+            offered, mapped.prices.length, SNAPSHOT_BYTES, nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,458 @@
+package bakery;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Shopping cart that stores its lines in parallel primitive arrays instead of one
+ * {@code BakeryItem} object per line, so large catering orders and many carts held
+ * at once stay compact. Adding a line writes a few array slots and allocates nothing
+ * unless the arrays have to grow. Lines can still be read back as {@code BakeryItem}
+ * objects, which are created on demand and priced with the cart's price table.
+ *
+ * <p>Adding something already in the cart adds to its line instead of starting a
+ * new one, so the same cookie added five times is one line of five cookies. Cakes
+ * share a line only when their frosting, filling and layers match too. The line of
+ * each option is found through a slot indexed by option, and the line of each cake
+ * through a small hash table keyed by its ordinals, so adding stays O(1) and lines
+ * keep the order they were first added in.
+ *
+ * <p>Each purchase is also counted towards the promotions of the cart's price table
+ * as it is added, so the discount is always up to date and the total is the
+ * price of the lines less the discount.
+ */
+public class CompactCart implements Iterable<BakeryItem> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final byte NONE = -1;
+    private static final BakeryEnum[] CATEGORIES = BakeryEnum.values();
+    private static final int FROSTINGS = BakeryEnum.FROSTING.getOptionCount();
+    private static final int FILLINGS = BakeryEnum.FILLING.getOptionCount();
+
+    private final PriceTable prices;
+    private byte[] categories;
+    private byte[] options;
+    private int[] quantities;
+    private int[] layers;
+    private byte[] frostings;
+    private byte[] fillings;
+    private long[] linePrices;
+    private int size;
+    private long subtotal;
+    private final Promotions.Tally promotions;
+
+    /**
+     * Line of each option sold by quantity plus one, indexed by option index; 0 for none.
+     */
+    private final int[] optionLines = new int[BakeryEnum.optionCount()];
+
+    /**
+     * Hash table from the key of a cake configuration to its line plus one; 0 for an empty slot.
+     */
+    private long[] cakeKeys = new long[8];
+    private int[] cakeLines = new int[8];
+    private int cakeCount;
+
+    /**
+     * Constructs an empty cart priced with the given price table.
+     *
+     * @param prices the price table the cart's lines are priced with
+     */
+    public CompactCart(PriceTable prices) {
+        this(prices, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty cart with room for the given number of lines.
+     *
+     * @param prices   the price table the cart's lines are priced with
+     * @param capacity the number of lines to make room for
+     */
+    public CompactCart(PriceTable prices, int capacity) {
+        this.prices = prices;
+        this.promotions = prices.getPromotions().newTally();
+        int initial = Math.max(1, capacity);
+        categories = new byte[initial];
+        options = new byte[initial];
+        quantities = new int[initial];
+        layers = new int[initial];
+        frostings = new byte[initial];
+        fillings = new byte[initial];
+        linePrices = new long[initial];
+    }
+
+    /**
+     * Adds an option sold by quantity, such as bread, pastries, cookies or pies.
+     * If the option is already in the cart, the quantity and price are added to its line.
+     *
+     * @param option   the option purchased
+     * @param quantity the quantity purchased
+     * @param price    the total price of the quantity in cents
+     * @return the number of the line holding the option
+     * @throws ArithmeticException if the line, cart total or discount overflows, which
+     *                             leaves the cart as it was
+     */
+    public int add(BakeryOption option, int quantity, long price) {
+        int index = option.index();
+        int existing = optionLines[index] - 1;
+        checkAdd(existing, quantity, price);
+        promotions.add(option, quantity);
+        int line;
+        if (existing >= 0) {
+            line = merge(existing, quantity, price);
+        } else {
+            line = addLine(option, quantity, 0, NONE, NONE, price);
+            optionLines[index] = line + 1;
+        }
+        return line;
+    }
+
+    /**
+     * Adds cakes. If the same cake with the same frosting, filling and layers is
+     * already in the cart, the quantity and price are added to its line.
+     *
+     * @param cake     the cake option
+     * @param frosting the frosting option
+     * @param filling  the filling option
+     * @param layers   the number of layers in each cake
+     * @param quantity the number of cakes
+     * @param price    the total price of the cakes in cents
+     * @return the number of the line holding the cakes
+     * @throws ArithmeticException if the line, cart total or discount overflows, which
+     *                             leaves the cart as it was
+     */
+    public int addCake(BakeryEnum.CakeOptions cake, BakeryEnum.FrostingOptions frosting,
+        BakeryEnum.FillingOptions filling, int layers, int quantity, long price) {
+
+        long key = (long) ((cake.ordinal() * FROSTINGS + frosting.ordinal()) * FILLINGS + filling.ordinal()) << 32
+            | (layers & 0xFFFFFFFFL);
+        int slot = cakeSlot(key);
+        checkAdd(cakeLines[slot] - 1, quantity, price);
+        promotions.addCake(cake, frosting, filling, layers, quantity);
+        int line;
+        if (cakeLines[slot] != 0) {
+            line = merge(cakeLines[slot] - 1, quantity, price);
+        } else {
+            line = addLine(cake, quantity, layers, (byte) frosting.ordinal(), (byte) filling.ordinal(), price);
+            cakeKeys[slot] = key;
+            cakeLines[slot] = line + 1;
+            if (++cakeCount * 2 > cakeLines.length) {
+                growCakeTable();
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Checks that a purchase fits before anything is changed, so that a purchase
+     * that overflows leaves the cart, its lines and its promotions as they were.
+     *
+     * @param line     the number of the line the purchase merges into, or -1 for a new line
+     * @param quantity the quantity purchased
+     * @param price    the price of the quantity in cents
+     * @throws ArithmeticException if the line or cart total would overflow
+     */
+    private void checkAdd(int line, int quantity, long price) {
+        Money.plus(subtotal, price);
+        if (line >= 0) {
+            Math.addExact(quantities[line], quantity);
+            Money.plus(linePrices[line], price);
+        }
+    }
+
+    /**
+     * Adds a quantity and its price to an existing line.
+     *
+     * @param line     the number of the line
+     * @param quantity the quantity to add
+     * @param price    the price of the quantity in cents
+     * @return the number of the line
+     */
+    private int merge(int line, int quantity, long price) {
+        subtotal += price;
+        quantities[line] += quantity;
+        linePrices[line] += price;
+        return line;
+    }
+
+    /**
+     * Finds the slot of a cake configuration in the hash table: the slot holding it,
+     * or the empty slot where it belongs.
+     *
+     * @param key the key of the cake configuration
+     * @return the slot index
+     */
+    private int cakeSlot(long key) {
+        int mask = cakeLines.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (cakeLines[slot] != 0 && cakeKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the size of the cake hash table.
+     */
+    private void growCakeTable() {
+        long[] oldKeys = cakeKeys;
+        int[] oldLines = cakeLines;
+        cakeKeys = new long[oldKeys.length * 2];
+        cakeLines = new int[oldLines.length * 2];
+        for (int i = 0; i < oldLines.length; i++) {
+            if (oldLines[i] != 0) {
+                int slot = cakeSlot(oldKeys[i]);
+                cakeKeys[slot] = oldKeys[i];
+                cakeLines[slot] = oldLines[i];
+            }
+        }
+    }
+
+    /**
+     * Writes a line into the next free slot of every array.
+     *
+     * @param option   the option purchased
+     * @param quantity the quantity purchased
+     * @param layer    the number of layers, or 0 when the option has none
+     * @param frosting the frosting ordinal, or {@code NONE}
+     * @param filling  the filling ordinal, or {@code NONE}
+     * @param price    the total price of the line in cents
+     * @return the number of the new line
+     */
+    private int addLine(BakeryOption option, int quantity, int layer, byte frosting, byte filling, long price) {
+        if (size == categories.length) {
+            grow();
+        }
+        int line = size;
+        categories[line] = (byte) option.getCategory().ordinal();
+        options[line] = (byte) option.ordinal();
+        quantities[line] = quantity;
+        layers[line] = layer;
+        frostings[line] = frosting;
+        fillings[line] = filling;
+        linePrices[line] = price;
+        subtotal += price;
+        size++;
+        return line;
+    }
+
+    /**
+     * Doubles the capacity of every array.
+     */
+    private void grow() {
+        int capacity = categories.length * 2;
+        categories = Arrays.copyOf(categories, capacity);
+        options = Arrays.copyOf(options, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        frostings = Arrays.copyOf(frostings, capacity);
+        fillings = Arrays.copyOf(fillings, capacity);
+        linePrices = Arrays.copyOf(linePrices, capacity);
+    }
+
+    /**
+     * Gets the price table the cart's lines are priced with.
+     *
+     * @return the price table of the cart
+     */
+    public PriceTable getPriceTable() {
+        return prices;
+    }
+
+    /**
+     * Gets the number of lines in the cart.
+     *
+     * @return the number of lines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the cart has no lines.
+     *
+     * @return true if the cart is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the price of every line in the cart before promotions.
+     *
+     * @return the subtotal in cents
+     */
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * Gets the discount earned by the promotions, which is never more than the subtotal.
+     *
+     * @return the discount in cents
+     */
+    public long getDiscount() {
+        return Math.min(promotions.getDiscount(), subtotal);
+    }
+
+    /**
+     * Gets the price of the cart after promotions.
+     *
+     * @return the total price in cents
+     */
+    public long getTotal() {
+        return subtotal - getDiscount();
+    }
+
+    /**
+     * Gets the category of a line.
+     *
+     * @param line the number of the line
+     * @return the category of the line
+     */
+    public BakeryEnum getCategory(int line) {
+        return CATEGORIES[categories[check(line)]];
+    }
+
+    /**
+     * Gets the option purchased on a line.
+     *
+     * @param line the number of the line
+     * @return the option of the line
+     */
+    public BakeryOption getOption(int line) {
+        return getCategory(line).getOption(options[line]);
+    }
+
+    /**
+     * Gets the quantity purchased on a line.
+     *
+     * @param line the number of the line
+     * @return the quantity of the line
+     */
+    public int getQuantity(int line) {
+        return quantities[check(line)];
+    }
+
+    /**
+     * Gets the number of layers of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the number of layers, or 0 if the line is not a cake
+     */
+    public int getLayers(int line) {
+        return layers[check(line)];
+    }
+
+    /**
+     * Gets the frosting of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the frosting option, or {@code null} if the line is not a cake
+     */
+    public BakeryEnum.FrostingOptions getFrosting(int line) {
+        byte frosting = frostings[check(line)];
+        return frosting == NONE ? null : (BakeryEnum.FrostingOptions) BakeryEnum.FROSTING.getOption(frosting);
+    }
+
+    /**
+     * Gets the filling of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the filling option, or {@code null} if the line is not a cake
+     */
+    public BakeryEnum.FillingOptions getFilling(int line) {
+        byte filling = fillings[check(line)];
+        return filling == NONE ? null : (BakeryEnum.FillingOptions) BakeryEnum.FILLING.getOption(filling);
+    }
+
+    /**
+     * Gets the total price of a line.
+     *
+     * @param line the number of the line
+     * @return the price of the line in cents
+     */
+    public long getPrice(int line) {
+        return linePrices[check(line)];
+    }
+
+    /**
+     * Creates the {@code BakeryItem} describing a line.
+     *
+     * @param line the number of the line
+     * @return a new item for the line
+     */
+    public BakeryItem getItem(int line) {
+        BakeryOption option = getOption(line);
+        int quantity = quantities[line];
+        switch (option.getCategory()) {
+            case BREADLOAF:
+                return new BreadLoaf((BakeryEnum.BreadOptions) option, quantity, prices);
+            case CAKE:
+                return new Cake((BakeryEnum.CakeOptions) option, getFrosting(line), getFilling(line),
+                    quantity, layers[line], prices);
+            case PASTRY:
+                return new Pastry((BakeryEnum.PastryOptions) option, quantity, prices);
+            case COOKIE:
+                return new Cookie((BakeryEnum.CookieOptions) option, quantity, prices);
+            case PIE:
+                return new Pie((BakeryEnum.PieOptions) option, quantity, prices);
+            default:
+                throw new IllegalStateException("No item for: " + option.getCategory());
+        }
+    }
+
+    /**
+     * Removes every line from the cart, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+        subtotal = 0;
+        promotions.clear();
+        Arrays.fill(optionLines, 0);
+        if (cakeCount > 0) {
+            Arrays.fill(cakeLines, 0);
+            cakeCount = 0;
+        }
+    }
+
+    /**
+     * Returns an iterator that creates a {@code BakeryItem} for each line in order.
+     *
+     * @return an iterator over the items of the cart
+     */
+    @Override
+    public Iterator<BakeryItem> iterator() {
+        return new Iterator<BakeryItem>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public BakeryItem next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return getItem(next++);
+            }
+        };
+    }
+
+    /**
+     * Checks that a line number is within the cart.
+     *
+     * @param line the number of the line
+     * @return the line number
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    private int check(int line) {
+        if (line < 0 || line >= size) {
+            throw new IndexOutOfBoundsException("No line " + line + " in a cart of " + size);
+        }
+        return line;
+    }
+}
@@ -0,0 +1,206 @@
+package bakery;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the customer's answers from the console, or from a recorded session or
+ * order script, a line or a word at a time. Input is read from a channel into one
+ * reused buffer and split on the raw bytes, so reading a count allocates nothing
+ * and reading a line or word allocates only its string. Words are separated by
+ * white space and lines end with {@code \n} or {@code \r\n}. Text is UTF-8.
+ */
+public class ConsoleReader {
+
+    private static final int BUFFER_BYTES = 8192;
+
+    private final ReadableByteChannel in;
+    private final Flushable output;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).flip();
+    private byte[] text = new byte[128];
+    private int textLength;
+    private boolean ended;
+
+    /**
+     * Constructs a reader over a channel.
+     *
+     * @param in     the input
+     * @param output output to flush before waiting for more input, or {@code null} for none
+     */
+    public ConsoleReader(ReadableByteChannel in, Flushable output) {
+        this.in = in;
+        this.output = output;
+    }
+
+    /**
+     * Reads the rest of the current line.
+     *
+     * @return the line without its line ending
+     * @throws NoSuchElementException if the input has ended
+     */
+    public String nextLine() {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new NoSuchElementException("No line found");
+        }
+        textLength = 0;
+        byte[] bytes = buffer.array();
+        while (true) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for (int i = start; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    append(bytes, start, i - start);
+                    buffer.position(i + 1);
+                    if (textLength > 0 && text[textLength - 1] == '\r') {
+                        textLength--;
+                    }
+                    return text();
+                }
+            }
+            append(bytes, start, limit - start);
+            buffer.position(limit);
+            if (!fill()) {
+                return text();
+            }
+        }
+    }
+
+    /**
+     * Reads the next word, skipping any white space and line endings before it.
+     * The white space after the word is left unread.
+     *
+     * @return the word
+     * @throws NoSuchElementException if the input ends before another word
+     */
+    public String next() {
+        readWord();
+        return text();
+    }
+
+    /**
+     * Reads the next word as a positive count, skipping any white space and line
+     * endings before it. The word is consumed even if it is not a count.
+     *
+     * @return the count, or -1 if the word is not a count
+     * @throws NoSuchElementException if the input ends before another word
+     */
+    public int nextCount() {
+        readWord();
+        if (textLength == 0 || textLength > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < textLength; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Reads the next word into the text buffer.
+     *
+     * @throws NoSuchElementException if the input ends before another word
+     */
+    private void readWord() {
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw new NoSuchElementException("No word found");
+            }
+            if (!isSpace(buffer.get(buffer.position()))) {
+                break;
+            }
+            buffer.position(buffer.position() + 1);
+        }
+        textLength = 0;
+        byte[] bytes = buffer.array();
+        while (true) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            int end = start;
+            while (end < limit && !isSpace(bytes[end])) {
+                end++;
+            }
+            append(bytes, start, end - start);
+            buffer.position(end);
+            if (end < limit || !fill()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads more input into the buffer, first flushing the output since the reader
+     * may have to wait for the customer.
+     *
+     * @return true if more input was read, false if the input has ended
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    private boolean fill() {
+        if (ended) {
+            return false;
+        }
+        try {
+            if (output != null) {
+                output.flush();
+            }
+            buffer.clear();
+            int read;
+            do {
+                read = in.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                ended = true;
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            buffer.clear().flip();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends bytes to the text buffer, growing it if needed.
+     *
+     * @param bytes  the bytes to append
+     * @param from   the offset of the first byte
+     * @param length the number of bytes
+     */
+    private void append(byte[] bytes, int from, int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+        System.arraycopy(bytes, from, text, textLength, length);
+        textLength += length;
+    }
+
+    /**
+     * Decodes the text buffer.
+     *
+     * @return the text read
+     */
+    private String text() {
+        return new String(text, 0, textLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a byte is white space.
+     *
+     * @param b the byte
+     * @return true for spaces, tabs and line endings
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
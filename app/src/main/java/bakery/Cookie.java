@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Represents a specific type of bakery item: a cookie.
  * This class extends the general {@code BakeryItem} class to include details
@@ -8,13 +10,26 @@ public class Cookie extends BakeryItem {
     private BakeryEnum.CookieOptions typeOfItem;
 
     /**
-     * Constructs a new {@code Cookie} object with the specified type and quantity.
+     * Constructs a new {@code Cookie} object with the specified type and quantity,
+     * priced with the current price table.
      *
      * @param typeOfItem the specific type of cookie as defined in {@code BakeryEnum.CookieOptions}
      * @param quantity   the number of cookies being purchased
      */
     public Cookie(BakeryEnum.CookieOptions typeOfItem, int quantity) {
-        super(BakeryEnum.COOKIE, quantity);
+        this(typeOfItem, quantity, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code Cookie} object with the specified type and quantity,
+     * priced with the given price table.
+     *
+     * @param typeOfItem the specific type of cookie as defined in {@code BakeryEnum.CookieOptions}
+     * @param quantity   the number of cookies being purchased
+     * @param prices     the price table the cookie is priced with
+     */
+    public Cookie(BakeryEnum.CookieOptions typeOfItem, int quantity, PriceTable prices) {
+        super(BakeryEnum.COOKIE, quantity, prices);
         this.typeOfItem = typeOfItem;
     }
 
@@ -50,10 +65,10 @@ public class Cookie extends BakeryItem {
      * The total price is determined by multiplying the unit price of the cookie type
      * by the quantity purchased.
      *
-     * @return the total price for this cookie purchase
+     * @return the total price for this cookie purchase in cents
      */
-    public double calculateTotalPrice() {
-        return typeOfItem.getValue() * getQuantity();
+    public long calculateTotalPrice() {
+        return prices.calculatePrice(typeOfItem, getQuantity());
     }
 
     /**
@@ -0,0 +1,212 @@
+package bakery;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock counts for every bakery option. Units are reserved when they are added to a
+ * cart, kept when the cart checks out, and given back when it is cancelled.
+ * The count of each option is split into stripes, each on its own cache line, and a
+ * thread reserves from its own stripe first, so many sessions buying the same popular
+ * item update different counters instead of queueing on one.
+ * Options whose stock has never been set are not tracked and never run out.
+ * Whether an option is tracked is published through an atomic array, so stock set
+ * while sessions are already reserving is seen by every thread.
+ */
+public class Inventory {
+
+    /**
+     * Number of longs between stripes, so each stripe sits on its own cache line.
+     */
+    private static final int PAD = 8;
+
+    private final int stripes;
+    private final int mask;
+    private final AtomicLongArray counts;
+
+    /**
+     * 1 for each option whose stock is tracked, indexed by option index.
+     */
+    private final AtomicIntegerArray tracked;
+
+    /**
+     * Constructs an inventory with one stripe per available processor.
+     */
+    public Inventory() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an inventory with the given number of stripes per option.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     */
+    public Inventory(int stripes) {
+        int rounded = 1;
+        while (rounded < stripes) {
+            rounded <<= 1;
+        }
+        this.stripes = rounded;
+        this.mask = rounded - 1;
+        this.counts = new AtomicLongArray(BakeryEnum.optionCount() * rounded * PAD);
+        this.tracked = new AtomicIntegerArray(BakeryEnum.optionCount());
+    }
+
+    /**
+     * Sets the stock of an option and starts tracking it. This is meant for opening
+     * the store, before sessions reserve the option.
+     *
+     * @param option the option to stock
+     * @param units  the number of units in stock
+     */
+    public void setStock(BakeryOption option, long units) {
+        int base = base(option);
+        long share = units / stripes;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            counts.set(base + stripe * PAD, share + (stripe < units % stripes ? 1 : 0));
+        }
+        tracked.set(option.index(), 1);
+    }
+
+    /**
+     * Adds units to the stock of a tracked option.
+     *
+     * @param option the option to restock
+     * @param units  the number of units to add
+     * @throws IllegalStateException if the option is not tracked, since it never runs
+     *                               out; set its stock instead
+     */
+    public void restock(BakeryOption option, long units) {
+        if (!isTracked(option)) {
+            throw new IllegalStateException("Stock of " + option + " is not tracked; set it first");
+        }
+        counts.addAndGet(base(option) + home() * PAD, units);
+    }
+
+    /**
+     * Checks whether the stock of an option is tracked.
+     *
+     * @param option the option to check
+     * @return true if the option can run out
+     */
+    public boolean isTracked(BakeryOption option) {
+        return tracked.get(option.index()) != 0;
+    }
+
+    /**
+     * Gets the number of units of an option that are not reserved.
+     *
+     * @param option the option to count
+     * @return the units available, or {@code Long.MAX_VALUE} if the option is not tracked
+     */
+    public long getAvailable(BakeryOption option) {
+        if (!isTracked(option)) {
+            return Long.MAX_VALUE;
+        }
+        int base = base(option);
+        long units = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            units += counts.get(base + stripe * PAD);
+        }
+        return units;
+    }
+
+    /**
+     * Reserves units of an option. Either every unit is reserved or none is.
+     *
+     * @param option the option to reserve
+     * @param units  the number of units to reserve
+     * @return true if the units were reserved, false if there is not enough in stock
+     */
+    public boolean reserve(BakeryOption option, long units) {
+        if (!isTracked(option) || units <= 0) {
+            return true;
+        }
+        int base = base(option);
+        int home = home();
+        if (take(base + home * PAD, units, true) == units) {
+            return true;
+        }
+
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < units; i++) {
+            taken += take(base + ((home + i) & mask) * PAD, units - taken, false);
+        }
+        if (taken < units) {
+            counts.addAndGet(base + home * PAD, taken);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives reserved units of an option back to the stock.
+     *
+     * @param option the option to release
+     * @param units  the number of units to give back
+     */
+    public void release(BakeryOption option, long units) {
+        if (isTracked(option) && units > 0) {
+            counts.addAndGet(base(option) + home() * PAD, units);
+        }
+    }
+
+    /**
+     * Gives back the stock held by every line of a cart, cakes with their frosting
+     * and filling portions.
+     *
+     * @param cart the cart whose lines were reserved
+     */
+    public void release(CompactCart cart) {
+        for (int line = 0; line < cart.size(); line++) {
+            int quantity = cart.getQuantity(line);
+            release(cart.getOption(line), quantity);
+            if (cart.getCategory(line) == BakeryEnum.CAKE) {
+                long portions = (long) cart.getLayers(line) * quantity;
+                release(cart.getFrosting(line), portions);
+                release(cart.getFilling(line), portions);
+            }
+        }
+    }
+
+    /**
+     * Takes units from one stripe.
+     *
+     * @param slot   the slot of the stripe
+     * @param units  the number of units wanted
+     * @param all    true to take nothing unless every unit is available
+     * @return the number of units taken
+     */
+    private long take(int slot, long units, boolean all) {
+        while (true) {
+            long current = counts.get(slot);
+            if (current <= 0 || (all && current < units)) {
+                return 0;
+            }
+            long taken = Math.min(current, units);
+            if (counts.compareAndSet(slot, current, current - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of the first stripe of an option.
+     *
+     * @param option the option
+     * @return the slot of its first stripe
+     */
+    private int base(BakeryOption option) {
+        return option.index() * stripes * PAD;
+    }
+
+    /**
+     * Gets the stripe the current thread uses first.
+     *
+     * @return the home stripe of the thread
+     */
+    private int home() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
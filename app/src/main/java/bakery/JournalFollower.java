@@ -0,0 +1,250 @@
+package bakery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a copy of a primary's {@code OrderJournal} up to date, as a follower of its
+ * {@code JournalReplicator}. The follower connects over a non-blocking socket
+ * channel, says how far its own journal goes, and appends the records it is sent.
+ * Whatever arrives in one read is checked, appended and flushed together, and one
+ * acknowledgement is sent for all of it. If the connection drops, the follower
+ * connects again and continues from its last record.
+ */
+public class JournalFollower implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final OrderJournal journal;
+    private final InetSocketAddress primary;
+    private final Thread thread;
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private volatile Selector selector;
+    private volatile boolean connected;
+    private volatile boolean closed;
+
+    /**
+     * Starts following a primary.
+     *
+     * @param journal the journal to append the primary's records to
+     * @param primary the address of the primary's replicator
+     */
+    public JournalFollower(OrderJournal journal, InetSocketAddress primary) {
+        this.journal = journal;
+        this.primary = primary;
+        this.thread = new Thread(this::run, "journal-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the sequence number of the last record copied.
+     *
+     * @return the last sequence number
+     */
+    public long getLastSequence() {
+        return journal.getLastSequence();
+    }
+
+    /**
+     * Checks whether the follower is connected to the primary.
+     *
+     * @return true if connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Gets the time from each checkout on the primary to its arrival here, at the
+     * millisecond resolution of the journal's timestamps.
+     *
+     * @return the histogram of replication lag in nanoseconds
+     */
+    public LatencyHistogram getLag() {
+        return lag;
+    }
+
+    /**
+     * Follows the primary until closed, connecting again whenever the connection drops.
+     */
+    private void run() {
+        long backoff = 50;
+        while (!closed) {
+            try (Selector opened = Selector.open(); SocketChannel channel = SocketChannel.open()) {
+                selector = opened;
+                if (closed) {
+                    return;
+                }
+                follow(opened, channel);
+                backoff = 50;
+            } catch (IOException | UncheckedIOException e) {
+                connected = false;
+                if (closed) {
+                    return;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+            }
+        }
+    }
+
+    /**
+     * Connects to the primary and copies records until the connection drops or the
+     * follower is closed.
+     *
+     * @param selector the selector to wait on
+     * @param channel  an unconnected channel
+     * @throws IOException if the connection fails or the stream is damaged
+     */
+    private void follow(Selector selector, SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+        channel.connect(primary);
+        while (!channel.finishConnect()) {
+            selector.select(MAX_BACKOFF_MILLIS);
+            selector.selectedKeys().clear();
+            if (closed) {
+                return;
+            }
+        }
+        connected = true;
+
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        ByteBuffer ack = ByteBuffer.allocateDirect(8);
+        ack.putLong(0, journal.getLastSequence());
+        long acked = -1;
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+        while (!closed) {
+            selector.select();
+            selector.selectedKeys().clear();
+            if (key.isValid() && key.isReadable()) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("The primary closed the connection");
+                }
+                in = apply(in);
+            }
+            long durable = journal.getLastSequence();
+            if (!ack.hasRemaining() && durable > acked) {
+                ack.clear().putLong(0, durable);
+            }
+            if (ack.hasRemaining()) {
+                channel.write(ack);
+                if (!ack.hasRemaining()) {
+                    acked = ack.getLong(0);
+                }
+            }
+            key.interestOps(ack.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Appends every complete record read so far and waits for them to be durable,
+     * keeping any partial record for the next read.
+     *
+     * @param in the buffer being read into
+     * @return the buffer to read into next, larger if a record did not fit
+     * @throws IOException if a record is damaged or does not follow the journal
+     */
+    private ByteBuffer apply(ByteBuffer in) throws IOException {
+        in.flip();
+        int position = 0;
+        long timestamp = 0;
+        while (in.limit() - position >= JournalRecord.HEADER_BYTES) {
+            int length = in.getInt(position);
+            if (length < JournalRecord.BODY_BYTES || length > MAX_RECORD_BYTES) {
+                throw new IOException("Damaged record in the replication stream");
+            }
+            int body = position + JournalRecord.HEADER_BYTES;
+            if (in.limit() - body < length) {
+                break;
+            }
+            if (JournalRecord.checksum(in, body, length) != in.getInt(position + 4)) {
+                throw new IOException("Damaged record in the replication stream");
+            }
+            timestamp = in.getLong(body + 16);
+            position = body + length;
+        }
+        if (position > 0) {
+            long last = journal.appendCopies(in, 0, position);
+            journal.awaitDurable(last);
+            lag.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - timestamp));
+        }
+        in.position(position);
+        in.compact();
+        if (!in.hasRemaining()) {
+            int needed = JournalRecord.HEADER_BYTES + in.getInt(0);
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(needed, 2 * in.capacity()));
+            in.flip();
+            larger.put(in);
+            return larger;
+        }
+        return in;
+    }
+
+    /**
+     * Stops following and waits for the follower thread to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Selector current = selector;
+        if (current != null) {
+            current.wakeup();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main method that follows a primary into a journal directory until the process
+     * is stopped, reporting progress every few seconds.
+     * Usage: {@code JournalFollower <journal directory> <primary host:port>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JournalFollower <journal directory> <primary host:port>");
+            System.exit(2);
+        }
+        int colon = args[1].lastIndexOf(':');
+        InetSocketAddress primary = new InetSocketAddress(args[1].substring(0, colon),
+            Integer.parseInt(args[1].substring(colon + 1)));
+        OrderJournal journal = OrderJournal.open(Paths.get(args[0]));
+        JournalFollower follower = new JournalFollower(journal, primary);
+        System.err.println("Following " + args[1] + " from sequence " + journal.getLastSequence());
+        long previous = follower.getLastSequence();
+        while (true) {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                follower.close();
+                return;
+            }
+            long last = follower.getLastSequence();
+            LatencyHistogram lag = follower.getLag();
+            System.err.printf("%s sequence %d, %.0f checkouts/sec, lag p99 %d ms%n",
+                follower.isConnected() ? "connected," : "disconnected,", last, (last - previous) / 5.0,
+                TimeUnit.NANOSECONDS.toMillis(lag.valueAt(0.99)));
+            previous = last;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package bakery;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * One confirmed checkout read back from the {@code OrderJournal}. The record is a
+ * view over the journal's bytes that is moved from record to record while scanning,
+ * so reading a whole day's journal does not create an object per checkout.
+ *
+ * <p>Each record is laid out as a header followed by a body:
+ * <pre>
+ * header: int bodyLength, int crc32c of the body
+ * body:   long sequence, long sessionId, long timestamp, long total, int lineCount,
+ *         then per line: byte category, byte option, byte frosting, byte filling,
+ *                        int quantity, int layers, long price
+ * </pre>
+ */
+public final class JournalRecord {
+
+    static final int HEADER_BYTES = 8;
+    static final int BODY_BYTES = 36;
+    static final int LINE_BYTES = 20;
+
+    private static final BakeryEnum[] CATEGORIES = BakeryEnum.values();
+
+    private ByteBuffer buffer;
+    private int body;
+
+    /**
+     * Points this record at a body within a buffer.
+     *
+     * @param buffer the buffer holding the record
+     * @param body   the offset of the record body
+     */
+    void wrap(ByteBuffer buffer, int body) {
+        this.buffer = buffer;
+        this.body = body;
+    }
+
+    /**
+     * Gets the number of bytes a record with the given number of lines occupies.
+     *
+     * @param lines the number of cart lines
+     * @return the size of the record, header included
+     */
+    static int size(int lines) {
+        return HEADER_BYTES + BODY_BYTES + lines * LINE_BYTES;
+    }
+
+    /**
+     * Gets the sequence number of the checkout within the journal.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return buffer.getLong(body);
+    }
+
+    /**
+     * Gets the identifier of the session that checked out.
+     *
+     * @return the session identifier
+     */
+    public long getSessionId() {
+        return buffer.getLong(body + 8);
+    }
+
+    /**
+     * Gets the time of the checkout.
+     *
+     * @return the checkout time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return buffer.getLong(body + 16);
+    }
+
+    /**
+     * Gets the total price of the checkout.
+     *
+     * @return the total in cents
+     */
+    public long getTotal() {
+        return buffer.getLong(body + 24);
+    }
+
+    /**
+     * Gets the number of cart lines in the checkout.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return buffer.getInt(body + 32);
+    }
+
+    /**
+     * Gets the category of a line.
+     *
+     * @param line the number of the line
+     * @return the category of the line
+     */
+    public BakeryEnum getCategory(int line) {
+        return CATEGORIES[buffer.get(lineOffset(line))];
+    }
+
+    /**
+     * Gets the option purchased on a line.
+     *
+     * @param line the number of the line
+     * @return the option of the line
+     */
+    public BakeryOption getOption(int line) {
+        return getCategory(line).getOption(buffer.get(lineOffset(line) + 1));
+    }
+
+    /**
+     * Gets the frosting of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the frosting option, or {@code null} if the line is not a cake
+     */
+    public BakeryEnum.FrostingOptions getFrosting(int line) {
+        byte frosting = buffer.get(lineOffset(line) + 2);
+        return frosting < 0 ? null : (BakeryEnum.FrostingOptions) BakeryEnum.FROSTING.getOption(frosting);
+    }
+
+    /**
+     * Gets the filling of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the filling option, or {@code null} if the line is not a cake
+     */
+    public BakeryEnum.FillingOptions getFilling(int line) {
+        byte filling = buffer.get(lineOffset(line) + 3);
+        return filling < 0 ? null : (BakeryEnum.FillingOptions) BakeryEnum.FILLING.getOption(filling);
+    }
+
+    /**
+     * Gets the quantity purchased on a line.
+     *
+     * @param line the number of the line
+     * @return the quantity of the line
+     */
+    public int getQuantity(int line) {
+        return buffer.getInt(lineOffset(line) + 4);
+    }
+
+    /**
+     * Gets the number of layers of the cakes on a line.
+     *
+     * @param line the number of the line
+     * @return the number of layers, or 0 if the line is not a cake
+     */
+    public int getLayers(int line) {
+        return buffer.getInt(lineOffset(line) + 8);
+    }
+
+    /**
+     * Gets the total price of a line.
+     *
+     * @param line the number of the line
+     * @return the price of the line in cents
+     */
+    public long getPrice(int line) {
+        return buffer.getLong(lineOffset(line) + 12);
+    }
+
+    /**
+     * Gets the offset of a line within the buffer.
+     *
+     * @param line the number of the line
+     * @return the offset of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    private int lineOffset(int line) {
+        if (line < 0 || line >= getLineCount()) {
+            throw new IndexOutOfBoundsException("No line " + line + " in a record of " + getLineCount());
+        }
+        return body + BODY_BYTES + line * LINE_BYTES;
+    }
+
+    /**
+     * Writes a checkout into a buffer at its current position, advancing the position.
+     *
+     * @param out       the buffer to write to
+     * @param sequence  the sequence number of the checkout
+     * @param sessionId the identifier of the session that checked out
+     * @param timestamp the checkout time in milliseconds since the epoch
+     * @param cart      the cart that was checked out
+     * @param total     the total price in cents
+     */
+    static void encode(ByteBuffer out, long sequence, long sessionId, long timestamp,
+        CompactCart cart, long total) {
+
+        int start = out.position();
+        int body = start + HEADER_BYTES;
+        out.position(body);
+        out.putLong(sequence).putLong(sessionId).putLong(timestamp).putLong(total).putInt(cart.size());
+        for (int line = 0; line < cart.size(); line++) {
+            BakeryEnum.FrostingOptions frosting = cart.getFrosting(line);
+            BakeryEnum.FillingOptions filling = cart.getFilling(line);
+            out.put((byte) cart.getCategory(line).ordinal())
+                .put((byte) cart.getOption(line).ordinal())
+                .put((byte) (frosting == null ? -1 : frosting.ordinal()))
+                .put((byte) (filling == null ? -1 : filling.ordinal()))
+                .putInt(cart.getQuantity(line))
+                .putInt(cart.getLayers(line))
+                .putLong(cart.getPrice(line));
+        }
+        int end = out.position();
+        out.putInt(start + 4, checksum(out, body, end - body));
+        out.putInt(start, end - body);
+    }
+
+    /**
+     * Computes the CRC-32C checksum of a range of a buffer.
+     *
+     * @param buffer the buffer
+     * @param from   the offset of the first byte
+     * @param length the number of bytes
+     * @return the checksum
+     */
+    static int checksum(ByteBuffer buffer, int from, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(from).limit(from + length));
+        return (int) crc.getValue();
+    }
+}
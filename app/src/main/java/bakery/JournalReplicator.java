@@ -0,0 +1,587 @@
+package bakery;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies an {@code OrderJournal} to followers as checkouts are written, so a
+ * follower can take over if the primary is lost. One thread serves every follower
+ * over non-blocking socket channels.
+ *
+ * <p>A follower connects and sends the sequence number of the last record it holds;
+ * the replicator then streams every later record, read from the journal files in
+ * their binary form, packing as many as are ready into each write without waiting
+ * for the follower in between. The follower appends them to its own journal and,
+ * once they are durable, sends back the sequence number of the last one, so one
+ * acknowledgement covers a whole batch. A follower that restarts continues from
+ * where it got to.
+ *
+ * <p>With {@link Durability#ASYNC} a checkout is confirmed once it is durable on
+ * the primary, and followers catch up a moment later. With {@link Durability#SYNC}
+ * a checkout also waits until enough followers have acknowledged it, up to a
+ * timeout; a checkout that times out is still confirmed, being durable on the
+ * primary, and is counted in {@link #getSyncTimeouts()}. While fewer followers are
+ * connected than a checkout would wait for, checkouts do not wait at all, as with
+ * {@link Durability#ASYNC}, and are counted in {@link #getUnreplicated()}.
+ *
+ * <pre>
+ * follower to primary: long last sequence held, once on connecting
+ *                      long last sequence durable, after each batch
+ * primary to follower: journal records, header and body, back to back
+ * </pre>
+ */
+public class JournalReplicator implements AutoCloseable {
+
+    /**
+     * When a checkout is confirmed.
+     */
+    public enum Durability {
+        /**
+         * Once the checkout is durable on the primary.
+         */
+        ASYNC,
+
+        /**
+         * Once the checkout is also durable on enough followers.
+         */
+        SYNC
+    }
+
+    private static final int BATCH_BYTES = 256 * 1024;
+    private static final int ACK_BYTES = 8;
+    private static final long IDLE_MILLIS = 100;
+
+    private final OrderJournal journal;
+    private final Durability durability;
+    private final int requiredAcks;
+    private final long syncTimeoutNanos;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+    private final List<Follower> followers = new ArrayList<>();
+
+    /**
+     * Set while the replicator thread is about to wait for work, so that writers
+     * only wake it when it is waiting.
+     */
+    private final AtomicBoolean idle = new AtomicBoolean();
+
+    private final Object acks = new Object();
+    private long replicatedSequence;
+    private long syncTimeouts;
+    private long unreplicated;
+    private volatile int followerCount;
+    private volatile boolean closed;
+
+    /**
+     * One connected follower, used only by the replicator thread.
+     */
+    private final class Follower {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(64 * ACK_BYTES);
+        private ByteBuffer out = ByteBuffer.allocateDirect(BATCH_BYTES).limit(0);
+        private OrderJournal.Cursor cursor;
+        private long ackedSequence;
+        private boolean blocked;
+
+        /**
+         * Starts serving a follower.
+         *
+         * @param channel the connection to the follower
+         * @throws IOException if the connection cannot be registered
+         */
+        Follower(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        /**
+         * Reads the follower's greeting and acknowledgements.
+         *
+         * @throws IOException if the connection fails or the follower disconnects
+         */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Follower disconnected");
+            }
+            in.flip();
+            boolean acknowledged = false;
+            while (in.remaining() >= ACK_BYTES) {
+                long sequence = in.getLong();
+                if (cursor == null) {
+                    cursor = new OrderJournal.Cursor(journal.getDirectory(), sequence + 1);
+                    ackedSequence = sequence;
+                } else if (sequence > ackedSequence) {
+                    ackedSequence = sequence;
+                    acknowledged = true;
+                }
+            }
+            in.compact();
+            if (acknowledged) {
+                acknowledged();
+            }
+        }
+
+        /**
+         * Sends the follower every written record it has not been sent, until its
+         * connection cannot take more.
+         *
+         * @param lastSequence the sequence number of the last record written
+         * @throws IOException if the journal cannot be read or the connection fails
+         */
+        void send(long lastSequence) throws IOException {
+            if (cursor == null || blocked) {
+                return;
+            }
+            while (true) {
+                if (!out.hasRemaining()) {
+                    if (cursor.getNextSequence() > lastSequence) {
+                        return;
+                    }
+                    out.clear();
+                    int needed = cursor.read(out, lastSequence);
+                    if (needed > 0) {
+                        out = ByteBuffer.allocateDirect(Math.max(needed, 2 * out.capacity()));
+                        cursor.read(out, lastSequence);
+                    }
+                    out.flip();
+                    if (!out.hasRemaining()) {
+                        return;
+                    }
+                }
+                channel.write(out);
+                if (out.hasRemaining()) {
+                    blocked = true;
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Resumes sending once the connection can take more.
+         */
+        void writable() {
+            blocked = false;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Checks whether there is anything the follower can be sent right away.
+         *
+         * @param lastSequence the sequence number of the last record written
+         * @return true if there are records to send and the connection can take them
+         */
+        boolean hasWork(long lastSequence) {
+            return cursor != null && !blocked && (out.hasRemaining() || cursor.getNextSequence() <= lastSequence);
+        }
+
+        /**
+         * Closes the connection to the follower.
+         */
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+                if (cursor != null) {
+                    cursor.close();
+                }
+            } catch (IOException e) {
+                // nothing more to do for a follower that is gone
+            }
+        }
+    }
+
+    /**
+     * Starts replicating a journal to followers that connect to an address.
+     *
+     * @param journal          the journal to replicate
+     * @param address          the address followers connect to; port 0 picks a free port
+     * @param durability       when checkouts are confirmed
+     * @param requiredAcks     the number of followers a checkout waits for with {@link Durability#SYNC}
+     * @param syncTimeoutNanos how long a checkout waits for followers with {@link Durability#SYNC}
+     * @throws IOException if the address cannot be bound
+     */
+    public JournalReplicator(OrderJournal journal, InetSocketAddress address, Durability durability,
+        int requiredAcks, long syncTimeoutNanos) throws IOException {
+
+        this.journal = journal;
+        this.durability = durability;
+        this.requiredAcks = Math.max(1, requiredAcks);
+        this.syncTimeoutNanos = syncTimeoutNanos;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.replicatedSequence = journal.getLastSequence();
+        this.thread = new Thread(this::run, "journal-replicator");
+        thread.setDaemon(true);
+        thread.start();
+        journal.replicateWith(this);
+    }
+
+    /**
+     * Gets the port followers connect to.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the sequence number up to which enough followers have acknowledged records.
+     *
+     * @return the last replicated sequence number
+     */
+    public long getReplicatedSequence() {
+        synchronized (acks) {
+            return replicatedSequence;
+        }
+    }
+
+    /**
+     * Gets the number of followers connected.
+     *
+     * @return the number of followers
+     */
+    public int getFollowerCount() {
+        return followerCount;
+    }
+
+    /**
+     * Gets the number of checkouts confirmed without waiting for followers because
+     * they did not acknowledge in time.
+     *
+     * @return the number of timeouts
+     */
+    public long getSyncTimeouts() {
+        synchronized (acks) {
+            return syncTimeouts;
+        }
+    }
+
+    /**
+     * Gets the number of checkouts confirmed without waiting for followers because
+     * too few were connected.
+     *
+     * @return the number of checkouts not waited for
+     */
+    public long getUnreplicated() {
+        synchronized (acks) {
+            return unreplicated;
+        }
+    }
+
+    /**
+     * Wakes the replicator thread after a record is appended, if it is waiting.
+     */
+    void appended() {
+        if (idle.getAndSet(false)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Waits until enough followers have acknowledged a record, if checkouts wait for
+     * followers at all and enough are connected to wait for.
+     *
+     * @param sequence the sequence number of the record
+     */
+    void awaitReplicated(long sequence) {
+        if (durability == Durability.ASYNC) {
+            return;
+        }
+        synchronized (acks) {
+            long deadline = System.nanoTime() + syncTimeoutNanos;
+            while (replicatedSequence < sequence && !closed) {
+                if (followerCount < requiredAcks) {
+                    unreplicated++;
+                    return;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    syncTimeouts++;
+                    return;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(acks, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out how far enough followers have acknowledged, and releases the
+     * checkouts waiting for it. Called by the replicator thread.
+     */
+    private void acknowledged() {
+        long[] sequences = new long[followers.size()];
+        int count = 0;
+        for (Follower follower : followers) {
+            if (follower.cursor != null) {
+                sequences[count++] = follower.ackedSequence;
+            }
+        }
+        if (count < requiredAcks) {
+            return;
+        }
+        Arrays.sort(sequences, 0, count);
+        long replicated = sequences[count - requiredAcks];
+        synchronized (acks) {
+            if (replicated > replicatedSequence) {
+                replicatedSequence = replicated;
+                acks.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Accepts followers, reads their acknowledgements and sends them records until closed.
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                idle.set(true);
+                long lastSequence = journal.getLastSequence();
+                if (hasWork(lastSequence)) {
+                    idle.set(false);
+                    selector.selectNow();
+                } else {
+                    selector.select(IDLE_MILLIS);
+                    idle.set(false);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        SocketChannel channel = server.accept();
+                        if (channel != null) {
+                            followers.add(new Follower(channel));
+                            followerCount = followers.size();
+                        }
+                        continue;
+                    }
+                    Follower follower = (Follower) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            follower.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            follower.writable();
+                        }
+                    } catch (IOException e) {
+                        drop(follower);
+                    }
+                }
+                selector.selectedKeys().clear();
+                lastSequence = journal.getLastSequence();
+                for (Follower follower : new ArrayList<>(followers)) {
+                    try {
+                        follower.send(lastSequence);
+                    } catch (IOException e) {
+                        drop(follower);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Journal replication stopped: " + e.getMessage());
+            }
+        } finally {
+            for (Follower follower : followers) {
+                follower.close();
+            }
+        }
+    }
+
+    /**
+     * Checks whether any follower can be sent records right away.
+     *
+     * @param lastSequence the sequence number of the last record written
+     * @return true if there is work for the replicator thread
+     */
+    private boolean hasWork(long lastSequence) {
+        for (Follower follower : followers) {
+            if (follower.hasWork(lastSequence)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Disconnects a follower, which will connect again and continue where it got to.
+     *
+     * @param follower the follower
+     */
+    private void drop(Follower follower) {
+        follower.close();
+        followers.remove(follower);
+        followerCount = followers.size();
+        synchronized (acks) {
+            acks.notifyAll();
+        }
+    }
+
+    /**
+     * Stops replicating and disconnects every follower. Checkouts waiting for
+     * followers are released.
+     *
+     * @throws IOException if the listening socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        journal.replicateWith(null);
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (acks) {
+            acks.notifyAll();
+        }
+        server.close();
+        selector.close();
+    }
+
+    /**
+     * Main method that replicates a journal directory until the process is stopped,
+     * or, given a rate, writes that many checkouts a second for a number of seconds
+     * and reports how far behind the followers were. With {@code sync}, checkouts wait
+     * for a follower for up to {@code bakery.replication.timeout} milliseconds.
+     * Usage: {@code JournalReplicator <journal directory> <port> [sync|async] [checkouts/sec seconds]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: JournalReplicator <journal directory> <port> [sync|async] [checkouts/sec seconds]");
+            System.exit(2);
+        }
+        Durability durability = args.length > 2 && args[2].equalsIgnoreCase("sync") ? Durability.SYNC : Durability.ASYNC;
+        OrderJournal journal = OrderJournal.open(Paths.get(args[0]));
+        JournalReplicator replicator = new JournalReplicator(journal, new InetSocketAddress(Integer.parseInt(args[1])),
+            durability, 1, TimeUnit.MILLISECONDS.toNanos(Long.getLong("bakery.replication.timeout", 1000)));
+        System.err.println("Replicating " + args[0] + " on port " + replicator.getPort() + ", " + durability);
+        if (args.length < 5) {
+            report(replicator);
+            return;
+        }
+        int rate = Integer.parseInt(args[3]);
+        int seconds = Integer.parseInt(args[4]);
+        System.err.println("Waiting for a follower");
+        while (replicator.getFollowerCount() == 0) {
+            Thread.sleep(100);
+        }
+        load(journal, replicator, rate, seconds);
+        replicator.close();
+        journal.close();
+    }
+
+    /**
+     * Reports the followers and how far they have acknowledged every few seconds,
+     * until the process is stopped. The replicator thread is a daemon, so this is
+     * what keeps the process running.
+     *
+     * @param replicator the replicator
+     */
+    private static void report(JournalReplicator replicator) {
+        while (true) {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                return;
+            }
+            System.err.printf("%d followers, replicated up to %d, %d sync timeouts, %d unreplicated%n",
+                replicator.getFollowerCount(), replicator.getReplicatedSequence(), replicator.getSyncTimeouts(),
+                replicator.getUnreplicated());
+        }
+    }
+
+    /**
+     * Writes checkouts at a steady rate from many threads, each waiting for its
+     * checkout to be confirmed, and reports the time from writing each checkout to
+     * its acknowledgement by the followers.
+     *
+     * @param journal    the journal being replicated
+     * @param replicator the replicator
+     * @param rate       the number of checkouts a second
+     * @param seconds    how long to write for
+     */
+    private static void load(OrderJournal journal, JournalReplicator replicator, int rate, int seconds)
+        throws InterruptedException {
+
+        int workers = 64;
+        long interval = TimeUnit.SECONDS.toNanos(1) * workers / rate;
+        long[] written = new long[1 << 20];
+        long first = journal.getLastSequence() + 1;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService executor = VirtualThreads.newExecutor();
+        for (int w = 0; w < workers; w++) {
+            long offset = interval * w / workers;
+            executor.execute(() -> {
+                CompactCart cart = new CompactCart(PriceTable.current());
+                cart.add(BakeryEnum.PieOptions.APPLE, 1, PriceTable.current().price(BakeryEnum.PieOptions.APPLE));
+                for (long due = start + offset; due < end; due += interval) {
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    long sequence = journal.append(0, cart, cart.getTotal());
+                    written[(int) sequence & (written.length - 1)] = System.nanoTime();
+                    journal.awaitDurable(sequence);
+                }
+            });
+        }
+
+        executor.shutdown();
+
+        LatencyHistogram lag = new LatencyHistogram();
+        long seen = first - 1;
+        long giveUp = end + TimeUnit.SECONDS.toNanos(5);
+        while ((!executor.isTerminated() || seen < journal.getLastSequence()) && System.nanoTime() < giveUp) {
+            long replicated = replicator.getReplicatedSequence();
+            long now = System.nanoTime();
+            for (long sequence = seen + 1; sequence <= replicated; sequence++) {
+                long at = written[(int) sequence & (written.length - 1)];
+                if (at != 0) {
+                    lag.record(now - at);
+                }
+            }
+            seen = Math.max(seen, replicated);
+            LockSupport.parkNanos(50_000);
+        }
+        executor.shutdownNow();
+        long count = journal.getLastSequence() - first + 1;
+        System.out.printf("%d checkouts in %d s (%.0f/s), replicated up to %d, %d sync timeouts%n",
+            count, seconds, count / (double) seconds, seen, replicator.getSyncTimeouts());
+        System.out.printf("replication lag ms: p50 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+            lag.valueAt(0.5) / 1e6, lag.valueAt(0.99) / 1e6, lag.valueAt(0.999) / 1e6, lag.valueAt(1.0) / 1e6);
+    }
+}
@@ -0,0 +1,136 @@
+package bakery;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed number of buckets, recorded
+ * without locks from any number of threads. Below 32 ns every nanosecond has its
+ * own bucket; above that each power of two is split into 32 buckets, so a
+ * percentile is never off by more than about 3%. Latencies above about 18 minutes
+ * are counted in the last bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the total of every latency recorded.
+     *
+     * @return the total in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the latency below which the given fraction of latencies fall.
+     *
+     * @param quantile the fraction, such as 0.99
+     * @return the latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long valueAt(double quantile) {
+        return valueAt(snapshot(), quantile);
+    }
+
+    /**
+     * Reads the bucket counts.
+     *
+     * @return the count of every bucket
+     */
+    long[] snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+        }
+        return buckets;
+    }
+
+    /**
+     * Gets the latency below which the given fraction of the counted latencies fall.
+     *
+     * @param buckets  the bucket counts
+     * @param quantile the fraction, such as 0.99
+     * @return the highest latency of the bucket the quantile falls in, in nanoseconds
+     */
+    static long valueAt(long[] buckets, double quantile) {
+        long total = 0;
+        for (long bucket : buckets) {
+            total += bucket;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(buckets.length - 1);
+    }
+
+    /**
+     * Gets the bucket a latency is counted in.
+     *
+     * @param value the latency in nanoseconds
+     * @return the bucket index
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the highest latency counted in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the latency in nanoseconds
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BITS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
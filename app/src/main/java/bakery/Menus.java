@@ -0,0 +1,105 @@
+package bakery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+/**
+ * The console menus rendered to bytes, ready to be written in one call. The menus
+ * of each category show the options on sale and their prices, so they are rendered
+ * once per price table and kept on the table itself. Sessions pinned to different
+ * tables, as after a reload, each reuse the menus of their own table.
+ */
+final class Menus {
+
+    /**
+     * The purchase menu, which has no prices and never changes.
+     */
+    static final byte[] PURCHASE = render(out -> {
+        out.println("Select your purchase below");
+        out.println("Bread\nCake\nPastry");
+        out.println("Cookie\nPie\nCheckout\nExit");
+        out.println();
+    });
+
+    private static final BakeryEnum[] CATEGORIES = BakeryEnum.values();
+
+    private final byte[][] categoryMenus = new byte[CATEGORIES.length][];
+
+    /**
+     * Renders the menu of every category with the given prices.
+     *
+     * @param prices the price table to show prices from
+     */
+    private Menus(PriceTable prices) {
+        for (BakeryEnum category : CATEGORIES) {
+            categoryMenus[category.ordinal()] = render(out -> {
+                out.println("\nSelect Type of " + title(category) + "\n");
+                for (int ordinal = 0; ordinal < category.getOptionCount(); ordinal++) {
+                    BakeryOption option = category.getOption(ordinal);
+                    if (!prices.isOffered(option)) {
+                        continue;
+                    }
+                    out.println(option.getDescription() + ", $" + Money.format(prices.price(option)));
+                }
+                out.println();
+            });
+        }
+    }
+
+    /**
+     * Gets the menus rendered with a price table, rendering them the first time
+     * the table is shown. Two threads showing a new table at once may both render
+     * it; either copy is kept.
+     *
+     * @param prices the price table to show prices from
+     * @return the rendered menus
+     */
+    static Menus of(PriceTable prices) {
+        Menus menus = prices.getMenus();
+        if (menus == null) {
+            menus = new Menus(prices);
+            prices.setMenus(menus);
+        }
+        return menus;
+    }
+
+    /**
+     * Gets the rendered menu of a category.
+     *
+     * @param category the category
+     * @return the menu as bytes; the array must not be modified
+     */
+    byte[] get(BakeryEnum category) {
+        return categoryMenus[category.ordinal()];
+    }
+
+    /**
+     * Gets the name a category is shown with on its menu.
+     *
+     * @param category the category
+     * @return the title of the category
+     */
+    private static String title(BakeryEnum category) {
+        if (category == BakeryEnum.BREADLOAF) {
+            return "Bread";
+        }
+        String name = category.name();
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+
+    /**
+     * Renders console output to bytes, with the same line separators and encoding
+     * as the console.
+     *
+     * @param printer writes the output
+     * @return the rendered bytes
+     */
+    private static byte[] render(Consumer<PrintStream> printer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        PrintStream out = new PrintStream(bytes);
+        printer.accept(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
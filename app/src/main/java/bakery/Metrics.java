@@ -0,0 +1,146 @@
+package bakery;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Latency of each step of an order, for finding where the time goes. Steps are
+ * timed only when the {@code bakery.metrics} system property is {@code true} or
+ * {@code bakery.metrics.file} names a file to write the metrics to. The switch is
+ * read once, so with metrics off the timing calls cost nothing once compiled.
+ * The metrics are written in the Prometheus text exposition format.
+ */
+public final class Metrics {
+
+    /**
+     * Whether steps are being timed.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("bakery.metrics")
+        || System.getProperty("bakery.metrics.file") != null;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+    /**
+     * The timed steps of an order.
+     */
+    public enum Step {
+        /**
+         * Looking up an option by its description.
+         */
+        LOOKUP("lookup"),
+
+        /**
+         * Pricing a purchase.
+         */
+        PRICING("pricing"),
+
+        /**
+         * Adding a purchase to the cart, pricing and reserving stock included.
+         */
+        CART_ADD("cart_add"),
+
+        /**
+         * Confirming a purchase, journaling included.
+         */
+        CHECKOUT("checkout");
+
+        private final String label;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        /**
+         * Constructs a step.
+         *
+         * @param label the name of the step in the exported metrics
+         */
+        Step(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the latencies recorded for this step.
+         *
+         * @return the histogram of the step
+         */
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Starts timing a step.
+     *
+     * @return the start time to pass to {@link #record}, or 0 when metrics are off
+     */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time a step took since it was started.
+     *
+     * @param step  the step
+     * @param start the start time returned by {@link #start()}
+     */
+    static void record(Step step, long start) {
+        if (ENABLED) {
+            step.histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Writes the metrics of every step in the Prometheus text exposition format.
+     *
+     * @param out where to write the metrics
+     * @throws IOException if the metrics cannot be written
+     */
+    public static void writeTo(Appendable out) throws IOException {
+        out.append("# HELP bakery_step_duration_seconds Time spent in each step of an order.\n");
+        out.append("# TYPE bakery_step_duration_seconds summary\n");
+        for (Step step : Step.values()) {
+            long[] buckets = step.histogram.snapshot();
+            for (double quantile : QUANTILES) {
+                out.append("bakery_step_duration_seconds{step=\"").append(step.label)
+                    .append("\",quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                    .append(seconds(LatencyHistogram.valueAt(buckets, quantile))).append('\n');
+            }
+            out.append("bakery_step_duration_seconds_sum{step=\"").append(step.label).append("\"} ")
+                .append(seconds(step.histogram.getSum())).append('\n');
+            out.append("bakery_step_duration_seconds_count{step=\"").append(step.label).append("\"} ")
+                .append(Long.toString(step.histogram.getCount())).append('\n');
+        }
+    }
+
+    /**
+     * Writes the metrics to a file, replacing it as a whole so a scraper never
+     * reads a half written file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeTo(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writeTo(out);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Formats nanoseconds as seconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in seconds
+     */
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0);
+    }
+}
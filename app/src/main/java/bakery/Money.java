@@ -0,0 +1,102 @@
+package bakery;
+
+/**
+ * Arithmetic on amounts of money held as a {@code long} number of cents.
+ * Working in whole cents keeps totals exact however many lines are summed,
+ * and using plain {@code long} values keeps the arithmetic free of allocation.
+ * Every operation throws {@code ArithmeticException} instead of silently overflowing.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Multiplies a price by a quantity.
+     *
+     * @param cents    the unit price in cents
+     * @param quantity the quantity
+     * @return the total price in cents
+     * @throws ArithmeticException if the result overflows
+     */
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, (long) quantity);
+    }
+
+    /**
+     * Adds two amounts.
+     *
+     * @param cents      the first amount in cents
+     * @param otherCents the second amount in cents
+     * @return the sum in cents
+     * @throws ArithmeticException if the result overflows
+     */
+    public static long plus(long cents, long otherCents) {
+        return Math.addExact(cents, otherCents);
+    }
+
+    /**
+     * Parses an amount written in dollars, such as {@code "7.99"} or {@code "12"}.
+     *
+     * @param dollars the amount in dollars, with at most two decimal places
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not an amount of dollars
+     */
+    public static long parse(String dollars) {
+        String text = dollars.trim();
+        boolean negative = text.startsWith("-");
+        if (negative) {
+            text = text.substring(1);
+        }
+        int point = text.indexOf('.');
+        String whole = point < 0 ? text : text.substring(0, point);
+        String fraction = point < 0 ? "" : text.substring(point + 1);
+        if (whole.isEmpty() || fraction.length() > 2 || !digits(whole) || !digits(fraction)) {
+            throw new NumberFormatException("Not an amount of dollars: " + dollars);
+        }
+        long cents = Math.addExact(Math.multiplyExact(Long.parseLong(whole), 100L),
+            fraction.isEmpty() ? 0 : Long.parseLong(fraction) * (fraction.length() == 1 ? 10 : 1));
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Formats an amount as dollars with two decimal places, such as {@code "7.99"}.
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * Appends an amount as dollars with two decimal places.
+     *
+     * @param out   the builder to append to
+     * @param cents the amount in cents
+     * @return the builder
+     */
+    public static StringBuilder appendTo(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        long dollars = Math.abs(cents / 100);
+        int rest = (int) Math.abs(cents % 100);
+        return out.append(dollars).append('.').append((char) ('0' + rest / 10)).append((char) ('0' + rest % 10));
+    }
+
+    /**
+     * Checks that text only contains decimal digits.
+     *
+     * @param text the text to check
+     * @return true if every character is a digit
+     */
+    private static boolean digits(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
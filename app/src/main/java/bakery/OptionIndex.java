@@ -0,0 +1,120 @@
+package bakery;
+
+/**
+ * Case-insensitive index from description to option, shared by every option
+ * family in {@code BakeryEnum}. It is built once when the class is loaded as an
+ * open-addressing hash table, so a lookup hashes the description and probes a
+ * slot or two without allocating. When the description does not match exactly,
+ * {@code find} asks {@code OptionMatcher} for the one option a prefix or a near
+ * spelling points to, so text that fits no option, or could mean more than one,
+ * returns {@code null}. That search is slower than a probe but does not allocate
+ * either, working in buffers kept by each thread.
+ */
+final class OptionIndex {
+
+    private static final BakeryOption[] SLOTS;
+    private static final int MASK;
+
+    static {
+        int size = Integer.highestOneBit(BakeryEnum.optionCount() * 4 - 1) << 1;
+        SLOTS = new BakeryOption[size];
+        MASK = size - 1;
+
+        for (BakeryEnum category : BakeryEnum.values()) {
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                int slot = hash(category, option.getDescription()) & MASK;
+                while (SLOTS[slot] != null) {
+                    slot = (slot + 1) & MASK;
+                }
+                SLOTS[slot] = option;
+            }
+        }
+    }
+
+    private OptionIndex() {
+    }
+
+    /**
+     * Finds the option of a category whose description matches, ignoring case, or
+     * failing that the only option the description is a prefix or near spelling of.
+     *
+     * @param category    the category to search
+     * @param description the description typed by the customer
+     * @return the matching option, or {@code null} if there is none or it is ambiguous
+     */
+    static BakeryOption find(BakeryEnum category, String description) {
+        long start = Metrics.start();
+        BakeryOption option = lookup(category, description);
+        if (option == null) {
+            option = OptionMatcher.resolve(category, description);
+        }
+        Metrics.record(Metrics.Step.LOOKUP, start);
+        return option;
+    }
+
+    /**
+     * Finds the option of a category named by its description or by its enum name,
+     * ignoring case, as options are named in definition files.
+     *
+     * @param category the category to search
+     * @param name     the description or enum name of the option
+     * @return the matching option, or {@code null} if there is none
+     */
+    static BakeryOption findByName(BakeryEnum category, String name) {
+        BakeryOption option = lookup(category, name);
+        if (option != null) {
+            return option;
+        }
+        for (int i = 0; i < category.getOptionCount(); i++) {
+            if (((Enum<?>) category.getOption(i)).name().equalsIgnoreCase(name)) {
+                return category.getOption(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Probes the table for the option of a category whose description matches.
+     *
+     * @param category    the category to search
+     * @param description the description typed by the customer
+     * @return the matching option, or {@code null} if there is none
+     */
+    private static BakeryOption lookup(BakeryEnum category, String description) {
+        if (description == null) {
+            return null;
+        }
+        for (int slot = hash(category, description) & MASK; ; slot = (slot + 1) & MASK) {
+            BakeryOption option = SLOTS[slot];
+            if (option == null) {
+                return null;
+            }
+            if (option.getCategory() == category && option.getDescription().equalsIgnoreCase(description)) {
+                return option;
+            }
+        }
+    }
+
+    /**
+     * Hashes a description the same way for every spelling that
+     * {@link String#equalsIgnoreCase(String)} treats as equal.
+     *
+     * @param category    the category of the option
+     * @param description the description to hash
+     * @return the hash of the category and description
+     */
+    private static int hash(BakeryEnum category, String description) {
+        int h = category.ordinal();
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c >= 0x80) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+}
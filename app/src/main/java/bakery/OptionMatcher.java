@@ -0,0 +1,446 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forgiving matcher from what a customer types to the options of a category, for
+ * when the exact description in {@code OptionIndex} misses. Descriptions are
+ * compared in lower case with punctuation dropped and spaces collapsed, so
+ * {@code "m&m cookie"} finds {@code "M&M Cookie"}. A prefix is enough, as is the
+ * start of any word, so {@code "pecan"} and {@code "creme"} both find a pie, and a
+ * few typing mistakes are forgiven: one in a short word, two in a longer one,
+ * counting a swapped pair of letters as one mistake. Short of a whole description,
+ * though, the text must fit only one option: {@code "c"} starts the first word of
+ * one cookie but a later word of every cookie, so it finds none.
+ *
+ * <p>Each category has a trie of its descriptions, and of every description from
+ * each later word on, built when the class is loaded. A search walks the trie once,
+ * keeping the edit distance of the typed text to the path so far, and leaves any
+ * branch as soon as the distance can no longer be within bounds. {@link #resolve}
+ * works in buffers kept by each thread, so that {@code OptionIndex.find} can try it
+ * on every miss without allocating.
+ */
+final class OptionMatcher {
+
+    private static final Trie[] TRIES = new Trie[BakeryEnum.values().length];
+
+    /**
+     * Longest normalized text that can match anything: the longest key, plus the
+     * most mistakes forgiven.
+     */
+    private static final int MAX_QUERY;
+
+    static {
+        int depth = 0;
+        for (BakeryEnum category : BakeryEnum.values()) {
+            TRIES[category.ordinal()] = new Trie(category);
+            depth = Math.max(depth, TRIES[category.ordinal()].depth);
+        }
+        MAX_QUERY = depth + maxDistance(Integer.MAX_VALUE);
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Rank of a match that is not a match.
+     */
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    /**
+     * Most options suggested for text that resolves to none.
+     */
+    private static final int SUGGESTIONS = 3;
+
+    private OptionMatcher() {
+    }
+
+    /**
+     * The buffers of one thread's searches: the normalized query, the distance rows
+     * of the path being walked and the rank of each option.
+     */
+    private static final class Scratch {
+        private final char[] query = new char[MAX_QUERY];
+        private final int[][] rows = new int[MAX_QUERY - maxDistance(Integer.MAX_VALUE) + 2][MAX_QUERY + 1];
+        private final int[] ranks = new int[BakeryEnum.optionCount()];
+    }
+
+    /**
+     * Trie of the descriptions of one category, stored as parallel arrays. The
+     * keys of each node and of everything under it are contiguous in {@code keyOptions},
+     * so the options a prefix leads to are found without walking the subtree.
+     */
+    private static final class Trie {
+        private char[] chars = new char[64];
+        private int[] firstChild = new int[64];
+        private int[] nextSibling = new int[64];
+        private int nodes = 1;
+
+        /**
+         * Option of each key and whether the key starts after the first word,
+         * by key, in the order the keys were added.
+         */
+        private final List<BakeryOption> options = new ArrayList<>();
+        private final List<Boolean> inner = new ArrayList<>();
+        private final List<Integer> keyNodes = new ArrayList<>();
+
+        /**
+         * Keys in trie order: the option index of each, and whether it is inner.
+         */
+        private int[] keyOptions;
+        private boolean[] keyInner;
+
+        /**
+         * Range of keys in trie order ending at each node, and ending at or under it.
+         */
+        private int[] ownStart;
+        private int[] ownEnd;
+        private int[] subtreeEnd;
+        private int depth;
+
+        /**
+         * Builds the trie of a category.
+         *
+         * @param category the category
+         */
+        Trie(BakeryEnum category) {
+            Arrays.fill(firstChild, -1);
+            Arrays.fill(nextSibling, -1);
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                String key = normalize(option.getDescription());
+                add(key, option, false);
+                for (int space = key.indexOf(' '); space >= 0; space = key.indexOf(' ', space + 1)) {
+                    add(key.substring(space + 1), option, true);
+                }
+            }
+            order();
+        }
+
+        /**
+         * Adds a key leading to an option.
+         *
+         * @param key    the normalized key
+         * @param option the option
+         * @param isInner true if the key starts after the first word of the description
+         */
+        private void add(String key, BakeryOption option, boolean isInner) {
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                node = child(node, key.charAt(i));
+            }
+            depth = Math.max(depth, key.length());
+            options.add(option);
+            inner.add(isInner);
+            keyNodes.add(node);
+        }
+
+        /**
+         * Finds or adds the child of a node for a character.
+         *
+         * @param parent the parent node
+         * @param c      the character
+         * @return the child node
+         */
+        private int child(int parent, char c) {
+            for (int node = firstChild[parent]; node >= 0; node = nextSibling[node]) {
+                if (chars[node] == c) {
+                    return node;
+                }
+            }
+            if (nodes == chars.length) {
+                chars = Arrays.copyOf(chars, nodes * 2);
+                firstChild = Arrays.copyOf(firstChild, nodes * 2);
+                nextSibling = Arrays.copyOf(nextSibling, nodes * 2);
+                Arrays.fill(firstChild, nodes, nodes * 2, -1);
+                Arrays.fill(nextSibling, nodes, nodes * 2, -1);
+            }
+            int node = nodes++;
+            chars[node] = c;
+            nextSibling[node] = firstChild[parent];
+            firstChild[parent] = node;
+            return node;
+        }
+
+        /**
+         * Lays the keys out in trie order and records the range of each node.
+         */
+        private void order() {
+            keyOptions = new int[options.size()];
+            keyInner = new boolean[options.size()];
+            ownStart = new int[nodes];
+            ownEnd = new int[nodes];
+            subtreeEnd = new int[nodes];
+            int[] next = {0};
+            layOut(0, next);
+        }
+
+        /**
+         * Lays out the keys of a node, then those of its children.
+         *
+         * @param node the node
+         * @param next the next free position in trie order
+         */
+        private void layOut(int node, int[] next) {
+            ownStart[node] = next[0];
+            for (int key = 0; key < keyNodes.size(); key++) {
+                if (keyNodes.get(key) == node) {
+                    keyOptions[next[0]] = options.get(key).index();
+                    keyInner[next[0]] = inner.get(key);
+                    next[0]++;
+                }
+            }
+            ownEnd[node] = next[0];
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                layOut(child, next);
+            }
+            subtreeEnd[node] = next[0];
+        }
+
+        /**
+         * Ranks every option against a normalized query.
+         *
+         * @param query  the normalized query
+         * @param length the length of the query
+         * @param rows   room for the distance rows of the path, one per level
+         * @param ranks  the rank of each option by option index, lower is better,
+         *               updated where this search finds a better match
+         */
+        void search(char[] query, int length, int[][] rows, int[] ranks) {
+            int limit = maxDistance(length);
+            for (int j = 0; j <= length; j++) {
+                rows[0][j] = j;
+            }
+            for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+                walk(child, 1, (char) 0, query, length, limit, rows, ranks);
+            }
+        }
+
+        /**
+         * Visits a node, working out the distance of the query to the path that ends
+         * there, and goes on to its children while the distance can still be in bounds.
+         *
+         * @param node   the node
+         * @param level  the depth of the node
+         * @param parent the character of the parent node, 0 at the root
+         * @param query  the normalized query
+         * @param length the length of the query
+         * @param limit  the greatest distance allowed
+         * @param rows   the distance rows of the path, one per level
+         * @param ranks  the rank of each option, updated in place
+         */
+        private void walk(int node, int level, char parent, char[] query, int length, int limit, int[][] rows,
+            int[] ranks) {
+            char c = chars[node];
+            int[] previous = rows[level - 1];
+            int[] row = rows[level];
+            row[0] = level;
+            int best = row[0];
+            for (int j = 1; j <= length; j++) {
+                char q = query[j - 1];
+                int distance = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), previous[j - 1] + (q == c ? 0 : 1));
+                if (j > 1 && level > 1 && q == parent && query[j - 2] == c) {
+                    distance = Math.min(distance, rows[level - 2][j - 2] + 1);
+                }
+                row[j] = distance;
+                best = Math.min(best, distance);
+            }
+            if (row[length] <= limit) {
+                for (int key = ownStart[node]; key < ownEnd[node]; key++) {
+                    rank(key, row[length], false, ranks);
+                }
+                for (int key = ownEnd[node]; key < subtreeEnd[node]; key++) {
+                    rank(key, row[length], true, ranks);
+                }
+            }
+            if (best <= limit) {
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    walk(child, level + 1, c, query, length, limit, rows, ranks);
+                }
+            }
+        }
+
+        /**
+         * Records a match of a key if it is better than the option's best so far.
+         * Matches are ranked by distance, then whole descriptions and their first words
+         * ahead of later words, then whole keys ahead of prefixes.
+         *
+         * @param key      the position of the key in trie order
+         * @param distance the edit distance of the match
+         * @param prefix   true if the query matched only the start of the key
+         * @param ranks    the rank of each option, updated in place
+         */
+        private void rank(int key, int distance, boolean prefix, int[] ranks) {
+            int rank = distance << 2 | (keyInner[key] ? 2 : 0) | (prefix ? 1 : 0);
+            int option = keyOptions[key];
+            if (rank < ranks[option]) {
+                ranks[option] = rank;
+            }
+        }
+    }
+
+    /**
+     * Resolves typed text to an option when only one option fits it: a whole
+     * description spelt closer than any other, or else the single option the text
+     * starts a word of, or is spelt like, with the fewest mistakes. A prefix of the
+     * first word does not win over options the text starts a later word of.
+     *
+     * @param category the category to search
+     * @param text     the text typed by the customer
+     * @return the option, or {@code null} if nothing matches or more than one option fits
+     */
+    static BakeryOption resolve(BakeryEnum category, String text) {
+        int[] ranks = ranks(category, text, SCRATCH.get());
+        if (ranks == null) {
+            return null;
+        }
+        int best = -1;
+        boolean tied = false;
+        for (int i = 0; i < category.getOptionCount(); i++) {
+            int index = category.getOffset() + i;
+            if (ranks[index] == NO_MATCH) {
+                continue;
+            }
+            if (best < 0 || ranks[index] < ranks[best]) {
+                best = index;
+                tied = false;
+            } else if (ranks[index] == ranks[best]) {
+                tied = true;
+            }
+        }
+        if (best < 0 || tied) {
+            return null;
+        }
+        // short of a whole description, no other option may fit with as few mistakes
+        if ((ranks[best] & 3) != 0) {
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                int index = category.getOffset() + i;
+                if (index != best && ranks[index] != NO_MATCH && ranks[index] >> 2 == ranks[best] >> 2) {
+                    return null;
+                }
+            }
+        }
+        return category.getOption(best - category.getOffset());
+    }
+
+    /**
+     * Lists the options that typed text could mean, best first.
+     *
+     * @param category the category to search
+     * @param text     the text typed by the customer
+     * @param limit    the most candidates to return
+     * @return the candidates, empty if nothing is close
+     */
+    static List<BakeryOption> candidates(BakeryEnum category, String text, int limit) {
+        int[] ranks = ranks(category, text, SCRATCH.get());
+        List<BakeryOption> candidates = new ArrayList<>();
+        if (ranks == null) {
+            return candidates;
+        }
+        for (int i = 0; i < category.getOptionCount(); i++) {
+            if (ranks[category.getOffset() + i] != NO_MATCH) {
+                candidates.add(category.getOption(i));
+            }
+        }
+        candidates.sort((a, b) -> ranks[a.index()] != ranks[b.index()]
+            ? Integer.compare(ranks[a.index()], ranks[b.index()])
+            : Integer.compare(a.getDescription().length(), b.getDescription().length()));
+        return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+
+    /**
+     * Words a suggestion of what typed text could mean, such as
+     * {@code " Did You Mean Apple Pie or Pecan Pie?"}.
+     *
+     * @param category the category to search
+     * @param text     the text typed by the customer
+     * @param before   the text to put before the candidates
+     * @param after    the text to put after the candidates
+     * @return the suggestion, or an empty string if nothing is close
+     */
+    static String suggest(BakeryEnum category, String text, String before, String after) {
+        List<BakeryOption> candidates = candidates(category, text, SUGGESTIONS);
+        if (candidates.isEmpty()) {
+            return "";
+        }
+        StringBuilder suggestion = new StringBuilder(before);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i > 0) {
+                suggestion.append(i == candidates.size() - 1 ? " or " : ", ");
+            }
+            suggestion.append(candidates.get(i).getDescription());
+        }
+        return suggestion.append(after).toString();
+    }
+
+    /**
+     * Ranks every option of a category against typed text.
+     *
+     * @param category the category to search
+     * @param text     the text typed by the customer
+     * @param scratch  the buffers of the calling thread
+     * @return the rank of each option of the category by option index, in the
+     *         scratch buffers, or {@code null} if the text is blank or too long to match
+     */
+    private static int[] ranks(BakeryEnum category, String text, Scratch scratch) {
+        int length = text == null ? -1 : normalize(text, scratch.query);
+        if (length <= 0) {
+            return null;
+        }
+        int[] ranks = scratch.ranks;
+        Arrays.fill(ranks, category.getOffset(), category.getOffset() + category.getOptionCount(), NO_MATCH);
+        TRIES[category.ordinal()].search(scratch.query, length, scratch.rows, ranks);
+        return ranks;
+    }
+
+    /**
+     * Gets how many mistakes are forgiven in a query of a given length.
+     *
+     * @param length the length of the normalized query
+     * @return the greatest edit distance allowed
+     */
+    private static int maxDistance(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    /**
+     * Lowers the case of text, drops everything but letters, digits and spaces, and
+     * collapses runs of spaces into one.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    static String normalize(String text) {
+        char[] normal = new char[text.length()];
+        return new String(normal, 0, normalize(text, normal));
+    }
+
+    /**
+     * Normalizes text into a buffer, as {@link #normalize(String)} does.
+     *
+     * @param text   the text
+     * @param normal the buffer to write the normalized text to
+     * @return the length of the normalized text, or -1 if it does not fit
+     */
+    private static int normalize(String text, char[] normal) {
+        int length = 0;
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (length + (space && length > 0 ? 2 : 1) > normal.length) {
+                    return -1;
+                }
+                if (space && length > 0) {
+                    normal[length++] = ' ';
+                }
+                normal[length++] = Character.toLowerCase(c);
+                space = false;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            }
+        }
+        return length;
+    }
+}
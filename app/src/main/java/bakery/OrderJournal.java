@@ -0,0 +1,621 @@
+package bakery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable, append-only journal of confirmed checkouts. Records are written into
+ * memory-mapped segment files in the compact binary form described by
+ * {@code JournalRecord}, and a new segment is started once the current one is full.
+ * A background thread flushes the written bytes to disk; checkouts that finish while
+ * a flush is running are all made durable by the next one, so concurrent checkouts
+ * share flushes instead of each paying for its own.
+ *
+ * <p>A {@code JournalReplicator} can copy the journal to followers as it is written,
+ * each follower appending the same records to a journal of its own.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    /**
+     * Default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Object lock = new Object();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentNumber;
+    private int flushedPosition;
+    private long nextSequence;
+    private long writtenSequence;
+    private long durableSequence;
+    private boolean closed;
+    private IOException failure;
+    private volatile Runnable appendListener;
+    private volatile JournalReplicator replicator;
+
+    /**
+     * Opens the journal in a directory, continuing after the last record already written.
+     *
+     * @param directory    the directory holding the segment files
+     * @param segmentBytes the size of each segment file
+     * @throws IOException if the journal cannot be opened
+     */
+    public OrderJournal(Path directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        long[] lastSequence = new long[1];
+        scan(directory, record -> lastSequence[0] = record.getSequence());
+        nextSequence = lastSequence[0] + 1;
+
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0, segmentBytes);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            long number = Long.parseLong(last.getFileName().toString().replace(SUFFIX, ""));
+            openSegment(number, (int) Math.max(segmentBytes, Files.size(last)));
+            int position = 0;
+            int length;
+            while ((length = validLength(segment, position)) > 0) {
+                position += JournalRecord.HEADER_BYTES + length;
+            }
+            segment.position(position);
+            flushedPosition = position;
+        }
+        writtenSequence = nextSequence - 1;
+        durableSequence = writtenSequence;
+
+        flusher = new Thread(this::flushLoop, "order-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens the journal in a directory with the default segment size.
+     *
+     * @param directory the directory holding the segment files
+     * @return the opened journal
+     * @throws IOException if the journal cannot be opened
+     */
+    public static OrderJournal open(Path directory) throws IOException {
+        return new OrderJournal(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Appends a confirmed checkout to the journal. The record is not durable until
+     * {@link #awaitDurable(long)} returns for its sequence number.
+     *
+     * @param sessionId the identifier of the session that checked out
+     * @param cart      the cart that was checked out
+     * @param total     the total price in cents
+     * @return the sequence number of the record
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public long append(long sessionId, CompactCart cart, long total) {
+        int size = JournalRecord.size(cart.size());
+        long timestamp = System.currentTimeMillis();
+        long sequence;
+        synchronized (lock) {
+            checkOpen();
+            try {
+                makeRoom(size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sequence = nextSequence++;
+            JournalRecord.encode(segment, sequence, sessionId, timestamp, cart, total);
+            writtenSequence = sequence;
+            lock.notifyAll();
+        }
+        Runnable listener = appendListener;
+        if (listener != null) {
+            listener.run();
+        }
+        return sequence;
+    }
+
+    /**
+     * Appends records copied from another journal, as a follower does with the
+     * records of its primary. Records this journal already holds are skipped, so
+     * a primary may send records again after a reconnect.
+     *
+     * @param source the buffer holding the records, each header followed by its body
+     *               and each already checked against its checksum
+     * @param from   the offset of the first record
+     * @param to     the offset just past the last record
+     * @return the sequence number of the last record in this journal
+     * @throws IOException if a record does not follow the last one in this journal
+     */
+    long appendCopies(ByteBuffer source, int from, int to) throws IOException {
+        synchronized (lock) {
+            checkOpen();
+            int position = from;
+            while (position < to) {
+                int size = JournalRecord.HEADER_BYTES + source.getInt(position);
+                long sequence = source.getLong(position + JournalRecord.HEADER_BYTES);
+                if (sequence > nextSequence) {
+                    throw new IOException("Records " + nextSequence + " to " + (sequence - 1) + " are missing");
+                }
+                if (sequence == nextSequence) {
+                    makeRoom(size);
+                    segment.put(segment.position(), source, position, size);
+                    segment.position(segment.position() + size);
+                    writtenSequence = nextSequence++;
+                }
+                position += size;
+            }
+            lock.notifyAll();
+            return writtenSequence;
+        }
+    }
+
+    /**
+     * Waits until a record and every record before it have been flushed to disk,
+     * and, when a replicator requires it, until followers have done the same. A record
+     * written before the journal was closed still becomes durable, since closing
+     * flushes every written record.
+     *
+     * @param sequence the sequence number of the record
+     * @throws UncheckedIOException  if the journal could not be flushed
+     * @throws IllegalStateException if the journal was closed before the record was written
+     */
+    public void awaitDurable(long sequence) {
+        synchronized (lock) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException(failure);
+                }
+                if (closed && sequence > writtenSequence) {
+                    throw new IllegalStateException("The order journal is closed");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while flushing the journal"));
+                }
+            }
+        }
+        JournalReplicator current = replicator;
+        if (current != null) {
+            current.awaitReplicated(sequence);
+        }
+    }
+
+    /**
+     * Sets the replicator whose durability checkouts wait for, and which is told
+     * of every record appended.
+     *
+     * @param replicator the replicator, or {@code null} to stop replicating
+     */
+    void replicateWith(JournalReplicator replicator) {
+        this.replicator = replicator;
+        this.appendListener = replicator == null ? null : replicator::appended;
+    }
+
+    /**
+     * Gets the directory holding the segment files.
+     *
+     * @return the journal directory
+     */
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the sequence number of the last record written.
+     *
+     * @return the last sequence number, or 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        synchronized (lock) {
+            return writtenSequence;
+        }
+    }
+
+    /**
+     * Flushes written records to disk until the journal is closed, taking every record
+     * written so far in each pass. If a flush fails, the failure is kept for every
+     * waiting and later caller to see, and flushing stops.
+     */
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            long target;
+            synchronized (lock) {
+                while (writtenSequence == durableSequence && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (writtenSequence == durableSequence) {
+                    return;
+                }
+                buffer = segment;
+                from = flushedPosition;
+                to = segment.position();
+                target = writtenSequence;
+            }
+
+            try {
+                buffer.force(from, to - from);
+            } catch (UncheckedIOException e) {
+                synchronized (lock) {
+                    failure = e.getCause();
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                if (buffer == segment) {
+                    flushedPosition = Math.max(flushedPosition, to);
+                }
+                durableSequence = Math.max(durableSequence, target);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Starts the next segment unless the current one has room for a record and the
+     * empty header after it that marks where the written records end. Records copied
+     * from a primary go through the same check, so a follower's segments end at the
+     * same records as the primary's. Called while holding the lock.
+     *
+     * @param recordBytes the size of the record, header included
+     * @throws IOException if the next segment cannot be created; the journal then fails
+     */
+    private void makeRoom(int recordBytes) throws IOException {
+        if (segment.remaining() < recordBytes + JournalRecord.HEADER_BYTES) {
+            try {
+                roll(recordBytes);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Flushes the full segment and starts the next one. Called while holding the lock.
+     *
+     * @param recordBytes the size of the record that did not fit
+     * @throws IOException if the next segment cannot be created
+     */
+    private void roll(int recordBytes) throws IOException {
+        segment.force();
+        channel.close();
+        openSegment(segmentNumber + 1, Math.max(segmentBytes, recordBytes + JournalRecord.HEADER_BYTES));
+        flushedPosition = 0;
+    }
+
+    /**
+     * Maps a segment file, creating it if needed.
+     *
+     * @param number the number of the segment
+     * @param bytes  the size of the segment file
+     * @throws IOException if the segment cannot be mapped
+     */
+    private void openSegment(long number, int bytes) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, number),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        segmentNumber = number;
+    }
+
+    /**
+     * Throws if the journal is closed or has failed. Called while holding the lock.
+     */
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("The order journal is closed");
+        }
+    }
+
+    /**
+     * Flushes every written record and closes the journal.
+     *
+     * @throws IOException if the last segment cannot be flushed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            try {
+                segment.force();
+                durableSequence = writtenSequence;
+            } catch (UncheckedIOException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+                throw e.getCause();
+            } finally {
+                channel.close();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads every record in a journal directory in order, stopping at the end of the
+     * written data or at the first damaged record.
+     *
+     * @param directory the directory holding the segment files
+     * @param visitor   called with each record; the record is reused for the next call
+     * @return the number of records read
+     * @throws IOException if a segment cannot be read
+     */
+    public static long scan(Path directory, Consumer<JournalRecord> visitor) throws IOException {
+        return scan(directory, 1, visitor);
+    }
+
+    /**
+     * Reads the records of a journal directory in order, starting at a sequence number.
+     *
+     * @param directory     the directory holding the segment files
+     * @param fromSequence  the sequence number of the first record to visit
+     * @param visitor       called with each record; the record is reused for the next call
+     * @return the number of records visited
+     * @throws IOException if a segment cannot be read
+     */
+    public static long scan(Path directory, long fromSequence, Consumer<JournalRecord> visitor) throws IOException {
+        JournalRecord record = new JournalRecord();
+        long count = 0;
+        for (Path path : segments(directory)) {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int position = 0;
+                int length;
+                while ((length = validLength(buffer, position)) > 0) {
+                    record.wrap(buffer, position + JournalRecord.HEADER_BYTES);
+                    if (record.getSequence() >= fromSequence) {
+                        visitor.accept(record);
+                        count++;
+                    }
+                    position += JournalRecord.HEADER_BYTES + length;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the length of the record body at a position if the record is complete and intact.
+     *
+     * @param buffer   the segment
+     * @param position the position of the record header
+     * @return the length of the body, or 0 at the end of the data or at a damaged record
+     */
+    private static int validLength(ByteBuffer buffer, int position) {
+        if (position + JournalRecord.HEADER_BYTES > buffer.limit()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        int body = position + JournalRecord.HEADER_BYTES;
+        if (length < JournalRecord.BODY_BYTES || body + length > buffer.limit()) {
+            return 0;
+        }
+        return JournalRecord.checksum(buffer, body, length) == buffer.getInt(position + 4) ? length : 0;
+    }
+
+    /**
+     * Reads the records of a journal directory as raw bytes, header and body, in
+     * order from a sequence number, and keeps reading as more records are written.
+     * Records are only read up to a sequence number the caller knows is written,
+     * so a record still being written is never read.
+     */
+    static final class Cursor implements Closeable {
+        private final Path directory;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long segmentNumber;
+        private int position;
+        private long nextSequence;
+
+        /**
+         * Opens a cursor at a sequence number, starting from the last segment
+         * whose first record is not after it.
+         *
+         * @param directory    the journal directory
+         * @param fromSequence the sequence number of the first record to read
+         * @throws IOException if the journal cannot be read
+         */
+        Cursor(Path directory, long fromSequence) throws IOException {
+            this.directory = directory;
+            this.nextSequence = fromSequence;
+            List<Path> segments = segments(directory);
+            long start = segments.isEmpty() ? 0 : number(segments.get(0));
+            for (Path path : segments) {
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer first = ByteBuffer.allocate(JournalRecord.HEADER_BYTES + 8);
+                    in.read(first, 0);
+                    if (first.position() == first.capacity() && first.getInt(0) > 0
+                        && first.getLong(JournalRecord.HEADER_BYTES) <= fromSequence) {
+                        start = number(path);
+                    }
+                }
+            }
+            open(start);
+        }
+
+        /**
+         * Gets the sequence number of the next record to read.
+         *
+         * @return the next sequence number
+         */
+        long getNextSequence() {
+            return nextSequence;
+        }
+
+        /**
+         * Copies whole records into a buffer, as many as fit, up to a sequence number.
+         *
+         * @param out          the buffer to copy to, from its position
+         * @param lastSequence the sequence number of the last record known to be written
+         * @return the number of bytes the next record needs if not even one record
+         *         fitted, otherwise 0
+         * @throws IOException if the next segment cannot be read
+         */
+        int read(ByteBuffer out, long lastSequence) throws IOException {
+            int start = out.position();
+            while (nextSequence <= lastSequence) {
+                int length = buffer == null ? 0 : validLength(buffer, position);
+                if (length == 0) {
+                    if (!Files.exists(segmentPath(directory, segmentNumber + 1))) {
+                        return 0;
+                    }
+                    open(segmentNumber + 1);
+                    continue;
+                }
+                int size = JournalRecord.HEADER_BYTES + length;
+                long sequence = buffer.getLong(position + JournalRecord.HEADER_BYTES);
+                if (sequence >= nextSequence) {
+                    if (out.remaining() < size) {
+                        return out.position() == start ? size : 0;
+                    }
+                    out.put(out.position(), buffer, position, size);
+                    out.position(out.position() + size);
+                    nextSequence = sequence + 1;
+                }
+                position += size;
+            }
+            return 0;
+        }
+
+        /**
+         * Maps a segment for reading from its start.
+         *
+         * @param number the number of the segment
+         * @throws IOException if the segment cannot be mapped
+         */
+        private void open(long number) throws IOException {
+            close();
+            segmentNumber = number;
+            position = 0;
+            Path path = segmentPath(directory, number);
+            if (Files.exists(path)) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        /**
+         * Closes the segment being read.
+         *
+         * @throws IOException if the segment cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+
+        /**
+         * Gets the number of a segment file from its name.
+         *
+         * @param path the segment file
+         * @return the segment number
+         */
+        private static long number(Path path) {
+            return Long.parseLong(path.getFileName().toString().replace(SUFFIX, ""));
+        }
+    }
+
+    /**
+     * Lists the segment files of a journal directory in order.
+     *
+     * @param directory the journal directory
+     * @return the segment files, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Gets the path of a segment file. Numbers are zero padded so the names sort in order.
+     *
+     * @param directory the journal directory
+     * @param number    the number of the segment
+     * @return the path of the segment file
+     */
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%016d%s", number, SUFFIX));
+    }
+
+    /**
+     * Main method that scans a journal directory and reports the checkouts it holds
+     * and how fast they were read.
+     * Usage: {@code OrderJournal <journal directory>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OrderJournal <journal directory>");
+            System.exit(2);
+        }
+        long[] totals = new long[2];
+        long start = System.nanoTime();
+        long records = scan(Paths.get(args[0]), record -> {
+            totals[0] = Money.plus(totals[0], record.getTotal());
+            totals[1] += record.getLineCount();
+        });
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%d checkouts, %d lines, total $%s, %.0f checkouts/sec%n",
+            records, totals[1], Money.format(totals[0]), seconds == 0 ? 0 : records / seconds);
+    }
+}
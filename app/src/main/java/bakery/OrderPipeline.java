@@ -0,0 +1,859 @@
+package bakery;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Processes order files, in the format read by {@code BatchOrders}, as a pipeline
+ * of stages that each run on their own thread: parse, resolve the options, price,
+ * reserve stock, and persist the finished orders. Lines travel between stages in
+ * slots allocated when the pipeline starts, passed along single-producer,
+ * single-consumer rings; the last stage hands each slot back to the first, so a
+ * slow stage holds up the stages before it once every slot is in use. Each stage
+ * takes whatever slots are waiting as one batch, and the persist stage makes all
+ * the orders of a batch durable with one journal flush. Lines are parsed and
+ * matched on their raw bytes, so processing an order allocates nothing.
+ *
+ * <p>The lines of an order must be next to each other, and lines that cannot be
+ * priced or are out of stock are left out of their order, as in {@code BatchOrders}.
+ * Blank lines, comment lines starting with {@code #} and a header line starting
+ * with {@code order,} before the first purchase are skipped the same way, so a
+ * comment between the lines of an order does not split it.
+ * Every run prices with the table current when it starts. If a stage fails, the
+ * stock reserved for lines still in the pipeline and for orders not yet journaled
+ * is given back; orders already written to the journal keep theirs.
+ */
+public class OrderPipeline {
+
+    private static final int FIELDS = 7;
+    private static final int READ_BYTES = 64 * 1024;
+
+    private static final int ACCEPTED = 0;
+    private static final int REJECTED = 1;
+    private static final int OUT_OF_STOCK = 2;
+
+    private static final BakeryEnum[] CATEGORIES = BakeryEnum.values();
+
+    /**
+     * Lower case description of each option as UTF-8, indexed by option index.
+     */
+    private static final byte[][] NAMES = new byte[BakeryEnum.optionCount()][];
+
+    /**
+     * Lower case name of each category as UTF-8, indexed by category ordinal.
+     */
+    private static final byte[][] CATEGORY_NAMES = new byte[CATEGORIES.length][];
+    private static final byte[] BREAD = lowerCase("bread");
+    private static final byte[] HEADER = lowerCase("order,");
+
+    static {
+        for (BakeryEnum category : CATEGORIES) {
+            CATEGORY_NAMES[category.ordinal()] = lowerCase(category.name());
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                NAMES[option.index()] = lowerCase(option.getDescription());
+            }
+        }
+    }
+
+    private final SessionEngine engine;
+    private final int capacity;
+    private volatile Throwable failure;
+
+    /**
+     * Summary of one processed file.
+     */
+    public static final class Result {
+        private final long lines;
+        private final long orders;
+        private final long rejected;
+        private final long outOfStock;
+        private final long total;
+        private final long elapsedNanos;
+
+        /**
+         * Constructs a summary of a processed file.
+         *
+         * @param lines        the number of purchase lines read
+         * @param orders       the number of orders checked out
+         * @param rejected     the number of lines that could not be priced
+         * @param outOfStock   the number of lines left out for lack of stock
+         * @param total        the total of every order in cents
+         * @param elapsedNanos the time taken to process the file
+         */
+        Result(long lines, long orders, long rejected, long outOfStock, long total, long elapsedNanos) {
+            this.lines = lines;
+            this.orders = orders;
+            this.rejected = rejected;
+            this.outOfStock = outOfStock;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of purchase lines read.
+         *
+         * @return the number of lines
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * Gets the number of orders checked out.
+         *
+         * @return the number of orders
+         */
+        public long getOrders() {
+            return orders;
+        }
+
+        /**
+         * Gets the number of lines that could not be priced.
+         *
+         * @return the number of rejected lines
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Gets the number of lines left out because there was not enough in stock.
+         *
+         * @return the number of lines out of stock
+         */
+        public long getOutOfStock() {
+            return outOfStock;
+        }
+
+        /**
+         * Gets the total of every order.
+         *
+         * @return the total in cents
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the rate at which lines were processed.
+         *
+         * @return the number of lines per second
+         */
+        public double getLinesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    /**
+     * One line of an order on its way through the stages. Each field is written
+     * by one stage and read by the stages after it.
+     */
+    private static final class Slot {
+        private byte[] line = new byte[128];
+        private int length;
+        private final int[] starts = new int[FIELDS];
+        private final int[] ends = new int[FIELDS];
+        private boolean newOrder;
+        private boolean last;
+        private int status;
+
+        /**
+         * True from when the reserve stage reserves the line's stock until the
+         * persist stage puts the line in a cart or gives the stock back.
+         */
+        private boolean held;
+        private BakeryOption option;
+        private BakeryEnum.FrostingOptions frosting;
+        private BakeryEnum.FillingOptions filling;
+        private int quantity;
+        private int layers;
+        private long price;
+    }
+
+    /**
+     * A stage that takes slots from one ring in batches, works on each and passes
+     * them on to the next ring.
+     */
+    private abstract class Stage implements Runnable {
+        private final SpscRing<Slot> in;
+        private final SpscRing<Slot> out;
+
+        /**
+         * Constructs a stage.
+         *
+         * @param in  the ring to take slots from
+         * @param out the ring to pass slots on to
+         */
+        Stage(SpscRing<Slot> in, SpscRing<Slot> out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * Works on one line.
+         *
+         * @param slot the slot holding the line
+         */
+        abstract void process(Slot slot);
+
+        /**
+         * Finishes a batch before its slots are passed on.
+         *
+         * @param last true if the batch ends the input
+         */
+        void endBatch(boolean last) {
+        }
+
+        /**
+         * Runs the stage until the end of the input has passed through it.
+         */
+        @Override
+        public void run() {
+            Slot[] batch = new Slot[in.capacity()];
+            try {
+                boolean last = false;
+                while (!last) {
+                    int count = take(in, batch);
+                    for (int i = 0; i < count; i++) {
+                        if (batch[i].last) {
+                            last = true;
+                        } else {
+                            process(batch[i]);
+                        }
+                    }
+                    endBatch(last);
+                    for (int i = 0; i < count; i++) {
+                        put(out, batch[i]);
+                    }
+                }
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * The last stage, which gathers the lines of each order into a cart, journals
+     * finished orders and counts them once the journal has made them durable.
+     */
+    private final class Persist extends Stage {
+        private final OrderJournal journal = engine.getJournal();
+        private final Inventory inventory = engine.getInventory();
+
+        /**
+         * Carts of the orders finished in this batch, followed by the order being built.
+         */
+        private final CompactCart[] carts;
+        private final long[] sequences;
+        private int finished;
+
+        private long lines;
+        private long orders;
+        private long rejected;
+        private long outOfStock;
+        private long total;
+
+        /**
+         * Constructs the persist stage.
+         *
+         * @param in     the ring to take slots from
+         * @param out    the ring to hand slots back to the first stage on
+         * @param prices the price table the carts are priced with
+         */
+        Persist(SpscRing<Slot> in, SpscRing<Slot> out, PriceTable prices) {
+            super(in, out);
+            carts = new CompactCart[in.capacity() + 1];
+            sequences = new long[carts.length];
+            for (int i = 0; i < carts.length; i++) {
+                carts[i] = new CompactCart(prices);
+            }
+        }
+
+        @Override
+        void process(Slot slot) {
+            lines++;
+            if (slot.newOrder) {
+                finishOrder();
+            }
+            if (slot.status == REJECTED) {
+                rejected++;
+                return;
+            }
+            if (slot.status == OUT_OF_STOCK) {
+                outOfStock++;
+                return;
+            }
+            slot.held = false;
+            CompactCart cart = carts[finished];
+            try {
+                if (slot.layers == 0) {
+                    cart.add(slot.option, slot.quantity, slot.price);
+                } else {
+                    cart.addCake((BakeryEnum.CakeOptions) slot.option, slot.frosting, slot.filling,
+                        slot.layers, slot.quantity, slot.price);
+                }
+            } catch (ArithmeticException e) {
+                release(slot, inventory);
+                rejected++;
+            }
+        }
+
+        /**
+         * Ends the order being built, journaling it if it has any lines.
+         */
+        private void finishOrder() {
+            CompactCart cart = carts[finished];
+            if (cart.isEmpty()) {
+                return;
+            }
+            long id = engine.nextId();
+            if (journal != null) {
+                sequences[finished] = journal.append(id, cart, cart.getTotal());
+            }
+            finished++;
+        }
+
+        @Override
+        void endBatch(boolean last) {
+            if (last) {
+                finishOrder();
+            }
+            if (finished == 0) {
+                return;
+            }
+            if (journal != null) {
+                journal.awaitDurable(sequences[finished - 1]);
+            }
+            for (int i = 0; i < finished; i++) {
+                long orderTotal = carts[i].getTotal();
+                engine.recordDurable(carts[i], orderTotal);
+                total = Money.plus(total, orderTotal);
+                orders++;
+                carts[i].clear();
+            }
+            CompactCart building = carts[finished];
+            carts[finished] = carts[0];
+            carts[0] = building;
+            finished = 0;
+        }
+
+        /**
+         * Gives back the stock of the order being built after a stage failed. The
+         * orders finished before it were written to the journal, which may still
+         * replay them, so they keep their stock.
+         */
+        void releaseUnjournaled() {
+            inventory.release(carts[finished]);
+            carts[finished].clear();
+        }
+    }
+
+    /**
+     * Constructs a pipeline that checks orders out through an engine, reserving
+     * its stock and writing to its journal.
+     *
+     * @param engine   the engine to check out through
+     * @param capacity the number of lines that can be in the pipeline at once
+     */
+    public OrderPipeline(SessionEngine engine, int capacity) {
+        this.engine = engine;
+        this.capacity = Math.max(2, capacity);
+    }
+
+    /**
+     * Processes every order read from a channel.
+     *
+     * @param in the order lines
+     * @return the summary of the run
+     * @throws IOException if the input cannot be read or a stage fails
+     */
+    public Result process(ReadableByteChannel in) throws IOException {
+        long start = System.nanoTime();
+        failure = null;
+        PriceTable prices = PriceTable.current();
+        Inventory inventory = engine.getInventory();
+
+        SpscRing<Slot> free = new SpscRing<>(capacity);
+        SpscRing<Slot> parsed = new SpscRing<>(capacity);
+        SpscRing<Slot> resolved = new SpscRing<>(capacity);
+        SpscRing<Slot> priced = new SpscRing<>(capacity);
+        SpscRing<Slot> reserved = new SpscRing<>(capacity);
+        Slot[] slots = new Slot[free.capacity()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+            free.offer(slots[i]);
+        }
+        Persist persist = new Persist(reserved, free, prices);
+        Thread[] threads = {
+            new Thread(new Stage(parsed, resolved) {
+                @Override
+                void process(Slot slot) {
+                    resolve(slot, prices);
+                }
+            }, "pipeline-resolve"),
+            new Thread(new Stage(resolved, priced) {
+                @Override
+                void process(Slot slot) {
+                    price(slot, prices);
+                }
+            }, "pipeline-price"),
+            new Thread(new Stage(priced, reserved) {
+                @Override
+                void process(Slot slot) {
+                    reserve(slot, inventory);
+                }
+            }, "pipeline-reserve"),
+            new Thread(persist, "pipeline-persist")
+        };
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            parse(in, free, parsed);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                fail(e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (failure != null) {
+            for (Slot slot : slots) {
+                if (slot.held) {
+                    release(slot, inventory);
+                    slot.held = false;
+                }
+            }
+            persist.releaseUnjournaled();
+            throw new IOException("Could not process order lines", failure);
+        }
+        return new Result(persist.lines, persist.orders, persist.rejected, persist.outOfStock,
+            persist.total, System.nanoTime() - start);
+    }
+
+    /**
+     * The first stage, run on the calling thread: reads lines into free slots,
+     * splits them into columns and marks where each order starts.
+     *
+     * @param in     the order lines
+     * @param free   the ring of slots handed back by the last stage
+     * @param parsed the ring to pass parsed lines on to
+     * @throws IOException if the input cannot be read
+     */
+    private void parse(ReadableByteChannel in, SpscRing<Slot> free, SpscRing<Slot> parsed) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BYTES);
+        byte[] bytes = buffer.array();
+        Slot[] spare = new Slot[free.capacity()];
+        int spareCount = 0;
+        int nextSpare = 0;
+        byte[] order = new byte[64];
+        int orderLength = -1;
+        Slot slot = null;
+
+        boolean ended = false;
+        while (!ended) {
+            buffer.clear();
+            ended = in.read(buffer) < 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (slot == null) {
+                    if (nextSpare == spareCount) {
+                        spareCount = take(free, spare);
+                        nextSpare = 0;
+                    }
+                    slot = spare[nextSpare++];
+                    slot.length = 0;
+                }
+                if (bytes[i] != '\n') {
+                    if (slot.length == slot.line.length) {
+                        slot.line = Arrays.copyOf(slot.line, slot.line.length * 2);
+                    }
+                    slot.line[slot.length++] = bytes[i];
+                } else if (!skipped(slot, orderLength < 0) && split(slot)) {
+                    int length = slot.ends[0] - slot.starts[0];
+                    slot.newOrder = orderLength < 0 || !Arrays.equals(order, 0, orderLength,
+                        slot.line, slot.starts[0], slot.ends[0]);
+                    if (slot.newOrder) {
+                        if (length > order.length) {
+                            order = new byte[length * 2];
+                        }
+                        System.arraycopy(slot.line, slot.starts[0], order, 0, length);
+                        orderLength = length;
+                    }
+                    put(parsed, slot);
+                    slot = null;
+                } else {
+                    slot.length = 0;
+                }
+            }
+        }
+        if (slot != null && slot.length > 0 && !skipped(slot, orderLength < 0) && split(slot)) {
+            slot.newOrder = orderLength < 0 || !Arrays.equals(order, 0, orderLength,
+                slot.line, slot.starts[0], slot.ends[0]);
+            put(parsed, slot);
+            slot = null;
+        }
+        if (slot == null) {
+            if (nextSpare == spareCount) {
+                spareCount = take(free, spare);
+                nextSpare = 0;
+            }
+            slot = spare[nextSpare++];
+        }
+        slot.last = true;
+        put(parsed, slot);
+    }
+
+    /**
+     * Checks whether a line is one {@code BatchOrders} skips: a comment, or the
+     * header naming the columns before the first purchase line.
+     *
+     * @param slot  the slot holding the line
+     * @param first true if no purchase line has been read yet
+     * @return true if the line is to be skipped
+     */
+    private static boolean skipped(Slot slot, boolean first) {
+        if (slot.length > 0 && slot.line[0] == '#') {
+            return true;
+        }
+        if (!first || slot.length < HEADER.length) {
+            return false;
+        }
+        return Arrays.equals(slot.line, 0, HEADER.length, HEADER, 0, HEADER.length);
+    }
+
+    /**
+     * Splits the line in a slot into trimmed columns, the last column taking the
+     * rest of the line. Missing columns are left empty.
+     *
+     * @param slot the slot holding the line
+     * @return false if the line is blank
+     */
+    private static boolean split(Slot slot) {
+        byte[] line = slot.line;
+        int end = slot.length;
+        if (end > 0 && line[end - 1] == '\r') {
+            end--;
+        }
+        int from = 0;
+        for (int field = 0; field < FIELDS; field++) {
+            int to = from;
+            if (field < FIELDS - 1) {
+                while (to < end && line[to] != ',') {
+                    to++;
+                }
+            } else {
+                to = Math.max(from, end);
+            }
+            int first = Math.min(from, end);
+            int last = Math.min(to, end);
+            while (first < last && line[first] <= ' ') {
+                first++;
+            }
+            while (last > first && line[last - 1] <= ' ') {
+                last--;
+            }
+            slot.starts[field] = first;
+            slot.ends[field] = last;
+            from = to + 1;
+        }
+        slot.last = false;
+        slot.status = ACCEPTED;
+        return slot.ends[0] > slot.starts[0] || slot.ends[1] > slot.starts[1];
+    }
+
+    /**
+     * The resolve stage: finds the category and options a line names and reads its counts.
+     *
+     * @param slot   the slot holding the line
+     * @param prices the price table, for what is on sale
+     */
+    private static void resolve(Slot slot, PriceTable prices) {
+        slot.status = REJECTED;
+        BakeryEnum category = category(slot, 1);
+        if (category == null || category == BakeryEnum.FROSTING || category == BakeryEnum.FILLING) {
+            return;
+        }
+        BakeryOption option = option(category, slot, 2);
+        int quantity = count(slot, 3);
+        if (option == null || quantity <= 0 || !prices.isOffered(option)) {
+            return;
+        }
+        slot.option = option;
+        slot.quantity = quantity;
+        slot.layers = 0;
+        if (category == BakeryEnum.CAKE) {
+            int layers = count(slot, 4);
+            BakeryOption frosting = option(BakeryEnum.FROSTING, slot, 5);
+            BakeryOption filling = option(BakeryEnum.FILLING, slot, 6);
+            if (layers <= 0 || frosting == null || filling == null
+                || !prices.isOffered(frosting) || !prices.isOffered(filling)) {
+                return;
+            }
+            slot.layers = layers;
+            slot.frosting = (BakeryEnum.FrostingOptions) frosting;
+            slot.filling = (BakeryEnum.FillingOptions) filling;
+        }
+        slot.status = ACCEPTED;
+    }
+
+    /**
+     * The price stage: prices a resolved line.
+     *
+     * @param slot   the slot holding the line
+     * @param prices the price table
+     */
+    private static void price(Slot slot, PriceTable prices) {
+        if (slot.status != ACCEPTED) {
+            return;
+        }
+        try {
+            slot.price = slot.layers == 0 ? prices.calculatePrice(slot.option, slot.quantity)
+                : prices.cakePrice((BakeryEnum.CakeOptions) slot.option, slot.frosting, slot.filling,
+                    slot.layers, slot.quantity);
+        } catch (ArithmeticException e) {
+            slot.status = REJECTED;
+        }
+    }
+
+    /**
+     * The reserve stage: reserves the stock of a priced line, cakes with their
+     * frosting and filling, all or nothing.
+     *
+     * @param slot      the slot holding the line
+     * @param inventory the stock to reserve from
+     */
+    private static void reserve(Slot slot, Inventory inventory) {
+        if (slot.status != ACCEPTED) {
+            return;
+        }
+        if (!inventory.reserve(slot.option, slot.quantity)) {
+            slot.status = OUT_OF_STOCK;
+            return;
+        }
+        if (slot.layers == 0) {
+            slot.held = true;
+            return;
+        }
+        long portions = (long) slot.layers * slot.quantity;
+        if (!inventory.reserve(slot.frosting, portions)) {
+            inventory.release(slot.option, slot.quantity);
+            slot.status = OUT_OF_STOCK;
+        } else if (!inventory.reserve(slot.filling, portions)) {
+            inventory.release(slot.option, slot.quantity);
+            inventory.release(slot.frosting, portions);
+            slot.status = OUT_OF_STOCK;
+        } else {
+            slot.held = true;
+        }
+    }
+
+    /**
+     * Gives back the stock reserved for a line.
+     *
+     * @param slot      the slot holding the line
+     * @param inventory the stock it was reserved from
+     */
+    private static void release(Slot slot, Inventory inventory) {
+        inventory.release(slot.option, slot.quantity);
+        if (slot.layers > 0) {
+            long portions = (long) slot.layers * slot.quantity;
+            inventory.release(slot.frosting, portions);
+            inventory.release(slot.filling, portions);
+        }
+    }
+
+    /**
+     * Finds the category named by a column, as {@code BakeryEnum.findCategory} does.
+     *
+     * @param slot  the slot holding the line
+     * @param field the column
+     * @return the category, or {@code null} if there is none
+     */
+    private static BakeryEnum category(Slot slot, int field) {
+        if (matches(BREAD, slot, field)) {
+            return BakeryEnum.BREADLOAF;
+        }
+        for (BakeryEnum category : CATEGORIES) {
+            if (matches(CATEGORY_NAMES[category.ordinal()], slot, field)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the option of a category whose description a column names, ignoring case.
+     * Only a column that names no option exactly is decoded, to be resolved by
+     * {@code OptionMatcher} as a prefix or near spelling.
+     *
+     * @param category the category
+     * @param slot     the slot holding the line
+     * @param field    the column
+     * @return the option, or {@code null} if there is none or it is ambiguous
+     */
+    private static BakeryOption option(BakeryEnum category, Slot slot, int field) {
+        for (int i = 0; i < category.getOptionCount(); i++) {
+            if (matches(NAMES[category.getOffset() + i], slot, field)) {
+                return category.getOption(i);
+            }
+        }
+        int start = slot.starts[field];
+        return OptionMatcher.resolve(category,
+            new String(slot.line, start, slot.ends[field] - start, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks whether a column matches a lower case name, ignoring the case of ASCII letters.
+     *
+     * @param name  the lower case name
+     * @param slot  the slot holding the line
+     * @param field the column
+     * @return true if they match
+     */
+    private static boolean matches(byte[] name, Slot slot, int field) {
+        int start = slot.starts[field];
+        if (slot.ends[field] - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            byte b = slot.line[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a count from a column.
+     *
+     * @param slot  the slot holding the line
+     * @param field the column
+     * @return the count, or -1 if the column is not a count
+     */
+    private static int count(Slot slot, int field) {
+        int start = slot.starts[field];
+        int end = slot.ends[field];
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = slot.line[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Takes the slots waiting on a ring, waiting until there is at least one.
+     *
+     * @param ring  the ring
+     * @param batch the array to take the slots into
+     * @return the number of slots taken
+     * @throws IllegalStateException if another stage has failed
+     */
+    private int take(SpscRing<Slot> ring, Slot[] batch) {
+        int count;
+        for (int round = 0; (count = ring.drain(batch)) == 0; round++) {
+            idle(round);
+        }
+        return count;
+    }
+
+    /**
+     * Passes a slot on to a ring, waiting while the ring is full.
+     *
+     * @param ring the ring
+     * @param slot the slot
+     * @throws IllegalStateException if another stage has failed
+     */
+    private void put(SpscRing<Slot> ring, Slot slot) {
+        for (int round = 0; !ring.offer(slot); round++) {
+            idle(round);
+        }
+    }
+
+    /**
+     * Waits a little for another stage: spinning at first, then yielding, then sleeping.
+     *
+     * @param round how many times this wait has already gone round
+     * @throws IllegalStateException if a stage has failed
+     */
+    private void idle(int round) {
+        if (failure != null) {
+            throw new IllegalStateException("Another stage failed");
+        }
+        if (round < 100) {
+            Thread.onSpinWait();
+        } else if (round < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * Records the first failure of any stage, which stops the others.
+     *
+     * @param e the failure
+     */
+    private synchronized void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Encodes a name in lower case as UTF-8.
+     *
+     * @param name the name
+     * @return the encoded bytes
+     */
+    private static byte[] lowerCase(String name) {
+        return name.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Main method that checks out every order of an order file through the pipeline.
+     * Set the {@code bakery.journal} system property to a directory to journal the orders there.
+     * Usage: {@code OrderPipeline <order file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OrderPipeline <order file>");
+            System.exit(2);
+        }
+        String journalDirectory = System.getProperty("bakery.journal");
+        try (OrderJournal journal = journalDirectory == null ? null : OrderJournal.open(Paths.get(journalDirectory));
+            SessionEngine engine = new SessionEngine(journal);
+            FileChannel in = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ)) {
+
+            Result result = new OrderPipeline(engine, 1024).process(in);
+            System.out.printf("%d lines, %d orders, %d rejected, %d out of stock, total $%s, %.0f lines/sec%n",
+                result.getLines(), result.getOrders(), result.getRejected(), result.getOutOfStock(),
+                Money.format(result.getTotal()), result.getLinesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,605 @@
+package bakery;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the ordering flows of the console as a small HTTP/JSON API, so online
+ * and kiosk clients can order without the console loop. Requests are handled on
+ * an executor from {@code VirtualThreads} and work on sessions of a shared
+ * {@code SessionEngine}; a session is locked while a request uses it, so requests
+ * racing on one session take turns.
+ *
+ * <pre>
+ * POST   /sessions                      opens a session: {"session":1}
+ * GET    /sessions/{id}                 the cart, its discount and its total
+ * POST   /sessions/{id}/bread           {"option":"White Bread","quantity":2}
+ *        (also pastry, cookie and pie)
+ * POST   /sessions/{id}/cake            {"cake":"Carrot Cake","frosting":"Lemon Frosting",
+ *                                        "filling":"Caramel","layers":3,"quantity":1}
+ * POST   /sessions/{id}/checkout        confirms the purchase: {"session":1,"total":75.44}
+ * DELETE /sessions/{id}                 cancels the purchase
+ * GET    /metrics                       step latencies for Prometheus
+ * </pre>
+ *
+ * Prices are written in dollars. Bad input is answered with 400, unknown sessions
+ * with 404 and items that are out of stock with 409, each with an {@code error} message.
+ * A checkout the journal refuses is answered with 503 and leaves the session open
+ * to try again. One written to the journal but not confirmed durable is answered
+ * with 500 and closes the session, since retrying it would journal it twice.
+ * A session left unused for longer than the {@code bakery.session.timeout} system
+ * property, in milliseconds and 15 minutes by default, is cancelled and its stock
+ * given back.
+ */
+public class OrderServer implements AutoCloseable {
+
+    private static final String SESSIONS = "/sessions";
+
+    /**
+     * How long a session may go unused before it is cancelled, in nanoseconds.
+     */
+    static final long SESSION_TIMEOUT_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("bakery.session.timeout", 15 * 60 * 1000));
+
+    static {
+        // Without TCP_NODELAY the response headers and body wait on delayed
+        // acknowledgements, adding about 40 ms to every request.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final SessionEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a server for the given engine bound to an address. The server
+     * does not accept requests until it is started.
+     *
+     * @param engine  the engine hosting the sessions
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public OrderServer(SessionEngine engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = VirtualThreads.newExecutor();
+        server.createContext(SESSIONS, exchange -> serve(exchange, engine,
+            exchange.getRequestURI().getPath().substring(SESSIONS.length())));
+        server.createContext("/metrics", OrderServer::metrics);
+        server.setExecutor(executor);
+        this.sweeper = expireIdle(() -> List.of(engine));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and stops the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Starts a daemon thread that cancels the sessions of some engines once they
+     * have gone unused for longer than the session timeout.
+     *
+     * @param engines the engines to sweep, asked for again on every sweep
+     * @return the sweeper, to shut down when the engines are no longer served
+     */
+    static ScheduledExecutorService expireIdle(Supplier<? extends Collection<SessionEngine>> engines) {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, SESSION_TIMEOUT_NANOS / 4);
+        sweeper.scheduleWithFixedDelay(() -> engines.get().forEach(engine -> engine.expireIdle(SESSION_TIMEOUT_NANOS)),
+            period, period, TimeUnit.NANOSECONDS);
+        return sweeper;
+    }
+
+    /**
+     * Routes one session request to an engine and writes its response.
+     *
+     * @param exchange the request and response
+     * @param engine   the engine hosting the sessions
+     * @param resource the path of the request after {@code /sessions}
+     * @throws IOException if the response cannot be written
+     */
+    static void serve(HttpExchange exchange, SessionEngine engine, String resource) throws IOException {
+        try {
+            if (!resource.isEmpty() && resource.charAt(0) != '/') {
+                respond(exchange, 404, error("No such resource"));
+                return;
+            }
+            String[] path = resource.split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length <= 1) {
+                if (!method.equals("POST")) {
+                    respond(exchange, 405, error("Use POST to open a session"));
+                    return;
+                }
+                respond(exchange, 201, "{\"session\":" + engine.open().getId() + "}");
+                return;
+            }
+
+            BakerySession session = engine.get(parseId(path[1]));
+            if (session == null) {
+                respond(exchange, 404, error("No open session " + path[1]));
+                return;
+            }
+            synchronized (session) {
+                if (engine.get(session.getId()) != session) {
+                    respond(exchange, 404, error("No open session " + path[1]));
+                    return;
+                }
+                session.markActive();
+                if (path.length == 2 && method.equals("GET")) {
+                    respond(exchange, 200, cart(session));
+                } else if (path.length == 2 && method.equals("DELETE")) {
+                    session.cancel();
+                    respond(exchange, 204, null);
+                } else if (path.length == 3 && method.equals("POST") && path[2].equals("checkout")) {
+                    checkOut(exchange, engine, session);
+                } else if (path.length == 3 && method.equals("POST")) {
+                    add(exchange, session, path[2]);
+                } else {
+                    respond(exchange, 404, error("No such resource"));
+                }
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (UncheckedIOException | IllegalStateException e) {
+            respond(exchange, 503, error(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Checks a session out and writes the total, or why the journal could not take it.
+     *
+     * @param exchange the request and response
+     * @param engine   the engine hosting the session
+     * @param session  the session, locked by the caller
+     * @throws IOException if the response cannot be written
+     */
+    private static void checkOut(HttpExchange exchange, SessionEngine engine, BakerySession session)
+        throws IOException {
+
+        long total;
+        try {
+            total = session.checkOut();
+        } catch (UncheckedIOException | IllegalStateException e) {
+            if (engine.get(session.getId()) == session) {
+                respond(exchange, 503, error("The order journal is unavailable, nothing was charged: "
+                    + e.getMessage()));
+            } else {
+                respond(exchange, 500, error("The checkout was written but could not be confirmed,"
+                    + " do not retry it: " + e.getMessage()));
+            }
+            return;
+        }
+        StringBuilder json = new StringBuilder("{\"session\":").append(session.getId()).append(",\"total\":");
+        Money.appendTo(json, total).append('}');
+        respond(exchange, 200, json.toString());
+    }
+
+    /**
+     * Writes the step latencies in the Prometheus text exposition format.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be written
+     */
+    static void metrics(HttpExchange exchange) throws IOException {
+        try {
+            StringBuilder text = new StringBuilder(2048);
+            Metrics.writeTo(text);
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Adds the item described by the request body to a session's cart.
+     *
+     * @param exchange the request and response
+     * @param session  the session to add to
+     * @param kind     the kind of item, such as "bread" or "cake"
+     * @throws IOException if the request cannot be read or the response cannot be written
+     */
+    private static void add(HttpExchange exchange, BakerySession session, String kind) throws IOException {
+        BakeryEnum category = BakeryEnum.findCategory(kind);
+        if (category == null || category == BakeryEnum.FROSTING || category == BakeryEnum.FILLING) {
+            respond(exchange, 404, error("Nothing called " + kind + " is sold"));
+            return;
+        }
+        Map<String, String> body = parseObject(readBody(exchange.getRequestBody()));
+        int quantity = count(body, "quantity");
+
+        int line;
+        if (category == BakeryEnum.CAKE) {
+            line = session.addCake((BakeryEnum.CakeOptions) option(category, body, "cake"),
+                (BakeryEnum.FrostingOptions) option(BakeryEnum.FROSTING, body, "frosting"),
+                (BakeryEnum.FillingOptions) option(BakeryEnum.FILLING, body, "filling"),
+                count(body, "layers"), quantity);
+        } else {
+            BakeryOption option = option(category, body, "option");
+            switch (category) {
+                case BREADLOAF:
+                    line = session.addBread((BakeryEnum.BreadOptions) option, quantity);
+                    break;
+                case PASTRY:
+                    line = session.addPastry((BakeryEnum.PastryOptions) option, quantity);
+                    break;
+                case COOKIE:
+                    line = session.addCookie((BakeryEnum.CookieOptions) option, quantity);
+                    break;
+                default:
+                    line = session.addPie((BakeryEnum.PieOptions) option, quantity);
+                    break;
+            }
+        }
+        if (line == BakerySession.OUT_OF_STOCK) {
+            respond(exchange, 409, error("Not enough in stock"));
+            return;
+        }
+
+        StringBuilder json = new StringBuilder("{\"line\":").append(line).append(",\"price\":");
+        Money.appendTo(json, session.getShoppingCart().getPrice(line)).append(",\"total\":");
+        Money.appendTo(json, session.getCollectedPrice()).append('}');
+        respond(exchange, 200, json.toString());
+    }
+
+    /**
+     * Renders the cart of a session.
+     *
+     * @param session the session
+     * @return the cart as JSON
+     */
+    private static String cart(BakerySession session) {
+        CompactCart cart = session.getShoppingCart();
+        StringBuilder json = new StringBuilder("{\"session\":").append(session.getId()).append(",\"lines\":[");
+        for (int line = 0; line < cart.size(); line++) {
+            if (line > 0) {
+                json.append(',');
+            }
+            json.append("{\"category\":\"").append(cart.getCategory(line)).append("\",\"option\":");
+            appendString(json, cart.getOption(line).getDescription());
+            json.append(",\"quantity\":").append(cart.getQuantity(line));
+            if (cart.getCategory(line) == BakeryEnum.CAKE) {
+                json.append(",\"layers\":").append(cart.getLayers(line)).append(",\"frosting\":");
+                appendString(json, cart.getFrosting(line).getDescription());
+                json.append(",\"filling\":");
+                appendString(json, cart.getFilling(line).getDescription());
+            }
+            json.append(",\"price\":");
+            Money.appendTo(json, cart.getPrice(line)).append('}');
+        }
+        json.append("],\"discount\":");
+        Money.appendTo(json, cart.getDiscount()).append(",\"total\":");
+        return Money.appendTo(json, cart.getTotal()).append('}').toString();
+    }
+
+    /**
+     * Looks up the option named by a field of the request body.
+     *
+     * @param category the category of the option
+     * @param body     the fields of the request body
+     * @param field    the name of the field
+     * @return the option
+     * @throws IllegalArgumentException if the field does not name an option of the category
+     */
+    private static BakeryOption option(BakeryEnum category, Map<String, String> body, String field) {
+        String description = body.get(field);
+        BakeryOption option = description == null ? null : OptionIndex.find(category, description);
+        if (option == null) {
+            throw new IllegalArgumentException("Unknown " + field + ": " + description
+                + OptionMatcher.suggest(category, description, " (did you mean ", "?)"));
+        }
+        return option;
+    }
+
+    /**
+     * Reads a positive count from a field of the request body.
+     *
+     * @param body  the fields of the request body
+     * @param field the name of the field
+     * @return the count
+     * @throws IllegalArgumentException if the field is not a positive count
+     */
+    private static int count(Map<String, String> body, String field) {
+        String text = body.get(field);
+        int count = text == null ? -1 : BatchOrders.parseCount(text);
+        if (count <= 0) {
+            throw new IllegalArgumentException("The " + field + " must be a positive whole number");
+        }
+        return count;
+    }
+
+    /**
+     * Parses a session identifier from the path.
+     *
+     * @param text the path segment
+     * @return the session identifier
+     * @throws IllegalArgumentException if the segment is not an identifier
+     */
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a session: " + text);
+        }
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings, numbers, booleans or null.
+     * Values are returned as text; null values are left out.
+     *
+     * @param json the JSON text
+     * @return the fields of the object
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] at = {skipSpace(json, 0)};
+        expect(json, at, '{');
+        if (peek(json, at) == '}') {
+            at[0]++;
+            return fields;
+        }
+        while (true) {
+            String name = parseString(json, at);
+            expect(json, at, ':');
+            String value;
+            if (peek(json, at) == '"') {
+                value = parseString(json, at);
+            } else {
+                int start = at[0];
+                while (at[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(at[0])) < 0) {
+                    at[0]++;
+                }
+                value = json.substring(start, at[0]);
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                if (value.equals("null")) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                fields.put(name, value);
+            }
+            char next = peek(json, at);
+            at[0]++;
+            if (next == '}') {
+                return fields;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Expected , or } in the request body");
+            }
+        }
+    }
+
+    /**
+     * Parses a JSON string starting at the current position.
+     *
+     * @param json the JSON text
+     * @param at   the current position, advanced past the string
+     * @return the unescaped string
+     */
+    private static String parseString(String json, int[] at) {
+        expect(json, at, '"');
+        StringBuilder text = new StringBuilder();
+        int i = at[0];
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                at[0] = i;
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                break;
+            }
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 > json.length()) {
+                        throw new IllegalArgumentException("Bad escape in the request body");
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Bad escape in the request body");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    text.append(escaped);
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string in the request body");
+    }
+
+    /**
+     * Skips white space and consumes an expected character.
+     *
+     * @param json     the JSON text
+     * @param at       the current position, advanced past the character
+     * @param expected the character that must come next
+     */
+    private static void expect(String json, int[] at, char expected) {
+        if (peek(json, at) != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " in the request body");
+        }
+        at[0]++;
+    }
+
+    /**
+     * Skips white space and returns the next character without consuming it.
+     *
+     * @param json the JSON text
+     * @param at   the current position, advanced past any white space
+     * @return the next character, or 0 at the end of the text
+     */
+    private static char peek(String json, int[] at) {
+        at[0] = skipSpace(json, at[0]);
+        return at[0] < json.length() ? json.charAt(at[0]) : 0;
+    }
+
+    /**
+     * Finds the first character at or after a position that is not white space.
+     *
+     * @param json the JSON text
+     * @param from the position to start at
+     * @return the position of the next character that is not white space
+     */
+    private static int skipSpace(String json, int from) {
+        while (from < json.length() && Character.isWhitespace(json.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Appends a string as a quoted JSON string.
+     *
+     * @param json the JSON being built
+     * @param text the string to append
+     */
+    static void appendString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Renders an error message.
+     *
+     * @param message the message
+     * @return the error as JSON
+     */
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message == null ? "Bad request" : message);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Reads a whole request body.
+     *
+     * @param in the request body
+     * @return the body as text
+     * @throws IOException if the body cannot be read
+     */
+    private static String readBody(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a response. Whatever is left of the request body is read first: the
+     * server otherwise drops the connection after an empty response, such as the
+     * 204 of a cancel, and the client's next request on it fails.
+     *
+     * @param exchange the request and response
+     * @param status   the HTTP status
+     * @param json     the response body, or {@code null} for none
+     * @throws IOException if the response cannot be written
+     */
+    static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Main method that serves the ordering API until the process is stopped.
+     * Usage: {@code OrderServer [port]}
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        SessionEngine engine = new SessionEngine();
+        OrderServer server = new OrderServer(engine, new InetSocketAddress(port));
+        server.start();
+        System.err.println("Serving orders on port " + server.getPort());
+    }
+}
@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Represents a specific type of bakery item: a pastry.
  * This class extends the general {@code BakeryItem} class to include details
@@ -8,13 +10,26 @@ public class Pastry extends BakeryItem {
     private BakeryEnum.PastryOptions typeOfItem;
 
     /**
-     * Constructs a new {@code Pastry} object with the specified type and quantity.
+     * Constructs a new {@code Pastry} object with the specified type and quantity,
+     * priced with the current price table.
      *
      * @param typeOfItem the specific type of pastry as defined in {@code BakeryEnum.PastryOptions}
      * @param quantity   the number of pastries being purchased
      */
     public Pastry(BakeryEnum.PastryOptions typeOfItem, int quantity) {
-        super(BakeryEnum.PASTRY, quantity);
+        this(typeOfItem, quantity, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code Pastry} object with the specified type and quantity,
+     * priced with the given price table.
+     *
+     * @param typeOfItem the specific type of pastry as defined in {@code BakeryEnum.PastryOptions}
+     * @param quantity   the number of pastries being purchased
+     * @param prices     the price table the pastry is priced with
+     */
+    public Pastry(BakeryEnum.PastryOptions typeOfItem, int quantity, PriceTable prices) {
+        super(BakeryEnum.PASTRY, quantity, prices);
         this.typeOfItem = typeOfItem;
     }
 
@@ -41,10 +56,10 @@ public class Pastry extends BakeryItem {
      * The total price is determined by multiplying the unit price of the pastry type
      * by the quantity purchased.
      *
-     * @return the total price for this pastry purchase
+     * @return the total price for this pastry purchase in cents
      */
-    public double calculateTotalPrice() {
-        return typeOfItem.getValue() * getQuantity();
+    public long calculateTotalPrice() {
+        return prices.calculatePrice(typeOfItem, getQuantity());
     }
 
     /**
@@ -1,3 +1,5 @@
+package bakery;
+
 /**
  * Represents a specific type of bakery item: a pie.
  * This class extends the general {@code BakeryItem} class to include details
@@ -8,13 +10,26 @@ public class Pie extends BakeryItem {
     private BakeryEnum.PieOptions typeOfItem;
 
     /**
-     * Constructs a new {@code Pie} object with the specified type and quantity.
+     * Constructs a new {@code Pie} object with the specified type and quantity,
+     * priced with the current price table.
      *
      * @param typeOfItem the specific type of pie as defined in {@code BakeryEnum.PieOptions}
      * @param quantity   the number of pies being purchased
      */
     public Pie(BakeryEnum.PieOptions typeOfItem, int quantity) {
-        super(BakeryEnum.PIE, quantity);
+        this(typeOfItem, quantity, PriceTable.current());
+    }
+
+    /**
+     * Constructs a new {@code Pie} object with the specified type and quantity,
+     * priced with the given price table.
+     *
+     * @param typeOfItem the specific type of pie as defined in {@code BakeryEnum.PieOptions}
+     * @param quantity   the number of pies being purchased
+     * @param prices     the price table the pie is priced with
+     */
+    public Pie(BakeryEnum.PieOptions typeOfItem, int quantity, PriceTable prices) {
+        super(BakeryEnum.PIE, quantity, prices);
         this.typeOfItem = typeOfItem;
     }
 
@@ -41,10 +56,10 @@ public class Pie extends BakeryItem {
      * The total price is determined by multiplying the unit price of the pie type
      * by the quantity purchased.
      *
-     * @return the total price for this pie purchase
+     * @return the total price for this pie purchase in cents
      */
-    public double calculateTotalPrice() {
-        return typeOfItem.getValue() * getQuantity();
+    public long calculateTotalPrice() {
+        return prices.calculatePrice(typeOfItem, getQuantity());
     }
 
     /**
@@ -0,0 +1,294 @@
+package bakery;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable snapshot of the price of every bakery option in cents, stored in one flat array
+ * indexed by {@link BakeryOption#index()}. The current table is read without locking
+ * and replaced as a whole with a single atomic swap, so a session that started with
+ * one version keeps pricing against it while administrators publish the next one.
+ * Each table also holds the price of every cake configuration up to
+ * {@link #CUBE_LAYERS} layers, so pricing a cake is a single array read, the
+ * promotions carts priced with it earn, and which options are on sale.
+ */
+public final class PriceTable {
+
+    /**
+     * Number of layers up to which cake prices are precomputed.
+     */
+    public static final int CUBE_LAYERS = 8;
+
+    private static final int CAKES = BakeryEnum.CAKE.getOptionCount();
+    private static final int FROSTINGS = BakeryEnum.FROSTING.getOptionCount();
+    private static final int FILLINGS = BakeryEnum.FILLING.getOptionCount();
+
+    /**
+     * Marks a cake configuration whose price overflows, so it is computed when asked for.
+     */
+    private static final long OVERFLOW = Long.MIN_VALUE;
+
+    private static final AtomicReference<PriceTable> CURRENT =
+        new AtomicReference<>(listPrices());
+
+    private final long version;
+    private final long[] prices;
+    private final long[] cakeCube;
+    private final boolean[] offered;
+    private final Promotions promotions;
+
+    /**
+     * The console menus rendered with this table, once some session has shown them.
+     */
+    private volatile Menus menus;
+
+    /**
+     * Constructs a price table. The arrays are owned by the table and never changed again.
+     *
+     * @param version    the version of the table
+     * @param prices     the price of every option in cents, indexed by option index
+     * @param offered    whether each option is on sale, indexed by option index
+     * @param promotions the promotions of the table
+     */
+    private PriceTable(long version, long[] prices, boolean[] offered, Promotions promotions) {
+        this.version = version;
+        this.prices = prices;
+        this.cakeCube = buildCakeCube(prices);
+        this.offered = offered;
+        this.promotions = promotions;
+    }
+
+    /**
+     * Prices one cake of every configuration, indexed by cake, frosting, filling
+     * and layers in that order.
+     *
+     * @param prices the price of every option in cents, indexed by option index
+     * @return the price of one cake of each configuration in cents
+     */
+    private static long[] buildCakeCube(long[] prices) {
+        long[] cube = new long[CAKES * FROSTINGS * FILLINGS * CUBE_LAYERS];
+        int cakeOffset = BakeryEnum.CAKE.getOffset();
+        int frostingOffset = BakeryEnum.FROSTING.getOffset();
+        int fillingOffset = BakeryEnum.FILLING.getOffset();
+        int slot = 0;
+        for (int cake = 0; cake < CAKES; cake++) {
+            for (int frosting = 0; frosting < FROSTINGS; frosting++) {
+                for (int filling = 0; filling < FILLINGS; filling++) {
+                    long perLayer;
+                    try {
+                        perLayer = Money.plus(Money.plus(prices[cakeOffset + cake],
+                            prices[frostingOffset + frosting]), prices[fillingOffset + filling]);
+                    } catch (ArithmeticException e) {
+                        perLayer = OVERFLOW;
+                    }
+                    for (int layers = 1; layers <= CUBE_LAYERS; layers++) {
+                        cube[slot++] = perLayer == OVERFLOW ? OVERFLOW : timesOrOverflow(perLayer, layers);
+                    }
+                }
+            }
+        }
+        return cube;
+    }
+
+    /**
+     * Multiplies an amount without throwing.
+     *
+     * @param cents    the amount in cents
+     * @param quantity the quantity to multiply by
+     * @return the product, or {@code OVERFLOW} if it overflows
+     */
+    private static long timesOrOverflow(long cents, int quantity) {
+        try {
+            return Money.times(cents, quantity);
+        } catch (ArithmeticException e) {
+            return OVERFLOW;
+        }
+    }
+
+    /**
+     * Builds the table of list prices the bakery opens with.
+     *
+     * @return the list price table, version 0
+     */
+    public static PriceTable listPrices() {
+        long[] prices = new long[BakeryEnum.optionCount()];
+        for (BakeryEnum category : BakeryEnum.values()) {
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                prices[option.index()] = option.getListPrice();
+            }
+        }
+        boolean[] offered = new boolean[prices.length];
+        Arrays.fill(offered, true);
+        return new PriceTable(0, prices, offered, Promotions.NONE);
+    }
+
+    /**
+     * Gets the price table currently in effect.
+     *
+     * @return the current price table
+     */
+    public static PriceTable current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the given table the current one.
+     *
+     * @param table the table to publish
+     */
+    public static void publish(PriceTable table) {
+        CURRENT.set(table);
+    }
+
+    /**
+     * Makes the replacement table the current one, but only if the current
+     * table is still the expected one.
+     *
+     * @param expected    the table the replacement was derived from
+     * @param replacement the table to publish
+     * @return true if the replacement was published, false if another table was published first
+     */
+    public static boolean replace(PriceTable expected, PriceTable replacement) {
+        return CURRENT.compareAndSet(expected, replacement);
+    }
+
+    /**
+     * Gets the version of this table.
+     *
+     * @return the version of the table
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether an option is on sale.
+     *
+     * @param option the option
+     * @return true if the option can be bought
+     */
+    public boolean isOffered(BakeryOption option) {
+        return offered[option.index()];
+    }
+
+    /**
+     * Gets the promotions of this table.
+     *
+     * @return the promotions carts priced with this table earn
+     */
+    public Promotions getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * Gets the console menus rendered with this table.
+     *
+     * @return the rendered menus, or {@code null} if they have not been rendered yet
+     */
+    Menus getMenus() {
+        return menus;
+    }
+
+    /**
+     * Keeps the console menus rendered with this table, so they are rendered once.
+     *
+     * @param menus the rendered menus
+     */
+    void setMenus(Menus menus) {
+        this.menus = menus;
+    }
+
+    /**
+     * Gets the unit price of an option.
+     *
+     * @param option the option to price
+     * @return the unit price of the option in cents
+     */
+    public long price(BakeryOption option) {
+        return prices[option.index()];
+    }
+
+    /**
+     * Calculates the price based on the quantity of an option.
+     *
+     * @param option   the option to price
+     * @param quantity the quantity of the option
+     * @return the total price for the specified quantity in cents
+     * @throws ArithmeticException if the price overflows
+     */
+    public long calculatePrice(BakeryOption option, int quantity) {
+        return Money.times(prices[option.index()], quantity);
+    }
+
+    /**
+     * Calculates the price of cakes, where the cake, frosting and filling are
+     * each charged once per layer. Cakes of up to {@link #CUBE_LAYERS} layers
+     * are priced from the precomputed prices of this table.
+     *
+     * @param cake     the cake option
+     * @param frosting the frosting option
+     * @param filling  the filling option
+     * @param layers   the number of layers in each cake
+     * @param quantity the number of cakes
+     * @return the total price of the cakes in cents
+     * @throws ArithmeticException if the price overflows
+     */
+    public long cakePrice(BakeryEnum.CakeOptions cake, BakeryEnum.FrostingOptions frosting,
+        BakeryEnum.FillingOptions filling, int layers, int quantity) {
+
+        if (layers >= 1 && layers <= CUBE_LAYERS) {
+            long each = cakeCube[((cake.ordinal() * FROSTINGS + frosting.ordinal()) * FILLINGS
+                + filling.ordinal()) * CUBE_LAYERS + layers - 1];
+            if (each != OVERFLOW) {
+                return Money.times(each, quantity);
+            }
+        }
+        long cakePrice = calculatePrice(cake, layers);
+        long frostingPrice = calculatePrice(frosting, layers);
+        long fillingPrice = calculatePrice(filling, layers);
+        return Money.times(Money.plus(Money.plus(cakePrice, frostingPrice), fillingPrice), quantity);
+    }
+
+    /**
+     * Creates the next version of this table with a new price for one option.
+     * The returned table is not in effect until it is published.
+     *
+     * @param option the option to reprice
+     * @param price  the new unit price of the option in cents
+     * @return a new table with the changed price
+     */
+    public PriceTable withPrice(BakeryOption option, long price) {
+        long[] next = prices.clone();
+        next[option.index()] = price;
+        return new PriceTable(version + 1, next, offered, promotions);
+    }
+
+    /**
+     * Creates the next version of this table with a whole new catalogue of prices,
+     * keeping the promotions. The returned table is not in effect until it is published.
+     *
+     * @param prices  the price of every option in cents, indexed by option index
+     * @param offered whether each option is on sale, indexed by option index
+     * @return a new table with the given prices
+     * @throws IllegalArgumentException if an array does not have an entry for every option
+     */
+    public PriceTable withCatalogue(long[] prices, boolean[] offered) {
+        if (prices.length != BakeryEnum.optionCount() || offered.length != BakeryEnum.optionCount()) {
+            throw new IllegalArgumentException("A catalogue needs an entry for each of the "
+                + BakeryEnum.optionCount() + " options");
+        }
+        return new PriceTable(version + 1, prices.clone(), offered.clone(), promotions);
+    }
+
+    /**
+     * Creates the next version of this table with different promotions.
+     * The returned table is not in effect until it is published.
+     *
+     * @param promotions the promotions of the new table
+     * @return a new table with the same prices and the given promotions
+     */
+    public PriceTable withPromotions(Promotions promotions) {
+        return new PriceTable(version + 1, prices, offered, promotions);
+    }
+}
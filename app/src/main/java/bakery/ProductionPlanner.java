@@ -0,0 +1,495 @@
+package bakery;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Works out what to bake from a day of confirmed checkouts in the order journal:
+ * loaves of each bread, layers of each cake, portions of each frosting and filling
+ * (one per layer, as cakes are built), and pastries, cookies and pies. The lines are
+ * read into flat arrays and added up by a fork/join reduction, where each task totals
+ * a range of lines into an array indexed by option and the halves are summed as
+ * they join. The totals are then packed into oven batches: every full batch of one
+ * option on its own, and the rest of each category packed first fit decreasing into
+ * shared batches. Frostings and fillings are made to order and not baked.
+ */
+public class ProductionPlanner {
+
+    /**
+     * Number of lines a task totals itself instead of splitting further.
+     */
+    private static final int LEAF_LINES = 1 << 16;
+
+    private static final BakeryEnum[] BAKED = {
+        BakeryEnum.BREADLOAF, BakeryEnum.CAKE, BakeryEnum.PASTRY, BakeryEnum.COOKIE, BakeryEnum.PIE
+    };
+
+    private static final int NONE = -1;
+
+    private final int[] capacities = new int[BakeryEnum.values().length];
+    private final ForkJoinPool pool;
+
+    /**
+     * A number of identical oven batches.
+     */
+    public static final class Batch {
+        private final BakeryEnum category;
+        private final BakeryOption[] options;
+        private final long[] units;
+        private final long count;
+
+        /**
+         * Constructs identical batches.
+         *
+         * @param category the category baked
+         * @param options  the options in each batch
+         * @param units    the units of each option in each batch
+         * @param count    the number of batches
+         */
+        Batch(BakeryEnum category, BakeryOption[] options, long[] units, long count) {
+            this.category = category;
+            this.options = options;
+            this.units = units;
+            this.count = count;
+        }
+
+        /**
+         * Gets the category baked.
+         *
+         * @return the category of the batch
+         */
+        public BakeryEnum getCategory() {
+            return category;
+        }
+
+        /**
+         * Gets the number of different options in each batch.
+         *
+         * @return the number of options
+         */
+        public int getOptionCount() {
+            return options.length;
+        }
+
+        /**
+         * Gets an option in the batch.
+         *
+         * @param i the position of the option in the batch
+         * @return the option
+         */
+        public BakeryOption getOption(int i) {
+            return options[i];
+        }
+
+        /**
+         * Gets the units of an option in each batch.
+         *
+         * @param i the position of the option in the batch
+         * @return the units, such as loaves or cake layers
+         */
+        public long getUnits(int i) {
+            return units[i];
+        }
+
+        /**
+         * Gets the number of identical batches.
+         *
+         * @return the number of batches
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Describes the batch, such as {@code 3 x [24 White Bread]}.
+         *
+         * @return the description of the batch
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append(count).append(" x [");
+            for (int i = 0; i < options.length; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(units[i]).append(' ').append(options[i].getDescription());
+            }
+            return text.append(']').toString();
+        }
+    }
+
+    /**
+     * What to bake and make, and the oven batches to bake it in.
+     */
+    public static final class Plan {
+        private final long[] units;
+        private final List<Batch> batches;
+        private final long checkouts;
+        private final int lines;
+
+        /**
+         * Constructs a plan.
+         *
+         * @param units     the units of every option, indexed by option index
+         * @param batches   the oven batches
+         * @param checkouts the number of checkouts planned for
+         * @param lines     the number of cart lines planned for
+         */
+        Plan(long[] units, List<Batch> batches, long checkouts, int lines) {
+            this.units = units;
+            this.batches = Collections.unmodifiableList(batches);
+            this.checkouts = checkouts;
+            this.lines = lines;
+        }
+
+        /**
+         * Gets the units of an option to produce: loaves, cake layers, frosting and
+         * filling portions, or pieces of everything else.
+         *
+         * @param option the option
+         * @return the number of units
+         */
+        public long getUnits(BakeryOption option) {
+            return units[option.index()];
+        }
+
+        /**
+         * Gets the units of every option of a category to produce.
+         *
+         * @param category the category
+         * @return the number of units
+         */
+        public long getUnits(BakeryEnum category) {
+            long total = 0;
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                total += units[category.getOffset() + i];
+            }
+            return total;
+        }
+
+        /**
+         * Gets the oven batches, grouped by category.
+         *
+         * @return the batches
+         */
+        public List<Batch> getBatches() {
+            return batches;
+        }
+
+        /**
+         * Gets the number of checkouts planned for.
+         *
+         * @return the number of checkouts
+         */
+        public long getCheckouts() {
+            return checkouts;
+        }
+
+        /**
+         * Gets the number of cart lines planned for.
+         *
+         * @return the number of lines
+         */
+        public int getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * Cart lines of many checkouts in parallel arrays.
+     */
+    static final class Lines {
+        private int size;
+        private long checkouts;
+        private int[] options = new int[1024];
+        private int[] quantities = new int[1024];
+        private int[] layers = new int[1024];
+        private int[] frostings = new int[1024];
+        private int[] fillings = new int[1024];
+
+        /**
+         * Adds every line of a checkout.
+         *
+         * @param record the checkout
+         */
+        void add(JournalRecord record) {
+            checkouts++;
+            for (int line = 0; line < record.getLineCount(); line++) {
+                if (size == options.length) {
+                    grow();
+                }
+                options[size] = record.getOption(line).index();
+                quantities[size] = record.getQuantity(line);
+                if (record.getCategory(line) == BakeryEnum.CAKE) {
+                    layers[size] = record.getLayers(line);
+                    frostings[size] = record.getFrosting(line).index();
+                    fillings[size] = record.getFilling(line).index();
+                } else {
+                    layers[size] = 0;
+                    frostings[size] = NONE;
+                    fillings[size] = NONE;
+                }
+                size++;
+            }
+        }
+
+        /**
+         * Doubles the capacity of every array.
+         */
+        private void grow() {
+            int capacity = options.length * 2;
+            options = Arrays.copyOf(options, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            layers = Arrays.copyOf(layers, capacity);
+            frostings = Arrays.copyOf(frostings, capacity);
+            fillings = Arrays.copyOf(fillings, capacity);
+        }
+    }
+
+    /**
+     * Totals the units of a range of lines, splitting the range in two while it is large.
+     */
+    private static final class Total extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Lines lines;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a task for a range of lines.
+         *
+         * @param lines the lines
+         * @param from  the first line of the range
+         * @param to    the line after the range
+         */
+        Total(Lines lines, int from, int to) {
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Totals the range.
+         *
+         * @return the units of every option in the range, indexed by option index
+         */
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_LINES) {
+                return totalRange();
+            }
+            int middle = (from + to) >>> 1;
+            Total right = new Total(lines, middle, to);
+            right.fork();
+            long[] units = new Total(lines, from, middle).compute();
+            long[] other = right.join();
+            for (int i = 0; i < units.length; i++) {
+                units[i] += other[i];
+            }
+            return units;
+        }
+
+        /**
+         * Totals the range line by line.
+         *
+         * @return the units of every option in the range, indexed by option index
+         */
+        private long[] totalRange() {
+            long[] units = new long[BakeryEnum.optionCount()];
+            int[] options = lines.options;
+            int[] quantities = lines.quantities;
+            int[] layers = lines.layers;
+            for (int i = from; i < to; i++) {
+                if (layers[i] == 0) {
+                    units[options[i]] += quantities[i];
+                } else {
+                    long portions = (long) layers[i] * quantities[i];
+                    units[options[i]] += portions;
+                    units[lines.frostings[i]] += portions;
+                    units[lines.fillings[i]] += portions;
+                }
+            }
+            return units;
+        }
+    }
+
+    /**
+     * Constructs a planner with the oven capacity of each baked category, on the common pool.
+     *
+     * @param capacities the units of each category that fit in one batch
+     * @throws IllegalArgumentException if a baked category has no positive capacity
+     */
+    public ProductionPlanner(Map<BakeryEnum, Integer> capacities) {
+        this(capacities, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a planner with the oven capacity of each baked category.
+     *
+     * @param capacities the units of each category that fit in one batch
+     * @param pool       the pool to total the lines on
+     * @throws IllegalArgumentException if a baked category has no positive capacity
+     */
+    public ProductionPlanner(Map<BakeryEnum, Integer> capacities, ForkJoinPool pool) {
+        for (BakeryEnum category : BAKED) {
+            int capacity = capacities.getOrDefault(category, 0);
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("No oven capacity for: " + category);
+            }
+            this.capacities[category.ordinal()] = capacity;
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the oven capacities the bakery plans with unless told otherwise.
+     *
+     * @return the units of each baked category that fit in one batch
+     */
+    public static Map<BakeryEnum, Integer> defaultCapacities() {
+        Map<BakeryEnum, Integer> capacities = new EnumMap<>(BakeryEnum.class);
+        capacities.put(BakeryEnum.BREADLOAF, 24);
+        capacities.put(BakeryEnum.CAKE, 16);
+        capacities.put(BakeryEnum.PASTRY, 48);
+        capacities.put(BakeryEnum.COOKIE, 96);
+        capacities.put(BakeryEnum.PIE, 12);
+        return capacities;
+    }
+
+    /**
+     * Plans for the checkouts of a journal confirmed within a time range.
+     *
+     * @param directory  the journal directory
+     * @param fromMillis the start of the range in milliseconds since the epoch
+     * @param toMillis   the end of the range, exclusive
+     * @return the plan
+     * @throws IOException if the journal cannot be read
+     */
+    public Plan plan(Path directory, long fromMillis, long toMillis) throws IOException {
+        Lines lines = new Lines();
+        OrderJournal.scan(directory, record -> {
+            if (record.getTimestamp() >= fromMillis && record.getTimestamp() < toMillis) {
+                lines.add(record);
+            }
+        });
+        return plan(lines);
+    }
+
+    /**
+     * Plans for lines already read.
+     *
+     * @param lines the lines to plan for
+     * @return the plan
+     */
+    Plan plan(Lines lines) {
+        long[] units = lines.size == 0 ? new long[BakeryEnum.optionCount()]
+            : pool.invoke(new Total(lines, 0, lines.size));
+        List<Batch> batches = new ArrayList<>();
+        for (BakeryEnum category : BAKED) {
+            pack(category, units, batches);
+        }
+        return new Plan(units, batches, lines.checkouts, lines.size);
+    }
+
+    /**
+     * Packs the units of a category into batches: full batches of each option first,
+     * then the rest first fit decreasing into shared batches.
+     *
+     * @param category the category
+     * @param units    the units of every option, indexed by option index
+     * @param batches  the list to add the batches to
+     */
+    private void pack(BakeryEnum category, long[] units, List<Batch> batches) {
+        int capacity = capacities[category.ordinal()];
+        Integer[] order = new Integer[category.getOptionCount()];
+        for (int i = 0; i < order.length; i++) {
+            BakeryOption option = category.getOption(i);
+            long full = units[option.index()] / capacity;
+            if (full > 0) {
+                batches.add(new Batch(category, new BakeryOption[] {option}, new long[] {capacity}, full));
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(units[category.getOffset() + b] % capacity,
+            units[category.getOffset() + a] % capacity));
+
+        List<List<Integer>> shared = new ArrayList<>();
+        long[] room = new long[order.length];
+        for (int ordinal : order) {
+            long rest = units[category.getOffset() + ordinal] % capacity;
+            if (rest == 0) {
+                continue;
+            }
+            int bin = 0;
+            while (bin < shared.size() && room[bin] < rest) {
+                bin++;
+            }
+            if (bin == shared.size()) {
+                shared.add(new ArrayList<>());
+                room[bin] = capacity;
+            }
+            shared.get(bin).add(ordinal);
+            room[bin] -= rest;
+        }
+        for (List<Integer> bin : shared) {
+            BakeryOption[] options = new BakeryOption[bin.size()];
+            long[] binUnits = new long[bin.size()];
+            for (int i = 0; i < options.length; i++) {
+                options[i] = category.getOption(bin.get(i));
+                binUnits[i] = units[options[i].index()] % capacity;
+            }
+            batches.add(new Batch(category, options, binUnits, 1));
+        }
+    }
+
+    /**
+     * Main method that prints the plan for one day of a journal.
+     * Usage: {@code ProductionPlanner <journal directory> [yyyy-MM-dd]}, where the day
+     * defaults to today in the local time zone.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ProductionPlanner <journal directory> [yyyy-MM-dd]");
+            System.exit(2);
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.now(zone);
+        long from = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+        ProductionPlanner planner = new ProductionPlanner(defaultCapacities());
+        long start = System.nanoTime();
+        Plan plan = planner.plan(Paths.get(args[0]), from, to);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Plan for %s: %d checkouts, %d lines, planned in %.3f s%n",
+            day, plan.getCheckouts(), plan.getLines(), seconds);
+        for (BakeryEnum category : BakeryEnum.values()) {
+            System.out.println();
+            System.out.println(category + ": " + plan.getUnits(category));
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                BakeryOption option = category.getOption(i);
+                if (plan.getUnits(option) > 0) {
+                    System.out.println("  " + option.getDescription() + ": " + plan.getUnits(option));
+                }
+            }
+        }
+        System.out.println();
+        System.out.println("Oven batches:");
+        for (Batch batch : plan.getBatches()) {
+            System.out.println("  " + batch.getCategory() + " " + batch);
+        }
+    }
+}
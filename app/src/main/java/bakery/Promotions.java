@@ -0,0 +1,394 @@
+package bakery;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bundle and volume promotions, written as rules and compiled into arrays indexed
+ * by option so that adding a purchase only touches the rules that mention it.
+ * Each rule takes a fixed amount off every complete set of the items it names:
+ *
+ * <pre>
+ * # name: count scope [+ count scope]... = amount off each set
+ * cookie-dozen: 12 cookie = 2.00
+ * pie-and-pastry: 1 pie + 1 pastry = 1.50
+ * cream-cheese-upgrade: 1 frosting/Cream Cheese Frosting = 0.50
+ * </pre>
+ *
+ * A scope is a category, meaning any of its options, or a category and one option
+ * separated by a slash, named by its description or enum name. Cakes count once
+ * per cake, and their frostings and fillings once per layer of each cake, the same
+ * way stock is counted. A set is only counted once, so a pie bought with two
+ * pastries earns the pie and pastry discount once. The scopes of one rule may not
+ * share an option, since a purchase of it would count towards two parts of the
+ * same set.
+ *
+ * <p>A {@link Tally} keeps the counts of one cart and updates its discount as each
+ * purchase is added, so the discount of a large cart is known without going over
+ * its lines again at checkout.
+ */
+public final class Promotions {
+
+    private static final int[] NO_COMPONENTS = new int[0];
+
+    /**
+     * Promotions with no rules, so nothing is ever discounted.
+     */
+    public static final Promotions NONE = new Promotions(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+    private final String[] names;
+    private final long[] amounts;
+
+    /**
+     * Index of the first component of each rule; the components of rule {@code r}
+     * are {@code firstComponents[r]} up to {@code firstComponents[r + 1]}.
+     */
+    private final int[] firstComponents;
+
+    /**
+     * Number of units of each component needed for one set.
+     */
+    private final long[] needs;
+
+    /**
+     * Rule of each component.
+     */
+    private final int[] ruleOfComponent;
+
+    /**
+     * Components counting each option, indexed by option index.
+     */
+    private final int[][] componentsByOption;
+
+    /**
+     * Running counts and discount of one cart's purchases against a set of promotions.
+     * Units are only ever added, so the number of sets of a rule never goes down.
+     * A purchase that would overflow a count or the discount is not counted at
+     * all. A tally is meant to be used by one thread at a time.
+     */
+    public final class Tally {
+        private final long[] counts = new long[needs.length];
+        private final long[] sets = new long[names.length];
+        private long discount;
+
+        /**
+         * Counts and sets as they were before the purchase being counted, to put
+         * back if it overflows.
+         */
+        private final long[] savedCounts = new long[needs.length];
+        private final long[] savedSets = new long[names.length];
+
+        /**
+         * Constructs an empty tally.
+         */
+        private Tally() {
+        }
+
+        /**
+         * Counts units of an option sold by quantity.
+         *
+         * @param option   the option purchased
+         * @param quantity the quantity purchased
+         * @throws ArithmeticException if a count or the discount overflows
+         */
+        public void add(BakeryOption option, int quantity) {
+            long saved = save();
+            try {
+                count(option, quantity);
+            } catch (ArithmeticException e) {
+                restore(saved);
+                throw e;
+            }
+        }
+
+        /**
+         * Counts cakes, along with a frosting and filling portion for each of their layers.
+         *
+         * @param cake     the cake option
+         * @param frosting the frosting option
+         * @param filling  the filling option
+         * @param layers   the number of layers in each cake
+         * @param quantity the number of cakes
+         * @throws ArithmeticException if a count or the discount overflows
+         */
+        public void addCake(BakeryEnum.CakeOptions cake, BakeryEnum.FrostingOptions frosting,
+            BakeryEnum.FillingOptions filling, int layers, int quantity) {
+
+            long portions = (long) layers * quantity;
+            long saved = save();
+            try {
+                count(cake, quantity);
+                count(frosting, portions);
+                count(filling, portions);
+            } catch (ArithmeticException e) {
+                restore(saved);
+                throw e;
+            }
+        }
+
+        /**
+         * Remembers the counts and sets before a purchase is counted.
+         *
+         * @return the discount before the purchase
+         */
+        private long save() {
+            System.arraycopy(counts, 0, savedCounts, 0, counts.length);
+            System.arraycopy(sets, 0, savedSets, 0, sets.length);
+            return discount;
+        }
+
+        /**
+         * Puts back the counts, sets and discount from before a purchase that overflowed.
+         *
+         * @param saved the discount before the purchase
+         */
+        private void restore(long saved) {
+            System.arraycopy(savedCounts, 0, counts, 0, counts.length);
+            System.arraycopy(savedSets, 0, sets, 0, sets.length);
+            discount = saved;
+        }
+
+        /**
+         * Adds units to every component that counts an option, and updates the
+         * discount of the rules they belong to.
+         *
+         * @param option the option
+         * @param units  the number of units
+         */
+        private void count(BakeryOption option, long units) {
+            for (int component : componentsByOption[option.index()]) {
+                counts[component] = Math.addExact(counts[component], units);
+                int rule = ruleOfComponent[component];
+                long complete = Long.MAX_VALUE;
+                for (int k = firstComponents[rule]; k < firstComponents[rule + 1]; k++) {
+                    complete = Math.min(complete, counts[k] / needs[k]);
+                }
+                if (complete > sets[rule]) {
+                    discount = Money.plus(discount, Math.multiplyExact(complete - sets[rule], amounts[rule]));
+                    sets[rule] = complete;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of complete sets earned for a rule.
+         *
+         * @param rule the position of the rule
+         * @return the number of sets
+         */
+        public long getSets(int rule) {
+            return sets[rule];
+        }
+
+        /**
+         * Gets the discount earned by everything counted so far.
+         *
+         * @return the discount in cents
+         */
+        public long getDiscount() {
+            return discount;
+        }
+
+        /**
+         * Forgets everything counted.
+         */
+        public void clear() {
+            Arrays.fill(counts, 0);
+            Arrays.fill(sets, 0);
+            discount = 0;
+        }
+    }
+
+    /**
+     * Compiles parsed rules.
+     *
+     * @param names      the name of each rule
+     * @param amounts    the amount off each set of each rule, in cents
+     * @param components the scopes and counts of each rule, each scope as the option
+     *                   indices it matches followed by the count needed
+     */
+    private Promotions(List<String> names, List<Long> amounts, List<List<int[]>> components) {
+        int rules = names.size();
+        this.names = names.toArray(new String[0]);
+        this.amounts = new long[rules];
+        this.firstComponents = new int[rules + 1];
+        int total = 0;
+        for (int rule = 0; rule < rules; rule++) {
+            this.amounts[rule] = amounts.get(rule);
+            firstComponents[rule] = total;
+            total += components.get(rule).size();
+        }
+        firstComponents[rules] = total;
+
+        needs = new long[total];
+        ruleOfComponent = new int[total];
+        List<List<Integer>> byOption = new ArrayList<>();
+        for (int i = 0; i < BakeryEnum.optionCount(); i++) {
+            byOption.add(new ArrayList<>());
+        }
+        for (int rule = 0; rule < rules; rule++) {
+            List<int[]> scopes = components.get(rule);
+            for (int k = 0; k < scopes.size(); k++) {
+                int component = firstComponents[rule] + k;
+                int[] scope = scopes.get(k);
+                needs[component] = scope[scope.length - 1];
+                ruleOfComponent[component] = rule;
+                for (int i = 0; i < scope.length - 1; i++) {
+                    byOption.get(scope[i]).add(component);
+                }
+            }
+        }
+        componentsByOption = new int[byOption.size()][];
+        for (int i = 0; i < componentsByOption.length; i++) {
+            List<Integer> list = byOption.get(i);
+            componentsByOption[i] = list.isEmpty() ? NO_COMPONENTS
+                : list.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Starts a tally of a cart's purchases against these promotions.
+     *
+     * @return an empty tally
+     */
+    public Tally newTally() {
+        return new Tally();
+    }
+
+    /**
+     * Gets the number of rules.
+     *
+     * @return the number of rules
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of a rule.
+     *
+     * @param rule the position of the rule
+     * @return the name of the rule
+     */
+    public String getName(int rule) {
+        return names[rule];
+    }
+
+    /**
+     * Gets the amount a rule takes off each complete set.
+     *
+     * @param rule the position of the rule
+     * @return the amount in cents
+     */
+    public long getAmount(int rule) {
+        return amounts[rule];
+    }
+
+    /**
+     * Reads and compiles the rules of a file.
+     *
+     * @param file the file of rules
+     * @return the compiled promotions
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a rule is malformed
+     */
+    public static Promotions load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compiles rules, one per line. Blank lines and lines starting with {@code #} are skipped.
+     *
+     * @param lines the rules
+     * @return the compiled promotions
+     * @throws IllegalArgumentException if a rule is malformed or two of its scopes
+     *                                  share an option
+     */
+    public static Promotions parse(List<String> lines) {
+        List<String> names = new ArrayList<>();
+        List<Long> amounts = new ArrayList<>();
+        List<List<int[]>> components = new ArrayList<>();
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            int equals = line.lastIndexOf('=');
+            if (colon <= 0 || equals < colon) {
+                throw new IllegalArgumentException("Line " + number + ": expected name: scopes = amount");
+            }
+            long amount;
+            try {
+                amount = Money.parse(line.substring(equals + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+            if (amount <= 0) {
+                throw new IllegalArgumentException("Line " + number + ": the amount off must be positive");
+            }
+            List<int[]> scopes = new ArrayList<>();
+            boolean[] counted = new boolean[BakeryEnum.optionCount()];
+            for (String part : line.substring(colon + 1, equals).split("\\+")) {
+                int[] scope = parseScope(part.trim(), number);
+                for (int i = 0; i < scope.length - 1; i++) {
+                    if (counted[scope[i]]) {
+                        throw new IllegalArgumentException("Line " + number + ": " + part.trim()
+                            + " counts an option another part of the rule already counts");
+                    }
+                    counted[scope[i]] = true;
+                }
+                scopes.add(scope);
+            }
+            names.add(line.substring(0, colon).trim());
+            amounts.add(amount);
+            components.add(scopes);
+        }
+        return new Promotions(names, amounts, components);
+    }
+
+    /**
+     * Parses a count and scope such as {@code 12 cookie} or {@code 1 pie/Apple Pie}.
+     *
+     * @param text   the count and scope
+     * @param number the line number, for error messages
+     * @return the option indices the scope matches, followed by the count
+     * @throws IllegalArgumentException if the scope is malformed
+     */
+    private static int[] parseScope(String text, int number) {
+        int space = text.indexOf(' ');
+        int need;
+        try {
+            need = space < 0 ? 0 : Integer.parseInt(text.substring(0, space));
+        } catch (NumberFormatException e) {
+            need = 0;
+        }
+        if (need <= 0) {
+            throw new IllegalArgumentException("Line " + number + ": expected a positive count in: " + text);
+        }
+        String scope = text.substring(space + 1).trim();
+        int slash = scope.indexOf('/');
+        BakeryEnum category = BakeryEnum.findCategory(slash < 0 ? scope : scope.substring(0, slash).trim());
+        if (category == null) {
+            throw new IllegalArgumentException("Line " + number + ": no category in: " + text);
+        }
+        if (slash < 0) {
+            int[] matched = new int[category.getOptionCount() + 1];
+            for (int i = 0; i < category.getOptionCount(); i++) {
+                matched[i] = category.getOption(i).index();
+            }
+            matched[matched.length - 1] = need;
+            return matched;
+        }
+        BakeryOption option = OptionIndex.findByName(category, scope.substring(slash + 1).trim());
+        if (option == null) {
+            throw new IllegalArgumentException("Line " + number + ": no option in: " + text);
+        }
+        return new int[] {option.index(), need};
+    }
+}
@@ -0,0 +1,236 @@
+package bakery;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes receipts for carts straight into reused direct buffers, without building
+ * strings. The text of every option is encoded once when the class is loaded, and
+ * amounts and counts are written digit by digit, so rendering allocates nothing.
+ * Receipts fill a few buffers in turn, and once they are all full they are written
+ * to the channel in one gather write. Item lines read exactly like the
+ * {@code toString()} of the matching {@code BakeryItem}.
+ * A renderer is meant to be used by one thread at a time.
+ */
+public final class ReceiptRenderer implements Flushable {
+
+    private static final int SEGMENTS = 4;
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    private static final byte[] NEW_LINE = bytes(System.lineSeparator());
+    private static final byte[] QUANTITY = bytes(". Quantity: ");
+    private static final byte[] CAKE_QUANTITY = bytes(", Quantity: ");
+    private static final byte[] LAYERS = bytes(", Layers: ");
+    private static final byte[] RECEIPT = bytes("Receipt ");
+    private static final byte[] DISCOUNT = bytes("Discount: $");
+    private static final byte[] TOTAL = bytes("Total: $");
+
+    /**
+     * "Item: " and the description of each option, indexed by option index.
+     */
+    private static final byte[][] ITEMS = new byte[BakeryEnum.optionCount()][];
+
+    /**
+     * ", " and the description of each option, used for frostings and fillings.
+     */
+    private static final byte[][] EXTRAS = new byte[BakeryEnum.optionCount()][];
+
+    /**
+     * Longest item line, counts and separator included.
+     */
+    private static final int MAX_LINE;
+
+    static {
+        int longest = 0;
+        for (BakeryEnum category : BakeryEnum.values()) {
+            for (int ordinal = 0; ordinal < category.getOptionCount(); ordinal++) {
+                BakeryOption option = category.getOption(ordinal);
+                ITEMS[option.index()] = bytes("Item: " + option.getDescription());
+                EXTRAS[option.index()] = bytes(", " + option.getDescription());
+                longest = Math.max(longest, Math.max(ITEMS[option.index()].length, EXTRAS[option.index()].length));
+            }
+        }
+        MAX_LINE = longest * 3 + LAYERS.length + CAKE_QUANTITY.length + 2 * 11 + NEW_LINE.length;
+    }
+
+    private final WritableByteChannel out;
+    private final ByteBuffer[] segments = new ByteBuffer[SEGMENTS];
+    private final byte[] digits = new byte[20];
+    private int current;
+
+    /**
+     * Constructs a renderer that writes receipts to a channel.
+     *
+     * @param out the channel to write to
+     */
+    public ReceiptRenderer(WritableByteChannel out) {
+        this.out = out;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+        }
+    }
+
+    /**
+     * Writes a receipt for a cart: a heading with the order, a line per item, the
+     * discount if promotions earned one, and the total.
+     *
+     * @param order the order or session the receipt is for
+     * @param cart  the cart to write the receipt for
+     * @throws UncheckedIOException if the buffers have to be written and the channel fails
+     */
+    public void writeReceipt(long order, CompactCart cart) {
+        ByteBuffer buffer = reserve(RECEIPT.length + 20 + NEW_LINE.length);
+        buffer.put(RECEIPT);
+        putNumber(buffer, order);
+        buffer.put(NEW_LINE);
+        writeItems(cart);
+        if (cart.getDiscount() > 0) {
+            buffer = reserve(DISCOUNT.length + 24 + NEW_LINE.length);
+            buffer.put(DISCOUNT);
+            putAmount(buffer, cart.getDiscount());
+            buffer.put(NEW_LINE);
+        }
+        buffer = reserve(TOTAL.length + 24 + 2 * NEW_LINE.length);
+        buffer.put(TOTAL);
+        putAmount(buffer, cart.getTotal());
+        buffer.put(NEW_LINE).put(NEW_LINE);
+    }
+
+    /**
+     * Writes a line for each item of a cart.
+     *
+     * @param cart the cart whose items to write
+     * @throws UncheckedIOException if the buffers have to be written and the channel fails
+     */
+    public void writeItems(CompactCart cart) {
+        for (int line = 0; line < cart.size(); line++) {
+            ByteBuffer buffer = reserve(MAX_LINE);
+            buffer.put(ITEMS[cart.getOption(line).index()]);
+            if (cart.getCategory(line) == BakeryEnum.CAKE) {
+                buffer.put(EXTRAS[cart.getFrosting(line).index()]);
+                buffer.put(EXTRAS[cart.getFilling(line).index()]);
+                buffer.put(LAYERS);
+                putNumber(buffer, cart.getLayers(line));
+                buffer.put(CAKE_QUANTITY);
+            } else {
+                buffer.put(QUANTITY);
+            }
+            putNumber(buffer, cart.getQuantity(line));
+            buffer.put(NEW_LINE);
+        }
+    }
+
+    /**
+     * Writes every rendered receipt to the channel in one gather write.
+     *
+     * @throws UncheckedIOException if the channel fails
+     */
+    @Override
+    public void flush() {
+        try {
+            for (int i = 0; i <= current; i++) {
+                segments[i].flip();
+            }
+            if (out instanceof GatheringByteChannel) {
+                GatheringByteChannel gathering = (GatheringByteChannel) out;
+                while (segments[current].hasRemaining()) {
+                    gathering.write(segments, 0, current + 1);
+                }
+            } else {
+                for (int i = 0; i <= current; i++) {
+                    while (segments[i].hasRemaining()) {
+                        out.write(segments[i]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (int i = 0; i <= current; i++) {
+                segments[i].clear();
+            }
+            current = 0;
+        }
+    }
+
+    /**
+     * Gets a buffer with room for the given number of bytes, moving on to the next
+     * buffer or writing them all out when the current one is full.
+     *
+     * @param bytes the number of bytes needed
+     * @return the buffer to write into
+     */
+    private ByteBuffer reserve(int bytes) {
+        if (segments[current].remaining() < bytes) {
+            if (current == SEGMENTS - 1) {
+                flush();
+            } else {
+                current++;
+            }
+        }
+        return segments[current];
+    }
+
+    /**
+     * Writes an amount as dollars with two decimal places, as {@code Money.format} does.
+     *
+     * @param buffer the buffer to write into
+     * @param cents  the amount in cents
+     */
+    private void putAmount(ByteBuffer buffer, long cents) {
+        if (cents < 0) {
+            buffer.put((byte) '-');
+        }
+        putDigits(buffer, Math.abs(cents / 100));
+        int rest = (int) Math.abs(cents % 100);
+        buffer.put((byte) '.').put((byte) ('0' + rest / 10)).put((byte) ('0' + rest % 10));
+    }
+
+    /**
+     * Writes a whole number in decimal.
+     *
+     * @param buffer the buffer to write into
+     * @param value  the number
+     */
+    private void putNumber(ByteBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value <= -10) {
+                putDigits(buffer, -(value / 10));
+            }
+            buffer.put((byte) ('0' - value % 10));
+            return;
+        }
+        putDigits(buffer, value);
+    }
+
+    /**
+     * Writes the digits of a number that is not negative.
+     *
+     * @param buffer the buffer to write into
+     * @param value  the number
+     */
+    private void putDigits(ByteBuffer buffer, long value) {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    /**
+     * Encodes text for a receipt.
+     *
+     * @param text the text
+     * @return the encoded bytes
+     */
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
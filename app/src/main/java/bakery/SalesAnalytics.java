@@ -0,0 +1,217 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live sales counters for every bakery option, updated on every confirmed checkout.
+ * Units and revenue are kept per option in arrays of {@code LongAdder} indexed by
+ * {@code BakeryOption.index()}, so checkouts of the same popular item add to
+ * separate cells instead of contending on one field. Totals per category are not
+ * counted separately but added up from the options when a snapshot is taken.
+ *
+ * <p>The price of a cake line, frosting and filling included, is counted as revenue
+ * of the cake. The frosting and filling only count the layers they were used on.
+ * Revenue is counted at line prices, before promotions are taken off the order.
+ */
+public class SalesAnalytics {
+
+    /**
+     * Number of times a snapshot is retaken when checkouts keep landing while it is read.
+     */
+    private static final int SNAPSHOT_ATTEMPTS = 16;
+
+    private static final BakeryEnum[] CATEGORIES = BakeryEnum.values();
+    private static final BakeryOption[] OPTIONS = new BakeryOption[BakeryEnum.optionCount()];
+
+    static {
+        for (BakeryEnum category : CATEGORIES) {
+            for (int ordinal = 0; ordinal < category.getOptionCount(); ordinal++) {
+                BakeryOption option = category.getOption(ordinal);
+                OPTIONS[option.index()] = option;
+            }
+        }
+    }
+
+    private final LongAdder[] units = newAdders(OPTIONS.length);
+    private final LongAdder[] revenue = newAdders(OPTIONS.length);
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+
+    /**
+     * Counts the lines of a confirmed checkout.
+     *
+     * @param cart the cart that was checked out
+     */
+    public void record(CompactCart cart) {
+        started.increment();
+        for (int line = 0; line < cart.size(); line++) {
+            int quantity = cart.getQuantity(line);
+            int index = cart.getOption(line).index();
+            units[index].add(quantity);
+            revenue[index].add(cart.getPrice(line));
+            if (cart.getCategory(line) == BakeryEnum.CAKE) {
+                long portions = (long) cart.getLayers(line) * quantity;
+                units[cart.getFrosting(line).index()].add(portions);
+                units[cart.getFilling(line).index()].add(portions);
+            }
+        }
+        finished.increment();
+    }
+
+    /**
+     * Takes a snapshot of the counters without blocking checkouts. The snapshot is
+     * retaken while checkouts land during the read, so normally every checkout is
+     * either wholly in it or wholly out of it.
+     *
+     * @return the current sales figures
+     */
+    public Snapshot snapshot() {
+        long[] unitCounts = new long[OPTIONS.length];
+        long[] revenueCounts = new long[OPTIONS.length];
+        for (int attempt = 1; ; attempt++) {
+            long before = finished.sum();
+            for (int i = 0; i < OPTIONS.length; i++) {
+                unitCounts[i] = units[i].sum();
+                revenueCounts[i] = revenue[i].sum();
+            }
+            boolean consistent = started.sum() == before;
+            if (consistent || attempt == SNAPSHOT_ATTEMPTS) {
+                return new Snapshot(unitCounts, revenueCounts, before, consistent);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Creates an array of fresh adders.
+     *
+     * @param length the number of adders
+     * @return the adders
+     */
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Sales figures read at one moment.
+     */
+    public static final class Snapshot {
+        private final long[] units;
+        private final long[] revenue;
+        private final long[] categoryUnits = new long[CATEGORIES.length];
+        private final long[] categoryRevenue = new long[CATEGORIES.length];
+        private final long checkouts;
+        private final boolean consistent;
+
+        /**
+         * Constructs a snapshot, adding up the totals of each category.
+         *
+         * @param units      the units sold per option index
+         * @param revenue    the revenue per option index in cents
+         * @param checkouts  the number of checkouts counted
+         * @param consistent whether no checkout landed while the counters were read
+         */
+        Snapshot(long[] units, long[] revenue, long checkouts, boolean consistent) {
+            this.units = units;
+            this.revenue = revenue;
+            this.checkouts = checkouts;
+            this.consistent = consistent;
+            for (int i = 0; i < OPTIONS.length; i++) {
+                int category = OPTIONS[i].getCategory().ordinal();
+                categoryUnits[category] += units[i];
+                categoryRevenue[category] += revenue[i];
+            }
+        }
+
+        /**
+         * Gets the number of units of an option sold.
+         *
+         * @param option the option
+         * @return the units sold
+         */
+        public long getUnits(BakeryOption option) {
+            return units[option.index()];
+        }
+
+        /**
+         * Gets the revenue of an option.
+         *
+         * @param option the option
+         * @return the revenue in cents
+         */
+        public long getRevenue(BakeryOption option) {
+            return revenue[option.index()];
+        }
+
+        /**
+         * Gets the number of units of a category sold.
+         *
+         * @param category the category
+         * @return the units sold across the options of the category
+         */
+        public long getUnits(BakeryEnum category) {
+            return categoryUnits[category.ordinal()];
+        }
+
+        /**
+         * Gets the revenue of a category.
+         *
+         * @param category the category
+         * @return the revenue across the options of the category in cents
+         */
+        public long getRevenue(BakeryEnum category) {
+            return categoryRevenue[category.ordinal()];
+        }
+
+        /**
+         * Gets the number of checkouts counted in the snapshot.
+         *
+         * @return the number of checkouts
+         */
+        public long getCheckouts() {
+            return checkouts;
+        }
+
+        /**
+         * Checks whether the snapshot was read while no checkout was being counted.
+         * This is only false when checkouts kept landing on every retry.
+         *
+         * @return true if every checkout is either wholly in the snapshot or wholly out of it
+         */
+        public boolean isConsistent() {
+            return consistent;
+        }
+
+        /**
+         * Gets the best selling options by revenue. Options that sold nothing are left out.
+         *
+         * @param n the number of options wanted
+         * @return up to {@code n} options, highest revenue first
+         */
+        public List<BakeryOption> topSellers(int n) {
+            int count = Math.min(Math.max(n, 0), OPTIONS.length);
+            boolean[] taken = new boolean[OPTIONS.length];
+            List<BakeryOption> top = new ArrayList<>(count);
+            while (top.size() < count) {
+                int best = -1;
+                for (int i = 0; i < OPTIONS.length; i++) {
+                    if (!taken[i] && units[i] > 0 && (best < 0 || revenue[i] > revenue[best])) {
+                        best = i;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                taken[best] = true;
+                top.add(OPTIONS[best]);
+            }
+            return top;
+        }
+    }
+}
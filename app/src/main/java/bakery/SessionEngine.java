@@ -0,0 +1,293 @@
+package bakery;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hosts many independent customer sessions at once, as needed when a store
+ * runs several point-of-sale terminals. Sessions can be driven on the engine's
+ * executor, which gives each task a virtual thread where the runtime supports them.
+ * The revenue of every confirmed checkout is added to a store-wide total without
+ * the sessions contending on a shared field.
+ * Sales of each option are counted the same way for live analytics.
+ * When the engine has an {@code OrderJournal}, every checkout is written to it
+ * and is durable before the checkout returns.
+ */
+public class SessionEngine implements AutoCloseable {
+
+    private final ConcurrentHashMap<Long, BakerySession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId;
+    private final LongAdder revenue = new LongAdder();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder unconfirmed = new LongAdder();
+    private final SalesAnalytics analytics = new SalesAnalytics();
+    private final OrderJournal journal;
+    private final Inventory inventory;
+    private volatile ExecutorService executor;
+
+    /**
+     * Constructs an engine that does not journal its checkouts.
+     */
+    public SessionEngine() {
+        this(null);
+    }
+
+    /**
+     * Constructs an engine that writes every checkout to the given journal.
+     *
+     * @param journal the journal of confirmed checkouts, or {@code null} for none
+     */
+    public SessionEngine(OrderJournal journal) {
+        this(journal, new Inventory());
+    }
+
+    /**
+     * Constructs an engine that writes every checkout to the given journal and
+     * reserves stock from the given inventory.
+     *
+     * @param journal   the journal of confirmed checkouts, or {@code null} for none
+     * @param inventory the stock shared by every session
+     */
+    public SessionEngine(OrderJournal journal, Inventory inventory) {
+        this(journal, inventory, new AtomicLong());
+    }
+
+    /**
+     * Constructs an engine that takes its session identifiers from a counter it
+     * may share with other engines, so identifiers stay unique across all of them.
+     *
+     * @param journal   the journal of confirmed checkouts, or {@code null} for none
+     * @param inventory the stock shared by every session
+     * @param ids       the last identifier handed out
+     */
+    SessionEngine(OrderJournal journal, Inventory inventory, AtomicLong ids) {
+        this.journal = journal;
+        this.inventory = inventory;
+        this.nextId = ids;
+    }
+
+    /**
+     * Opens a new session with an empty cart.
+     *
+     * @return the new session
+     */
+    public BakerySession open() {
+        BakerySession session = new BakerySession(nextId(), this);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Gets an open session by its identifier.
+     *
+     * @param id the identifier of the session
+     * @return the session, or {@code null} if no open session has that identifier
+     */
+    public BakerySession get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Opens a new session and drives it with the given customer script on its own thread.
+     *
+     * @param customer the script that fills the cart and checks out
+     * @param <T>      the type of result produced by the script
+     * @return a future completed with the result of the script
+     */
+    public <T> CompletableFuture<T> drive(Function<BakerySession, T> customer) {
+        BakerySession session = open();
+        return CompletableFuture.supplyAsync(() -> customer.apply(session), executor());
+    }
+
+    /**
+     * Records the total of a confirmed checkout and closes its session.
+     * The checkout is journaled first, so it is only counted once it is durable.
+     *
+     * <p>If the journal refuses the record, nothing was written and the session
+     * stays open, so the checkout can be tried again. If the record was written
+     * but could not be confirmed durable, it may still reach the disk and be
+     * replayed, so the purchase stands: the session is closed, so that a retry
+     * cannot journal it a second time, its stock stays sold, and it is counted as
+     * unconfirmed instead of towards the revenue.
+     *
+     * @param session the session that checked out
+     * @param total   the total price of the purchase in cents
+     * @throws UncheckedIOException  if the journal fails
+     * @throws IllegalStateException if the journal is closed
+     */
+    void recordCheckout(BakerySession session, long total) {
+        if (journal != null) {
+            long sequence = journal.append(session.getId(), session.getShoppingCart(), total);
+            try {
+                journal.awaitDurable(sequence);
+            } catch (RuntimeException e) {
+                unconfirmed.increment();
+                close(session);
+                throw e;
+            }
+        }
+        recordDurable(session.getShoppingCart(), total);
+        close(session);
+    }
+
+    /**
+     * Counts a checkout that is already journaled, or that needs no journal.
+     *
+     * @param cart  the cart that was checked out
+     * @param total the total price of the purchase in cents
+     */
+    void recordDurable(CompactCart cart, long total) {
+        revenue.add(total);
+        checkouts.increment();
+        analytics.record(cart);
+    }
+
+    /**
+     * Takes an identifier for an order placed without a session, such as one
+     * from the order pipeline, so it never clashes with a session's.
+     *
+     * @return the identifier
+     */
+    long nextId() {
+        return nextId.incrementAndGet();
+    }
+
+    /**
+     * Gets the journal checkouts are written to.
+     *
+     * @return the journal, or {@code null} if checkouts are not journaled
+     */
+    OrderJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Closes a session so the engine no longer hosts it.
+     *
+     * @param session the session to close
+     */
+    void close(BakerySession session) {
+        sessions.remove(session.getId(), session);
+    }
+
+    /**
+     * Cancels every session that has not been used for a while, giving its stock
+     * back. Each session is locked while it is checked, so this is safe alongside
+     * front ends such as {@code OrderServer} that lock a session while using it.
+     *
+     * @param idleNanos how long a session may go unused, in nanoseconds
+     * @return the number of sessions cancelled
+     */
+    int expireIdle(long idleNanos) {
+        int expired = 0;
+        for (BakerySession session : sessions.values()) {
+            synchronized (session) {
+                if (sessions.get(session.getId()) == session
+                    && System.nanoTime() - session.getLastActive() > idleNanos) {
+                    session.cancel();
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the stock shared by every session.
+     *
+     * @return the inventory of the store
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Gets the live sales counters of every option sold.
+     *
+     * @return the sales analytics of the store
+     */
+    public SalesAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Gets the revenue collected across all confirmed checkouts.
+     *
+     * @return the store-wide revenue in cents
+     */
+    public long getRevenue() {
+        return revenue.sum();
+    }
+
+    /**
+     * Gets the number of confirmed checkouts.
+     *
+     * @return the number of checkouts
+     */
+    public long getCheckouts() {
+        return checkouts.sum();
+    }
+
+    /**
+     * Gets the number of checkouts that were written to the journal but could
+     * not be confirmed durable.
+     *
+     * @return the number of unconfirmed checkouts
+     */
+    public long getUnconfirmed() {
+        return unconfirmed.sum();
+    }
+
+    /**
+     * Gets the number of sessions that are still open.
+     *
+     * @return the number of open sessions
+     */
+    public int getOpenSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the executor used to drive sessions, creating it on first use.
+     *
+     * @return the session executor
+     */
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    current = VirtualThreads.newExecutor();
+                    executor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Stops the session threads, waiting for the sessions being driven to finish.
+     */
+    @Override
+    public void close() {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.shutdown();
+            try {
+                while (!current.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // keep waiting for running customers
+                }
+            } catch (InterruptedException e) {
+                current.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package bakery;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue between exactly one producing thread and one consuming thread,
+ * backed by an array allocated up front. The producer and consumer each own one
+ * position and publish it with an ordered write, without locks or compare-and-set.
+ * Each side keeps a copy of the other's position and only reads the shared one
+ * again when its copy says the ring is full or empty, and the consumer takes
+ * elements in batches and publishes its position once per batch. The two positions
+ * are kept far apart in one array so they do not share a cache line.
+ *
+ * @param <T> the type of elements
+ */
+final class SpscRing<T> {
+
+    /**
+     * Number of longs between the positions, enough for 128 byte cache lines.
+     */
+    private static final int PAD = 16;
+    private static final int HEAD = PAD;
+    private static final int TAIL = 2 * PAD;
+
+    private final Object[] elements;
+    private final int mask;
+    private final AtomicLongArray positions = new AtomicLongArray(3 * PAD);
+
+    /**
+     * Next position to write and the last seen read position, used only by the producer.
+     */
+    private long head;
+    private long cachedTail;
+
+    /**
+     * Next position to read and the last seen write position, used only by the consumer.
+     */
+    private long tail;
+    private long cachedHead;
+
+    /**
+     * Constructs a ring holding at least the given number of elements, rounded up
+     * to a power of two.
+     *
+     * @param capacity the least number of elements the ring holds
+     */
+    SpscRing(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        elements = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the number of elements the ring holds when full.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Adds an element if there is room. Called by the producer only.
+     *
+     * @param element the element
+     * @return true if the element was added, false if the ring is full
+     */
+    boolean offer(T element) {
+        if (head - cachedTail == elements.length) {
+            cachedTail = positions.get(TAIL);
+            if (head - cachedTail == elements.length) {
+                return false;
+            }
+        }
+        elements[(int) head & mask] = element;
+        positions.lazySet(HEAD, ++head);
+        return true;
+    }
+
+    /**
+     * Takes as many elements as are ready, up to the size of the batch. Called by
+     * the consumer only.
+     *
+     * @param batch the array to take the elements into, from the start
+     * @return the number of elements taken, 0 if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    int drain(T[] batch) {
+        if (tail == cachedHead) {
+            cachedHead = positions.get(HEAD);
+            if (tail == cachedHead) {
+                return 0;
+            }
+        }
+        int count = (int) Math.min(cachedHead - tail, batch.length);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (tail + i) & mask;
+            batch[i] = (T) elements[index];
+            elements[index] = null;
+        }
+        tail += count;
+        positions.lazySet(TAIL, tail);
+        return count;
+    }
+}
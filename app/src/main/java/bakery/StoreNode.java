@@ -0,0 +1,247 @@
+package bakery;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * One node of a multi-store cluster: hosts the stores a {@code StoreRouter} assigns
+ * to it, each with its own {@code SessionEngine}, stock and revenue, and serves the
+ * ordering API of {@code OrderServer} for each of them.
+ *
+ * <pre>
+ * GET  /node                             the node number: {"node":1}
+ * GET  /stores                           the revenue of every store: {"downtown":75.44}
+ * ...  /stores/{store}/sessions[/...]    the session API of OrderServer for one store
+ * GET  /metrics                          step latencies for Prometheus
+ * </pre>
+ *
+ * Session identifiers carry the node number in their top bits, so the router can
+ * send every request of a session back to the node that opened it, even after
+ * the store has moved to another node. A store that moves keeps its revenue so
+ * far on its old node, which is why the router adds up the revenue of every node.
+ *
+ * <p>Stock is node-local and not tracked: each store's engine starts with an
+ * inventory whose stock is never set, so nothing runs out, and a store that moves
+ * starts on its new node with stock of its own, separate from the copy left on
+ * the old node. Limiting the stock of a store that can move would take one
+ * inventory shared by every node, which the cluster does not have.
+ */
+public class StoreNode implements AutoCloseable {
+
+    /**
+     * Number of low bits of a session identifier counting sessions within a node.
+     */
+    static final int NODE_SHIFT = 40;
+
+    /**
+     * Largest node number, so that identifiers stay positive.
+     */
+    static final int MAX_NODE = (1 << (63 - NODE_SHIFT)) - 1;
+
+    private static final String STORES = "/stores";
+
+    private final int node;
+    private final OrderJournal journal;
+    private final AtomicLong ids;
+    private final ConcurrentHashMap<String, SessionEngine> stores = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a node bound to an address. The node does not accept requests
+     * until it is started.
+     *
+     * @param node    the number of the node, unique in the cluster
+     * @param journal the journal of every store's checkouts, or {@code null} for none
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException              if the address cannot be bound
+     * @throws IllegalArgumentException if the node number is out of range
+     */
+    public StoreNode(int node, OrderJournal journal, InetSocketAddress address) throws IOException {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node numbers run from 0 to " + MAX_NODE);
+        }
+        this.node = node;
+        this.journal = journal;
+        this.ids = new AtomicLong((long) node << NODE_SHIFT);
+        this.server = HttpServer.create(address, 1024);
+        this.executor = VirtualThreads.newExecutor();
+        server.createContext(STORES, this::handle);
+        server.createContext("/node", exchange -> {
+            try {
+                OrderServer.respond(exchange, 200, "{\"node\":" + node + "}");
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/metrics", OrderServer::metrics);
+        server.setExecutor(executor);
+        this.sweeper = OrderServer.expireIdle(stores::values);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the node listens on.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of this node.
+     *
+     * @return the node number
+     */
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * Gets the node that opened a session.
+     *
+     * @param session the session identifier
+     * @return the number of the node
+     */
+    static int nodeOf(long session) {
+        return (int) (session >>> NODE_SHIFT);
+    }
+
+    /**
+     * Checks that a store identifier is safe to use in a path.
+     *
+     * @param store the store identifier
+     * @return true if it is 1 to 64 letters, digits, dashes or underscores
+     */
+    static boolean isStoreId(String store) {
+        if (store.isEmpty() || store.length() > 64) {
+            return false;
+        }
+        for (int i = 0; i < store.length(); i++) {
+            char c = store.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the engine of a store, starting one the first time the store is used.
+     * The engine's stock is untracked and local to this node.
+     *
+     * @param store the store identifier
+     * @return the store's engine
+     */
+    SessionEngine store(String store) {
+        return stores.computeIfAbsent(store, name -> new SessionEngine(journal, new Inventory(), ids));
+    }
+
+    /**
+     * Gets the revenue of every store this node has sold for.
+     *
+     * @return the revenue in cents by store identifier, in order
+     */
+    Map<String, Long> revenue() {
+        Map<String, Long> revenue = new TreeMap<>();
+        stores.forEach((store, engine) -> revenue.put(store, engine.getRevenue()));
+        return revenue;
+    }
+
+    /**
+     * Stops accepting requests and closes every store's engine.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        sweeper.shutdownNow();
+        stores.values().forEach(SessionEngine::close);
+    }
+
+    /**
+     * Routes one store request and writes its response.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(STORES.length());
+        if (path.isEmpty() || path.equals("/")) {
+            try {
+                OrderServer.respond(exchange, 200, revenueJson(revenue()));
+            } finally {
+                exchange.close();
+            }
+            return;
+        }
+        int slash = path.indexOf('/', 1);
+        String store = path.substring(1, slash < 0 ? path.length() : slash);
+        String rest = slash < 0 ? "" : path.substring(slash);
+        if (!isStoreId(store) || !(rest.equals("/sessions") || rest.startsWith("/sessions/"))) {
+            try {
+                OrderServer.respond(exchange, 404, OrderServer.error("No such resource"));
+            } finally {
+                exchange.close();
+            }
+            return;
+        }
+        OrderServer.serve(exchange, store(store), rest.substring("/sessions".length()));
+    }
+
+    /**
+     * Renders revenue by store as a JSON object of dollar amounts.
+     *
+     * @param revenue the revenue in cents by store identifier
+     * @return the revenue as JSON
+     */
+    static String revenueJson(Map<String, Long> revenue) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Long> store : revenue.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            OrderServer.appendString(json, store.getKey());
+            Money.appendTo(json.append(':'), store.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Main method that serves a node until the process is stopped. Set the
+     * {@code bakery.journal} system property to a directory to journal the node's
+     * checkouts there.
+     * Usage: {@code StoreNode <node number> [port]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: StoreNode <node number> [port]");
+            System.exit(2);
+        }
+        int node = Integer.parseInt(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        String journalDirectory = System.getProperty("bakery.journal");
+        OrderJournal journal = journalDirectory == null ? null : OrderJournal.open(Paths.get(journalDirectory));
+        StoreNode server = new StoreNode(node, journal, new InetSocketAddress("127.0.0.1", port));
+        server.start();
+        System.err.println("Node " + node + " serving stores on port " + server.getPort());
+    }
+}
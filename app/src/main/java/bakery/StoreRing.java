@@ -0,0 +1,162 @@
+package bakery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring that assigns stores to the nodes of a cluster. Every node
+ * is placed on the ring at many points, and a store belongs to the node at the
+ * first point at or after the hash of its identifier. Adding a node only moves the
+ * stores that land just before its points, about one store in every {@code n + 1},
+ * and every other store stays where it was.
+ *
+ * <p>A ring is immutable; adding a node creates a new ring, so lookups never lock.
+ */
+final class StoreRing {
+
+    /**
+     * Number of points each node has on the ring, enough to spread stores evenly.
+     */
+    static final int POINTS_PER_NODE = 160;
+
+    /**
+     * A ring with no nodes.
+     */
+    static final StoreRing EMPTY = new StoreRing(new long[0], new int[0], new int[0]);
+
+    private final long[] points;
+    private final int[] owners;
+    private final int[] nodes;
+
+    /**
+     * Constructs a ring.
+     *
+     * @param points the points of the ring in ascending order
+     * @param owners the node at each point
+     * @param nodes  the nodes on the ring in ascending order
+     */
+    private StoreRing(long[] points, int[] owners, int[] nodes) {
+        this.points = points;
+        this.owners = owners;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Creates a ring with one more node.
+     *
+     * @param node the number of the node
+     * @return the new ring
+     * @throws IllegalArgumentException if the node is already on the ring
+     */
+    StoreRing withNode(int node) {
+        if (hasNode(node)) {
+            throw new IllegalArgumentException("Node " + node + " is already in the cluster");
+        }
+        int size = points.length + POINTS_PER_NODE;
+        long[] keys = Arrays.copyOf(points, size);
+        for (int i = 0; i < POINTS_PER_NODE; i++) {
+            keys[points.length + i] = hash("node-" + node + "#" + i);
+        }
+        // Sort the points together with their owners by sorting their positions.
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        long[] sortedPoints = new long[size];
+        int[] sortedOwners = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedPoints[i] = keys[order[i]];
+            sortedOwners[i] = order[i] < points.length ? owners[order[i]] : node;
+        }
+        int[] more = Arrays.copyOf(nodes, nodes.length + 1);
+        more[nodes.length] = node;
+        Arrays.sort(more);
+        return new StoreRing(sortedPoints, sortedOwners, more);
+    }
+
+    /**
+     * Checks whether a node is on the ring.
+     *
+     * @param node the number of the node
+     * @return true if the node is on the ring
+     */
+    boolean hasNode(int node) {
+        return Arrays.binarySearch(nodes, node) >= 0;
+    }
+
+    /**
+     * Gets the nodes on the ring.
+     *
+     * @return the node numbers in ascending order
+     */
+    int[] getNodes() {
+        return nodes.clone();
+    }
+
+    /**
+     * Finds the node a store belongs to.
+     *
+     * @param store the store identifier
+     * @return the number of the node
+     * @throws IllegalStateException if the ring has no nodes
+     */
+    int nodeFor(String store) {
+        if (points.length == 0) {
+            throw new IllegalStateException("The cluster has no nodes");
+        }
+        long key = hash(store);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    /**
+     * Gets the share of all stores a node is expected to hold.
+     *
+     * @param node the number of the node
+     * @return the share of the ring owned by the node, from 0 to 1
+     */
+    double share(int node) {
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (owners[i] == node) {
+                long previous = i == 0 ? points[points.length - 1] : points[i - 1];
+                // Distance back to the previous point, wrapping around the ring.
+                double arc = points[i] - previous;
+                if (arc < 0) {
+                    arc += 0x1p64;
+                }
+                owned += arc;
+            }
+        }
+        return owned / 0x1p64;
+    }
+
+    /**
+     * Hashes a string to a point on the ring with 64-bit FNV-1a over its UTF-8
+     * bytes, followed by a finalizing mix so nearby names land far apart.
+     *
+     * @param text the string
+     * @return the hash
+     */
+    static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,343 @@
+package bakery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Front of a multi-store cluster: forwards each ordering request to the
+ * {@code StoreNode} that hosts its store, and adds up revenue across the nodes.
+ * Stores are assigned to nodes by a {@code StoreRing}, so when a node is added only
+ * the stores it takes over move, and new sessions of those stores open on it.
+ * Sessions already open finish on the node that opened them, since a session
+ * identifier names its node. The router keeps no state of its own beyond the ring,
+ * and reaches the nodes over pooled HTTP connections, normally on loopback.
+ *
+ * <pre>
+ * ...  /stores/{store}/sessions[/...]    the session API of OrderServer for one store
+ * GET  /stores                           the revenue of every store across all nodes
+ * GET  /nodes                            the nodes and their share of the stores
+ * POST /nodes                            adds a node: {"address":"127.0.0.1:9003"}
+ * </pre>
+ *
+ * To try a cluster on one machine, start each node in its own process with
+ * {@code Bakery --node <number> <port>}, then the router with
+ * {@code Bakery --router <port> 127.0.0.1:<node port>...}.
+ */
+public class StoreRouter implements AutoCloseable {
+
+    private static final String STORES = "/stores";
+    private static final String SESSIONS = "/sessions";
+
+    /**
+     * The ring and the address of each node on it, replaced as a whole when a node is added.
+     */
+    private static final class Cluster {
+        private final StoreRing ring;
+        private final Map<Integer, URI> nodes;
+
+        /**
+         * Constructs a cluster.
+         *
+         * @param ring  the ring of nodes
+         * @param nodes the base address of each node by node number
+         */
+        Cluster(StoreRing ring, Map<Integer, URI> nodes) {
+            this.ring = ring;
+            this.nodes = nodes;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private volatile Cluster cluster = new Cluster(StoreRing.EMPTY, new HashMap<>());
+
+    /**
+     * Constructs a router with no nodes bound to an address. The router does not
+     * accept requests until it is started.
+     *
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public StoreRouter(InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 1024);
+        this.executor = VirtualThreads.newExecutor();
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+        server.createContext(STORES, this::handle);
+        server.createContext("/nodes", this::nodes);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the router listens on.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and stops the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Adds a node to the cluster, asking it for its node number. The stores the
+     * node takes over open their new sessions on it from now on.
+     *
+     * @param address the host and port of the node
+     * @return the number of the node
+     * @throws IOException              if the node cannot be reached
+     * @throws IllegalArgumentException if the node is already in the cluster
+     */
+    public synchronized int addNode(String address) throws IOException {
+        URI base = URI.create("http://" + address + "/");
+        HttpResponse<String> response = get(base.resolve("/node"));
+        String number = OrderServer.parseObject(response.body()).get("node");
+        int node;
+        try {
+            node = Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a store node: " + address);
+        }
+        Map<Integer, URI> nodes = new HashMap<>(cluster.nodes);
+        nodes.put(node, base);
+        cluster = new Cluster(cluster.ring.withNode(node), nodes);
+        return node;
+    }
+
+    /**
+     * Adds up the revenue of every store across all the nodes.
+     *
+     * @return the revenue in cents by store identifier, in order
+     * @throws IOException if a node cannot be reached
+     */
+    public Map<String, Long> revenue() throws IOException {
+        List<CompletableFuture<HttpResponse<String>>> replies = new ArrayList<>();
+        for (URI node : cluster.nodes.values()) {
+            HttpRequest request = HttpRequest.newBuilder(node.resolve(STORES)).GET().build();
+            replies.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        Map<String, Long> revenue = new TreeMap<>();
+        for (CompletableFuture<HttpResponse<String>> reply : replies) {
+            HttpResponse<String> response;
+            try {
+                response = reply.join();
+            } catch (CompletionException e) {
+                throw new IOException("Node unreachable: " + e.getCause().getMessage(), e.getCause());
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Node answered " + response.statusCode() + ": " + response.uri());
+            }
+            OrderServer.parseObject(response.body())
+                .forEach((store, dollars) -> revenue.merge(store, Money.parse(dollars), Money::plus));
+        }
+        return revenue;
+    }
+
+    /**
+     * Routes one store request to its node, or answers the revenue of every store.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(STORES.length());
+            if (path.isEmpty() || path.equals("/")) {
+                OrderServer.respond(exchange, 200, StoreNode.revenueJson(revenue()));
+                return;
+            }
+            int slash = path.indexOf('/', 1);
+            String store = path.substring(1, slash < 0 ? path.length() : slash);
+            String rest = slash < 0 ? "" : path.substring(slash);
+            if (!StoreNode.isStoreId(store) || !(rest.equals(SESSIONS) || rest.startsWith(SESSIONS + "/"))) {
+                OrderServer.respond(exchange, 404, OrderServer.error("No such resource"));
+                return;
+            }
+            Cluster current = cluster;
+            int node;
+            if (rest.length() <= SESSIONS.length() + 1) {
+                node = current.ring.nodeFor(store);
+            } else {
+                String id = rest.substring(SESSIONS.length() + 1);
+                node = StoreNode.nodeOf(parseId(id.indexOf('/') < 0 ? id : id.substring(0, id.indexOf('/'))));
+            }
+            URI target = current.nodes.get(node);
+            if (target == null) {
+                OrderServer.respond(exchange, 404, OrderServer.error("No node " + node + " in the cluster"));
+                return;
+            }
+            forward(exchange, target);
+        } catch (IllegalArgumentException e) {
+            OrderServer.respond(exchange, 400, OrderServer.error(e.getMessage()));
+        } catch (IllegalStateException | IOException e) {
+            OrderServer.respond(exchange, 503, OrderServer.error(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Lists the nodes, or adds one.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void nodes(HttpExchange exchange) throws IOException {
+        try {
+            if (exchange.getRequestMethod().equals("POST")) {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                String address = OrderServer.parseObject(body).get("address");
+                if (address == null) {
+                    throw new IllegalArgumentException("The address of the node is missing");
+                }
+                int node = addNode(address);
+                StringBuilder json = new StringBuilder("{\"node\":").append(node).append(",\"share\":");
+                json.append(String.format("%.4f", cluster.ring.share(node))).append('}');
+                OrderServer.respond(exchange, 201, json.toString());
+                return;
+            }
+            Cluster current = cluster;
+            StringBuilder json = new StringBuilder("{\"nodes\":[");
+            for (int node : current.ring.getNodes()) {
+                if (json.charAt(json.length() - 1) != '[') {
+                    json.append(',');
+                }
+                json.append("{\"node\":").append(node).append(",\"address\":");
+                OrderServer.appendString(json, current.nodes.get(node).getAuthority());
+                json.append(",\"share\":").append(String.format("%.4f", current.ring.share(node))).append('}');
+            }
+            OrderServer.respond(exchange, 200, json.append("]}").toString());
+        } catch (IllegalArgumentException e) {
+            OrderServer.respond(exchange, 400, OrderServer.error(e.getMessage()));
+        } catch (IOException e) {
+            OrderServer.respond(exchange, 502, OrderServer.error(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends a request on to a node and copies its response back.
+     *
+     * @param exchange the request and response
+     * @param node     the base address of the node
+     * @throws IOException if the node cannot be reached or the response cannot be written
+     */
+    private void forward(HttpExchange exchange, URI node) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        URI uri = exchange.getRequestURI();
+        HttpRequest.Builder request = HttpRequest.newBuilder(node.resolve(uri.getRawQuery() == null
+            ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery()))
+            .method(exchange.getRequestMethod(), body.length == 0 ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body));
+        String type = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (type != null) {
+            request.header("Content-Type", type);
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding", e);
+        }
+        byte[] bytes = response.body();
+        response.headers().firstValue("Content-Type")
+            .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+        exchange.sendResponseHeaders(response.statusCode(), bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Sends a GET request and waits for a successful response.
+     *
+     * @param uri the address to get
+     * @return the response
+     * @throws IOException if the request fails or is not answered with 200
+     */
+    private HttpResponse<String> get(URI uri) throws IOException {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Node answered " + response.statusCode() + ": " + uri);
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reaching " + uri, e);
+        }
+    }
+
+    /**
+     * Parses a session identifier from the path.
+     *
+     * @param text the path segment
+     * @return the session identifier
+     * @throws IllegalArgumentException if the segment is not an identifier
+     */
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a session: " + text);
+        }
+    }
+
+    /**
+     * Main method that routes requests to the given nodes until the process is stopped.
+     * Usage: {@code StoreRouter <port> <node host:port>...}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: StoreRouter <port> <node host:port>...");
+            System.exit(2);
+        }
+        StoreRouter router = new StoreRouter(new InetSocketAddress(Integer.parseInt(args[0])));
+        for (int i = 1; i < args.length; i++) {
+            int node = router.addNode(args[i]);
+            System.err.println("Node " + node + " at " + args[i]);
+        }
+        router.start();
+        System.err.println("Routing stores on port " + router.getPort());
+    }
+}
@@ -0,0 +1,48 @@
+package bakery;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors used to drive customer sessions.
+ * On a JDK with virtual threads every task gets its own virtual thread. The build
+ * targets Java 17, which has none, so there the tasks share a bounded pool of
+ * platform threads, sized by the {@code bakery.threads} system property and 256 by
+ * default; tasks beyond that wait in a queue instead of each starting a thread.
+ */
+final class VirtualThreads {
+
+    /**
+     * Most platform threads a fallback executor starts.
+     */
+    static final int PLATFORM_THREADS = Integer.getInteger("bakery.threads", 256);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task, or a
+     * bounded pool of daemon platform threads when the runtime has no virtual threads.
+     *
+     * @return a thread-per-task executor, or a bounded pool
+     */
+    static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
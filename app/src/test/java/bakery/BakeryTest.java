@@ -0,0 +1,44 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the console flows of {@code Bakery} by replaying a customer's answers.
+ */
+class BakeryTest {
+
+    /**
+     * A cake that is out of stock is refused with "Try Again" and the cake menu
+     * is shown again, the way every other menu behaves.
+     */
+    @Test
+    void cakeOutOfStockAsksAgain() {
+        Inventory inventory = new Inventory(1);
+        inventory.setStock(BakeryEnum.CakeOptions.CARROT, 1);
+        BakerySession session = new SessionEngine(null, inventory).open();
+        String answers = "cake\n"
+            + "Carrot Cake\nLemon Frosting\nCaramel\n1\n2\n"
+            + "Carrot Cake\nLemon Frosting\nCaramel\n1\n1\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+
+        new Bakery(session, Channels.newChannel(new ByteArrayInputStream(answers.getBytes(StandardCharsets.UTF_8))),
+            out).buying();
+
+        String shown = output.toString(StandardCharsets.UTF_8);
+        assertTrue(shown.contains("Sorry, Not Enough in Stock. Try Again"), shown);
+        assertEquals(1, session.getShoppingCart().size());
+        assertEquals(1, session.getShoppingCart().getQuantity(0));
+        assertEquals(0, inventory.getAvailable(BakeryEnum.CakeOptions.CARROT));
+        assertEquals(2, shown.split("Select Type of Cake", -1).length - 1);
+    }
+}
@@ -0,0 +1,137 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@code CompactCart} folds repeated purchases into one line, keeps
+ * different cake configurations apart, and stays unchanged when a line overflows.
+ */
+class CompactCartTest {
+
+    private final PriceTable prices = PriceTable.current();
+    private final BakeryEnum.CakeOptions cake = BakeryEnum.CakeOptions.values()[0];
+    private final BakeryEnum.FrostingOptions frosting = BakeryEnum.FrostingOptions.values()[0];
+    private final BakeryEnum.FillingOptions filling = BakeryEnum.FillingOptions.values()[0];
+
+    /**
+     * Buying the same option again adds to its line instead of starting a new one.
+     */
+    @Test
+    void repeatedOptionsCoalesce() {
+        CompactCart cart = new CompactCart(prices);
+
+        int first = cart.add(BakeryEnum.PieOptions.PECAN, 2, 2_000);
+        int other = cart.add(BakeryEnum.PieOptions.APPLE, 1, 900);
+        int again = cart.add(BakeryEnum.PieOptions.PECAN, 3, 3_000);
+
+        assertEquals(first, again);
+        assertEquals(1, other);
+        assertEquals(2, cart.size());
+        assertEquals(5, cart.getQuantity(first));
+        assertEquals(5_000, cart.getPrice(first));
+        assertEquals(5_900, cart.getSubtotal());
+    }
+
+    /**
+     * Cakes coalesce only with cakes of the same frosting, filling and layers.
+     */
+    @Test
+    void cakesCoalesceByConfiguration() {
+        CompactCart cart = new CompactCart(prices, 1);
+        BakeryEnum.FrostingOptions otherFrosting = BakeryEnum.FrostingOptions.values()[1];
+
+        int first = cart.addCake(cake, frosting, filling, 2, 1, 1_000);
+        int layers = cart.addCake(cake, frosting, filling, 3, 1, 1_200);
+        int frosted = cart.addCake(cake, otherFrosting, filling, 2, 1, 1_100);
+        int again = cart.addCake(cake, frosting, filling, 2, 4, 4_000);
+
+        assertEquals(first, again);
+        assertEquals(3, cart.size());
+        assertEquals(1, layers);
+        assertEquals(2, frosted);
+        assertEquals(5, cart.getQuantity(first));
+        assertEquals(2, cart.getLayers(first));
+        assertEquals(otherFrosting, cart.getFrosting(frosted));
+        assertEquals(7_300, cart.getSubtotal());
+    }
+
+    /**
+     * A merge whose quantity or price would overflow is refused and leaves the
+     * line and the cart total as they were.
+     */
+    @Test
+    void overflowLeavesCartUnchanged() {
+        CompactCart cart = new CompactCart(prices);
+        int line = cart.add(BakeryEnum.PieOptions.PECAN, Integer.MAX_VALUE, 1_000);
+
+        assertThrows(ArithmeticException.class, () -> cart.add(BakeryEnum.PieOptions.PECAN, 1, 1));
+        assertThrows(ArithmeticException.class, () -> cart.add(BakeryEnum.PieOptions.APPLE, 1, Long.MAX_VALUE));
+
+        assertEquals(1, cart.size());
+        assertEquals(Integer.MAX_VALUE, cart.getQuantity(line));
+        assertEquals(1_000, cart.getPrice(line));
+        assertEquals(1_000, cart.getSubtotal());
+    }
+
+    /**
+     * A purchase whose promotion discount would overflow is refused and leaves
+     * the line, the cart total and the discount as they were.
+     */
+    @Test
+    void promotionOverflowLeavesCartUnchanged() {
+        PriceTable promoted = prices.withPromotions(Promotions.parse(List.of(
+            "pie: 1 pie = 50000000000000000.00")));
+        CompactCart cart = new CompactCart(promoted);
+        int line = cart.add(BakeryEnum.PieOptions.PECAN, 1, 1_000);
+        long discount = cart.getDiscount();
+
+        assertThrows(ArithmeticException.class, () -> cart.add(BakeryEnum.PieOptions.PECAN, 1, 1_000));
+        assertThrows(ArithmeticException.class, () -> cart.add(BakeryEnum.PieOptions.APPLE, 1, 900));
+
+        assertEquals(1, cart.size());
+        assertEquals(1, cart.getQuantity(line));
+        assertEquals(1_000, cart.getSubtotal());
+        assertEquals(discount, cart.getDiscount());
+    }
+
+    /**
+     * A cake whose frosting portions overflow one promotion is not counted towards
+     * another either, so no promotion is left half updated.
+     */
+    @Test
+    void cakePromotionOverflowCountsNothing() {
+        PriceTable promoted = prices.withPromotions(Promotions.parse(List.of(
+            "cake: 1 cake = 1.00",
+            "frosting: 1 frosting = 50000000000000000.00")));
+        CompactCart cart = new CompactCart(promoted);
+
+        assertThrows(ArithmeticException.class, () -> cart.addCake(cake, frosting, filling, 2, 1, 100_000));
+
+        assertEquals(0, cart.size());
+        assertEquals(0, cart.getSubtotal());
+        cart.add(BakeryEnum.PieOptions.APPLE, 1, 900);
+        assertEquals(0, cart.getDiscount());
+    }
+
+    /**
+     * Clearing the cart forgets its lines, so the next purchase starts a new first line.
+     */
+    @Test
+    void clearForgetsLines() {
+        CompactCart cart = new CompactCart(prices);
+        cart.add(BakeryEnum.PieOptions.APPLE, 1, 900);
+        cart.addCake(cake, frosting, filling, 2, 1, 1_000);
+        cart.clear();
+
+        assertEquals(0, cart.size());
+        assertEquals(0, cart.getSubtotal());
+        assertEquals(0, cart.addCake(cake, frosting, filling, 2, 1, 1_000));
+        assertEquals(1, cart.add(BakeryEnum.PieOptions.APPLE, 1, 900));
+        assertEquals(1, cart.getQuantity(1));
+    }
+}
@@ -0,0 +1,176 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the striped {@code Inventory} neither loses nor invents stock when
+ * many threads reserve and release the same option at once.
+ */
+class InventoryTest {
+
+    private static final BakeryOption PIE = BakeryEnum.PieOptions.PECAN;
+    private static final int THREADS = 8;
+
+    /**
+     * Runs a task on several threads started together, and waits for them all.
+     *
+     * @param task the task, given the number of its thread and returning a count
+     * @return the counts returned by the threads, added up
+     * @throws Exception if a thread fails
+     */
+    private static long race(Race.Task<Long> task) throws Exception {
+        return Race.all(THREADS, task).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Stock stays conserved when reservations and releases interleave: what is
+     * available plus what is still held always adds up to the stock set.
+     */
+    @Test
+    void reserveAndReleaseConserveStock() throws Exception {
+        Inventory inventory = new Inventory(THREADS);
+        inventory.setStock(PIE, 10_000);
+
+        long held = race(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long mine = 0;
+            for (int i = 0; i < 100_000; i++) {
+                if (mine > 0 && random.nextBoolean()) {
+                    long units = 1 + random.nextLong(mine);
+                    inventory.release(PIE, units);
+                    mine -= units;
+                } else {
+                    long units = 1 + random.nextInt(5);
+                    if (inventory.reserve(PIE, units)) {
+                        mine += units;
+                    }
+                }
+            }
+            return mine;
+        });
+
+        assertEquals(10_000, inventory.getAvailable(PIE) + held);
+    }
+
+    /**
+     * Racing reservations never sell more than is in stock, and what they leave
+     * behind can still be reserved, wherever it sits among the stripes.
+     */
+    @Test
+    void reservationsNeverOversell() throws Exception {
+        Inventory inventory = new Inventory(THREADS);
+        inventory.setStock(PIE, 1_001);
+
+        long sold = race(thread -> {
+            long mine = 0;
+            while (inventory.reserve(PIE, 3)) {
+                mine += 3;
+            }
+            return mine;
+        });
+        while (inventory.reserve(PIE, 1)) {
+            sold++;
+        }
+
+        assertEquals(1_001, sold);
+        assertEquals(0, inventory.getAvailable(PIE));
+        assertFalse(inventory.reserve(PIE, 1));
+    }
+
+    /**
+     * A reservation larger than the stock fails as a whole and takes nothing.
+     */
+    @Test
+    void failedReservationTakesNothing() {
+        Inventory inventory = new Inventory(4);
+        inventory.setStock(PIE, 10);
+
+        assertFalse(inventory.reserve(PIE, 11));
+        assertEquals(10, inventory.getAvailable(PIE));
+        assertTrue(inventory.reserve(PIE, 10));
+        assertEquals(0, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * Options whose stock was never set never run out.
+     */
+    @Test
+    void untrackedOptionsNeverRunOut() {
+        Inventory inventory = new Inventory(4);
+
+        assertFalse(inventory.isTracked(PIE));
+        assertTrue(inventory.reserve(PIE, Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * Restocking adds to a tracked option, and is refused for an untracked one
+     * instead of being silently ignored.
+     */
+    @Test
+    void restockOnlyTrackedOptions() {
+        Inventory inventory = new Inventory(4);
+        inventory.setStock(PIE, 5);
+        inventory.restock(PIE, 7);
+
+        assertEquals(12, inventory.getAvailable(PIE));
+        assertThrows(IllegalStateException.class, () -> inventory.restock(BakeryEnum.PieOptions.APPLE, 1));
+        assertFalse(inventory.isTracked(BakeryEnum.PieOptions.APPLE));
+    }
+
+    /**
+     * Stock set by one thread is seen by the threads reserving it: once it is
+     * set, no thread reserves more than it holds.
+     */
+    @Test
+    void stockSetWhileReservingIsSeen() throws Exception {
+        Inventory inventory = new Inventory(THREADS);
+        CountDownLatch set = new CountDownLatch(1);
+
+        long sold = race(thread -> {
+            if (thread == 0) {
+                inventory.setStock(PIE, 500);
+                set.countDown();
+                return 0L;
+            }
+            set.await();
+            long mine = 0;
+            while (inventory.reserve(PIE, 1)) {
+                mine++;
+            }
+            return mine;
+        });
+
+        assertEquals(500, sold);
+        assertEquals(0, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * A session whose cart refuses a line, here because the quantity of a merged
+     * line would overflow, gives back the stock it reserved for it.
+     */
+    @Test
+    void failedCartAddReleasesStock() {
+        Inventory inventory = new Inventory(4);
+        inventory.setStock(PIE, Long.MAX_VALUE / 2);
+        BakerySession session = new SessionEngine(null, inventory).open();
+        long before = inventory.getAvailable(PIE);
+
+        session.addPie(BakeryEnum.PieOptions.PECAN, Integer.MAX_VALUE / 2 + 1);
+        long after = inventory.getAvailable(PIE);
+        assertThrows(ArithmeticException.class,
+            () -> session.addPie(BakeryEnum.PieOptions.PECAN, Integer.MAX_VALUE / 2 + 1));
+
+        assertEquals(after, inventory.getAvailable(PIE));
+        session.cancel();
+        assertEquals(before, inventory.getAvailable(PIE));
+    }
+}
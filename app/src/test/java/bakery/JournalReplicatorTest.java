@@ -0,0 +1,205 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a {@code JournalFollower} ends up with the same journal as the primary,
+ * including after reconnecting, and that {@code JournalReplicator.Durability#SYNC}
+ * checkouts wait for followers only while one is there to wait for.
+ */
+class JournalReplicatorTest {
+
+    private static final int SEGMENT_BYTES = 1024;
+
+    @TempDir
+    Path primaryDirectory;
+
+    @TempDir
+    Path followerDirectory;
+
+    /**
+     * Builds a cart of pecan pies priced with the current price table.
+     *
+     * @param pies the number of pies
+     * @return the cart
+     */
+    private static CompactCart cart(int pies) {
+        PriceTable prices = PriceTable.current();
+        CompactCart cart = new CompactCart(prices);
+        cart.add(BakeryEnum.PieOptions.PECAN, pies, prices.calculatePrice(BakeryEnum.PieOptions.PECAN, pies));
+        return cart;
+    }
+
+    /**
+     * Appends checkouts to a journal and waits for each to be confirmed.
+     *
+     * @param journal the journal
+     * @param count   the number of checkouts
+     * @return the sequence number of the last one
+     */
+    private static long checkOut(OrderJournal journal, int count) {
+        long sequence = 0;
+        for (int i = 1; i <= count; i++) {
+            CompactCart cart = cart(i);
+            sequence = journal.append(i, cart, cart.getTotal());
+            journal.awaitDurable(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits up to ten seconds for a condition to hold.
+     *
+     * @param what      what is being waited for, for the failure message
+     * @param condition the condition
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Reads every segment file of a journal directory in order.
+     *
+     * @param directory the journal directory
+     * @return the contents of each segment file
+     * @throws IOException if a segment cannot be read
+     */
+    private static List<byte[]> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> paths = files.sorted().collect(Collectors.toList());
+            List<byte[]> contents = new ArrayList<>();
+            for (Path path : paths) {
+                contents.add(Files.readAllBytes(path));
+            }
+            return contents;
+        }
+    }
+
+    /**
+     * A follower that is closed and started again from its journal on disk copies
+     * the records written while it was away, and ends with segment files identical
+     * to the primary's, rolled at the same records.
+     */
+    @Test
+    void followerCatchesUpAfterReconnecting() throws Exception {
+        try (OrderJournal primary = new OrderJournal(primaryDirectory, SEGMENT_BYTES);
+             JournalReplicator replicator = new JournalReplicator(primary,
+                 new InetSocketAddress("127.0.0.1", 0), JournalReplicator.Durability.ASYNC, 1, 0)) {
+
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", replicator.getPort());
+            try (OrderJournal copy = new OrderJournal(followerDirectory, SEGMENT_BYTES);
+                 JournalFollower follower = new JournalFollower(copy, address)) {
+                long last = checkOut(primary, 20);
+                await("the follower to copy " + last + " records", () -> follower.getLastSequence() == last);
+            }
+
+            long last = checkOut(primary, 30);
+            assertEquals(50, last);
+            try (OrderJournal copy = new OrderJournal(followerDirectory, SEGMENT_BYTES);
+                 JournalFollower follower = new JournalFollower(copy, address)) {
+                assertEquals(20, follower.getLastSequence());
+                await("the follower to catch up", () -> follower.getLastSequence() == last);
+                await("the acknowledgement", () -> replicator.getReplicatedSequence() == last);
+            }
+        }
+
+        List<byte[]> primarySegments = segments(primaryDirectory);
+        List<byte[]> followerSegments = segments(followerDirectory);
+        assertTrue(primarySegments.size() > 2, "the primary should have rolled segments");
+        assertEquals(primarySegments.size(), followerSegments.size());
+        for (int i = 0; i < primarySegments.size(); i++) {
+            assertArrayEquals(primarySegments.get(i), followerSegments.get(i), "segment " + i);
+        }
+    }
+
+    /**
+     * With a follower connected, a synchronous checkout is confirmed only once the
+     * follower has acknowledged it.
+     */
+    @Test
+    void syncCheckoutWaitsForFollower() throws Exception {
+        try (OrderJournal primary = new OrderJournal(primaryDirectory, SEGMENT_BYTES);
+             JournalReplicator replicator = new JournalReplicator(primary, new InetSocketAddress("127.0.0.1", 0),
+                 JournalReplicator.Durability.SYNC, 1, TimeUnit.SECONDS.toNanos(10));
+             OrderJournal copy = new OrderJournal(followerDirectory, SEGMENT_BYTES);
+             JournalFollower follower = new JournalFollower(copy,
+                 new InetSocketAddress("127.0.0.1", replicator.getPort()))) {
+
+            await("the follower to connect", () -> replicator.getFollowerCount() == 1);
+            long last = checkOut(primary, 5);
+            assertTrue(replicator.getReplicatedSequence() >= last);
+            assertEquals(last, follower.getLastSequence());
+            assertEquals(0, replicator.getSyncTimeouts());
+            assertEquals(0, replicator.getUnreplicated());
+        }
+    }
+
+    /**
+     * A synchronous checkout whose follower never acknowledges is confirmed once the
+     * timeout passes, being durable on the primary, and is counted as a timeout.
+     */
+    @Test
+    void syncCheckoutTimesOutOnSilentFollower() throws Exception {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(50);
+        try (OrderJournal primary = new OrderJournal(primaryDirectory, SEGMENT_BYTES);
+             JournalReplicator replicator = new JournalReplicator(primary, new InetSocketAddress("127.0.0.1", 0),
+                 JournalReplicator.Durability.SYNC, 1, timeout);
+             SocketChannel silent = SocketChannel.open(new InetSocketAddress("127.0.0.1", replicator.getPort()))) {
+
+            silent.write(ByteBuffer.allocate(8).putLong(0, 0));
+            await("the follower to connect", () -> replicator.getFollowerCount() == 1);
+            long start = System.nanoTime();
+            long last = checkOut(primary, 2);
+            assertTrue(System.nanoTime() - start >= 2 * timeout, "each checkout should wait out the timeout");
+            assertEquals(2, replicator.getSyncTimeouts());
+            assertEquals(0, replicator.getUnreplicated());
+            assertEquals(0, replicator.getReplicatedSequence());
+            assertEquals(last, primary.getLastSequence());
+        }
+    }
+
+    /**
+     * A synchronous checkout with no follower connected does not wait, and is
+     * counted as unreplicated rather than as a timeout.
+     */
+    @Test
+    void syncCheckoutWithoutFollowersIsUnreplicated() throws Exception {
+        try (OrderJournal primary = new OrderJournal(primaryDirectory, SEGMENT_BYTES);
+             JournalReplicator replicator = new JournalReplicator(primary, new InetSocketAddress("127.0.0.1", 0),
+                 JournalReplicator.Durability.SYNC, 1, TimeUnit.SECONDS.toNanos(10))) {
+
+            long start = System.nanoTime();
+            checkOut(primary, 3);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "checkouts should not wait");
+            assertEquals(3, replicator.getUnreplicated());
+            assertEquals(0, replicator.getSyncTimeouts());
+            assertEquals(0, replicator.getFollowerCount());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the console menus are rendered once per price table and show the
+ * prices of the table they were rendered with.
+ */
+class MenusTest {
+
+    private static final BakeryEnum.PieOptions PIE = BakeryEnum.PieOptions.PECAN;
+
+    /**
+     * Sessions alternating between two price tables reuse the menus of each
+     * table instead of rendering them again on every switch.
+     */
+    @Test
+    void menusAreRenderedOncePerTable() {
+        PriceTable first = PriceTable.listPrices().withPrice(PIE, 1_234);
+        PriceTable second = first.withPrice(PIE, 5_678);
+
+        Menus firstMenus = Menus.of(first);
+        Menus secondMenus = Menus.of(second);
+
+        assertNotSame(firstMenus, secondMenus);
+        assertSame(firstMenus, Menus.of(first));
+        assertSame(secondMenus, Menus.of(second));
+        assertSame(firstMenus.get(BakeryEnum.PIE), Menus.of(first).get(BakeryEnum.PIE));
+    }
+
+    /**
+     * Each table's menu shows that table's prices.
+     */
+    @Test
+    void menusShowTheirTablesPrices() {
+        PriceTable first = PriceTable.listPrices().withPrice(PIE, 1_234);
+        PriceTable second = first.withPrice(PIE, 5_678);
+
+        String firstMenu = new String(Menus.of(first).get(BakeryEnum.PIE), Charset.defaultCharset());
+        String secondMenu = new String(Menus.of(second).get(BakeryEnum.PIE), Charset.defaultCharset());
+
+        assertTrue(firstMenu.contains(PIE.getDescription() + ", $12.34"), firstMenu);
+        assertTrue(secondMenu.contains(PIE.getDescription() + ", $56.78"), secondMenu);
+    }
+}
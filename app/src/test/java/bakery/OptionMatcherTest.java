@@ -0,0 +1,91 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests how {@code OptionMatcher} resolves what a customer types: how many mistakes
+ * it forgives at each length, and that text fitting more than one option resolves
+ * to none but is offered back as candidates.
+ */
+class OptionMatcherTest {
+
+    /**
+     * Whole descriptions resolve however they are punctuated or cased, and with a
+     * swapped pair of letters or a letter left out.
+     */
+    @Test
+    void wholeDescriptionsAndNearSpellings() {
+        assertEquals(BakeryEnum.CookieOptions.MM, OptionMatcher.resolve(BakeryEnum.COOKIE, "m&m  COOKIE"));
+        assertEquals(BakeryEnum.PieOptions.PECAN, OptionMatcher.resolve(BakeryEnum.PIE, "pecna pie"));
+        assertEquals(BakeryEnum.PieOptions.PECAN, OptionMatcher.resolve(BakeryEnum.PIE, "pcan pie"));
+        assertEquals(BakeryEnum.CakeOptions.CARAMEL, OptionMatcher.resolve(BakeryEnum.CAKE, "carmel cake"));
+    }
+
+    /**
+     * Up to three letters must be typed exactly, up to seven may have one mistake,
+     * and longer text two.
+     */
+    @Test
+    void mistakesForgivenGrowWithLength() {
+        assertNull(OptionMatcher.resolve(BakeryEnum.PIE, "chx"));
+        assertEquals(BakeryEnum.PieOptions.CHERRY, OptionMatcher.resolve(BakeryEnum.PIE, "cheery"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.PIE, "chxxry"));
+        assertEquals(BakeryEnum.PieOptions.BLUEBERRY, OptionMatcher.resolve(BakeryEnum.PIE, "bluebery pie"));
+        assertEquals(BakeryEnum.PieOptions.BLUEBERRY, OptionMatcher.resolve(BakeryEnum.PIE, "bluebrry pye"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.PIE, "blubrry pye"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.PIE, ""));
+        assertNull(OptionMatcher.resolve(BakeryEnum.PIE, " &! "));
+    }
+
+    /**
+     * A prefix resolves only when no other option has a word it starts, so a single
+     * letter that starts a later word of every cookie finds none of them, while a
+     * word found in one description alone does.
+     */
+    @Test
+    void prefixesMustFitOneOption() {
+        assertNull(OptionMatcher.resolve(BakeryEnum.COOKIE, "c"));
+        assertNull(OptionIndex.find(BakeryEnum.COOKIE, "c"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.COOKIE, "sugar"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.COOKIE, "chocolate"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.CAKE, "car"));
+        assertNull(OptionMatcher.resolve(BakeryEnum.CAKE, "cake"));
+        assertEquals(BakeryEnum.PieOptions.PECAN, OptionMatcher.resolve(BakeryEnum.PIE, "pecan"));
+        assertEquals(BakeryEnum.PieOptions.COOKIES_N_CREME, OptionMatcher.resolve(BakeryEnum.PIE, "creme"));
+        assertEquals(BakeryEnum.CookieOptions.OATMEAL_RAISIN, OptionIndex.find(BakeryEnum.COOKIE, "raisin"));
+    }
+
+    /**
+     * A whole description spelt closer than any other resolves even though the same
+     * words end another description.
+     */
+    @Test
+    void wholeDescriptionOutranksTheSameWordsInAnother() {
+        assertEquals(BakeryEnum.CookieOptions.SUGAR, OptionMatcher.resolve(BakeryEnum.COOKIE, "sugar cookei"));
+    }
+
+    /**
+     * Text that fits several options lists them, first words ahead of later ones
+     * and shorter descriptions first among equals.
+     */
+    @Test
+    void ambiguousTextListsCandidates() {
+        assertEquals(Arrays.asList(BakeryEnum.CookieOptions.SUGAR, BakeryEnum.CookieOptions.FROSTED_SUGAR),
+            OptionMatcher.candidates(BakeryEnum.COOKIE, "sugar", 3));
+        assertEquals(Arrays.asList(BakeryEnum.CakeOptions.CARROT, BakeryEnum.CakeOptions.CARAMEL),
+            OptionMatcher.candidates(BakeryEnum.CAKE, "car", 3));
+        List<BakeryOption> cookies = OptionMatcher.candidates(BakeryEnum.COOKIE, "c", 10);
+        assertEquals(BakeryEnum.COOKIE.getOptionCount(), cookies.size());
+        assertEquals(BakeryEnum.CookieOptions.CHOCOLATE_CHIP, cookies.get(0));
+        assertTrue(OptionMatcher.candidates(BakeryEnum.PIE, "zzzz", 3).isEmpty());
+        assertEquals(" Did You Mean Carrot Cake or Caramel Cake?",
+            OptionMatcher.suggest(BakeryEnum.CAKE, "car", " Did You Mean ", "?"));
+    }
+}
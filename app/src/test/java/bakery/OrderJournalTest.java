@@ -0,0 +1,181 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that checkouts written to an {@code OrderJournal} come back the same
+ * when the journal is scanned or reopened, and that a closed or damaged journal
+ * fails the way callers expect.
+ */
+class OrderJournalTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a cart of pies and cakes priced with the current price table.
+     *
+     * @param pies the number of pecan pies
+     * @return the cart
+     */
+    private static CompactCart cart(int pies) {
+        PriceTable prices = PriceTable.current();
+        CompactCart cart = new CompactCart(prices);
+        cart.add(BakeryEnum.PieOptions.PECAN, pies, prices.calculatePrice(BakeryEnum.PieOptions.PECAN, pies));
+        BakeryEnum.CakeOptions cake = BakeryEnum.CakeOptions.values()[0];
+        BakeryEnum.FrostingOptions frosting = BakeryEnum.FrostingOptions.values()[0];
+        BakeryEnum.FillingOptions filling = BakeryEnum.FillingOptions.values()[0];
+        cart.addCake(cake, frosting, filling, 2, 1, prices.cakePrice(cake, frosting, filling, 2, 1));
+        return cart;
+    }
+
+    /**
+     * Reads every record of the journal directory.
+     *
+     * @return the sequence number, session and total of each record, in order
+     * @throws IOException if the journal cannot be read
+     */
+    private List<long[]> scan() throws IOException {
+        List<long[]> records = new ArrayList<>();
+        OrderJournal.scan(directory, record -> {
+            assertEquals(2, record.getLineCount());
+            assertEquals(BakeryEnum.PieOptions.PECAN, record.getOption(0));
+            records.add(new long[] {record.getSequence(), record.getSessionId(), record.getTotal()});
+        });
+        return records;
+    }
+
+    /**
+     * Appended records are durable once awaited, scan back in order with their
+     * lines, and numbering continues where it left off after reopening.
+     */
+    @Test
+    void appendAwaitScanAndReopenRoundTrip() throws IOException {
+        CompactCart cart = cart(3);
+        try (OrderJournal journal = OrderJournal.open(directory)) {
+            for (int i = 1; i <= 3; i++) {
+                long sequence = journal.append(100 + i, cart, cart.getTotal() + i);
+                assertEquals(i, sequence);
+                journal.awaitDurable(sequence);
+            }
+            assertEquals(3, journal.getLastSequence());
+        }
+
+        List<long[]> records = scan();
+        assertEquals(3, records.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, records.get(i)[0]);
+            assertEquals(101 + i, records.get(i)[1]);
+            assertEquals(cart.getTotal() + i + 1, records.get(i)[2]);
+        }
+
+        try (OrderJournal journal = OrderJournal.open(directory)) {
+            assertEquals(3, journal.getLastSequence());
+            journal.awaitDurable(journal.append(200, cart, cart.getTotal()));
+        }
+        assertEquals(4, scan().size());
+        assertEquals(4, scan().get(3)[0]);
+    }
+
+    /**
+     * Records appended and awaited from many threads at once all arrive, each with
+     * its own sequence number, across segment rolls.
+     */
+    @Test
+    void concurrentAppendsAreAllDurable() throws Exception {
+        CompactCart cart = cart(1);
+        int threads = 8;
+        int perThread = 500;
+        try (OrderJournal journal = new OrderJournal(directory, 64 * 1024)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long session = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.awaitDurable(journal.append(session, cart, cart.getTotal()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            assertEquals(threads * perThread, journal.getLastSequence());
+        }
+
+        List<long[]> records = scan();
+        assertEquals(threads * perThread, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i)[0]);
+        }
+    }
+
+    /**
+     * Closing flushes what was written, so awaiting a written record still returns,
+     * while awaiting one never written, or appending, fails.
+     */
+    @Test
+    void closedJournalRefusesNewRecords() throws IOException {
+        CompactCart cart = cart(1);
+        OrderJournal journal = OrderJournal.open(directory);
+        long sequence = journal.append(1, cart, cart.getTotal());
+        journal.close();
+
+        journal.awaitDurable(sequence);
+        assertThrows(IllegalStateException.class, () -> journal.awaitDurable(sequence + 1));
+        assertThrows(IllegalStateException.class, () -> journal.append(2, cart, cart.getTotal()));
+        assertEquals(1, scan().size());
+    }
+
+    /**
+     * A scan stops at the first damaged record instead of returning its garbage,
+     * and a reopened journal continues after the last good record.
+     */
+    @Test
+    void scanStopsAtDamagedRecord() throws IOException {
+        CompactCart cart = cart(2);
+        try (OrderJournal journal = OrderJournal.open(directory)) {
+            for (int i = 0; i < 3; i++) {
+                journal.awaitDurable(journal.append(i, cart, cart.getTotal()));
+            }
+        }
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            long second = JournalRecord.HEADER_BYTES + length.getInt(0);
+            ByteBuffer damage = ByteBuffer.allocate(1);
+            channel.read(damage, second + JournalRecord.HEADER_BYTES + 1);
+            damage.put(0, (byte) ~damage.get(0));
+            channel.write(damage.rewind(), second + JournalRecord.HEADER_BYTES + 1);
+        }
+
+        assertEquals(1, scan().size());
+        try (OrderJournal journal = OrderJournal.open(directory)) {
+            assertEquals(1, journal.getLastSequence());
+            assertEquals(2, journal.append(9, cart, cart.getTotal()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@code OrderPipeline} reads order files the way {@code BatchOrders}
+ * does, checks out each order once, and gives stock back when a stage fails.
+ */
+class OrderPipelineTest {
+
+    private static final String ORDERS = String.join("\n",
+        "# wholesale orders",
+        "order,category,option,quantity,layers,frosting,filling",
+        "1,pie,Apple Pie,2",
+        "# a comment between the lines of one order",
+        "1,pastry,Croissant,3",
+        "",
+        "1,cookie,Sugar Cookie,12",
+        "2,cake,Carrot Cake,2,3,Lemon Frosting,Caramel",
+        "2,bread,White Bread,many",
+        "3,cookie,Sugar Cookie,24\r",
+        "");
+
+    @TempDir
+    Path directory;
+
+    private PriceTable previous;
+
+    /**
+     * Publishes promotions, so an order split in two would earn less.
+     */
+    @BeforeEach
+    void setUp() {
+        previous = PriceTable.current();
+        PriceTable.publish(previous.withPromotions(Promotions.parse(List.of(
+            "cookie-dozen: 12 cookie = 2.00",
+            "pie-and-pastry: 1 pie + 1 pastry = 1.50"))));
+    }
+
+    /**
+     * Puts back the price table current before the test.
+     */
+    @AfterEach
+    void tearDown() {
+        PriceTable.publish(previous);
+    }
+
+    /**
+     * Wraps text in a channel.
+     *
+     * @param text the text
+     * @return a channel reading the text as UTF-8
+     */
+    private static ReadableByteChannel channel(String text) {
+        return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Builds an order file of one-line orders.
+     *
+     * @param orders the number of orders
+     * @return the order file
+     */
+    private static String pies(int orders) {
+        StringBuilder text = new StringBuilder();
+        for (int order = 1; order <= orders; order++) {
+            text.append(order).append(",pie,Pecan Pie,1\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Both readers skip the header, comments and blank lines, keep an order with
+     * a comment inside it whole, and arrive at the same orders and totals.
+     */
+    @Test
+    void readsTheSameFileAsBatchOrders() throws IOException {
+        StringWriter totals = new StringWriter();
+        BatchOrders.Result batch = new BatchOrders(PriceTable.current(), 2, 2)
+            .process(new BufferedReader(new StringReader(ORDERS)), totals);
+
+        OrderPipeline.Result piped;
+        try (SessionEngine engine = new SessionEngine()) {
+            piped = new OrderPipeline(engine, 4).process(channel(ORDERS));
+        }
+
+        assertEquals(3, batch.getOrders());
+        assertEquals(batch.getOrders(), piped.getOrders());
+        assertEquals(6, piped.getLines());
+        assertEquals(batch.getLines(), piped.getLines());
+        assertEquals(1, piped.getRejected());
+        assertEquals(batch.getRejected(), piped.getRejected());
+        assertEquals(batch.getTotal(), piped.getTotal());
+    }
+
+    /**
+     * Every order is journaled and counted once, and its stock is kept as sold.
+     */
+    @Test
+    void ordersAreJournaledAndCountedOnce() throws IOException {
+        Inventory inventory = new Inventory(2);
+        inventory.setStock(BakeryEnum.PieOptions.PECAN, 450);
+        OrderPipeline.Result result;
+        try (OrderJournal journal = OrderJournal.open(directory);
+            SessionEngine engine = new SessionEngine(journal, inventory)) {
+
+            result = new OrderPipeline(engine, 8).process(channel(pies(500)));
+            assertEquals(450, engine.getCheckouts());
+            assertEquals(result.getTotal(), engine.getRevenue());
+        }
+
+        assertEquals(450, result.getOrders());
+        assertEquals(50, result.getOutOfStock());
+        assertEquals(450, OrderJournal.scan(directory, record -> { }));
+        assertEquals(0, inventory.getAvailable(BakeryEnum.PieOptions.PECAN));
+    }
+
+    /**
+     * When the persist stage fails, here because the journal is closed, the stock
+     * reserved for the lines still in the pipeline and the order being built is
+     * given back.
+     */
+    @Test
+    void failedStageReleasesReservedStock() throws IOException {
+        Inventory inventory = new Inventory(2);
+        inventory.setStock(BakeryEnum.PieOptions.PECAN, 10_000);
+        OrderJournal journal = OrderJournal.open(directory);
+        journal.close();
+
+        try (SessionEngine engine = new SessionEngine(journal, inventory)) {
+            assertThrows(IOException.class, () -> new OrderPipeline(engine, 8).process(channel(pies(2_000))));
+            assertEquals(0, engine.getCheckouts());
+        }
+
+        assertEquals(10_000, inventory.getAvailable(BakeryEnum.PieOptions.PECAN));
+    }
+}
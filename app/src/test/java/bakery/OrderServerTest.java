@@ -0,0 +1,257 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@code OrderServer} handles racing requests on one session the way a
+ * single customer would expect: a purchase is checked out at most once, and stock
+ * is never left reserved by a session that can no longer be reached.
+ */
+class OrderServerTest {
+
+    private static final BakeryEnum.PieOptions PIE = BakeryEnum.PieOptions.PECAN;
+    private static final int STOCK = 1_000;
+
+    private Inventory inventory;
+    private SessionEngine engine;
+    private OrderServer server;
+    private HttpClient client;
+    private ExecutorService executor;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Starts a server on a free port over an engine with tracked pie stock.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(8);
+        client = HttpClient.newBuilder().executor(executor).build();
+        start(null);
+    }
+
+    /**
+     * Starts a server over a new engine, replacing the one running.
+     *
+     * @param journal the journal of the engine, or {@code null} for none
+     * @throws IOException if the server cannot be started
+     */
+    private void start(OrderJournal journal) throws IOException {
+        if (server != null) {
+            server.close();
+            engine.close();
+        }
+        inventory = new Inventory(4);
+        inventory.setStock(PIE, STOCK);
+        engine = new SessionEngine(journal, inventory);
+        server = new OrderServer(engine, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    /**
+     * Stops the server and the client threads.
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+        engine.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends a request to the server and waits for its response.
+     *
+     * @param method the HTTP method
+     * @param path   the path of the request
+     * @param body   the JSON body, or {@code null} for none
+     * @return the response
+     */
+    private HttpResponse<String> send(String method, String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Opens a session and puts two pies in its cart.
+     *
+     * @return the path of the session
+     */
+    private String openWithPies() {
+        HttpResponse<String> opened = send("POST", "/sessions", null);
+        assertEquals(201, opened.statusCode());
+        String path = "/sessions/" + OrderServer.parseObject(opened.body()).get("session");
+        assertEquals(200, send("POST", path + "/pie", "{\"option\":\"Pecan Pie\",\"quantity\":2}").statusCode());
+        return path;
+    }
+
+    /**
+     * Sends requests all at once, each from its own thread.
+     *
+     * @param requests the method and path of each request
+     * @return the status code of each response, in the order of the requests
+     * @throws Exception if a request fails
+     */
+    private List<Integer> race(String[][] requests) throws Exception {
+        return Race.all(requests.length, i -> send(requests[i][0], requests[i][1], null).statusCode());
+    }
+
+    /**
+     * Of several checkouts of the same session sent at once, one succeeds and the
+     * rest find the session gone, so each purchase is counted once.
+     */
+    @Test
+    void concurrentCheckoutsCountOnce() throws Exception {
+        int rounds = 20;
+        for (int round = 0; round < rounds; round++) {
+            String path = openWithPies();
+            String[][] requests = new String[4][];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = new String[] {"POST", path + "/checkout"};
+            }
+
+            List<Integer> codes = race(requests);
+
+            assertEquals(1, codes.stream().filter(code -> code == 200).count(), codes.toString());
+            assertEquals(requests.length - 1, codes.stream().filter(code -> code == 404).count(), codes.toString());
+        }
+
+        assertEquals(rounds, engine.getCheckouts());
+        assertEquals(rounds * PriceTable.current().calculatePrice(PIE, 2), engine.getRevenue());
+        assertEquals(STOCK - 2 * rounds, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * A checkout racing a cancel of the same session: exactly one of them wins, and
+     * the pies are either sold or back in stock, never both and never neither.
+     */
+    @Test
+    void checkoutRacingCancelSettlesOnce() throws Exception {
+        int rounds = 40;
+        for (int round = 0; round < rounds; round++) {
+            String path = openWithPies();
+            List<Integer> codes = race(new String[][] {{"POST", path + "/checkout"}, {"DELETE", path}});
+            boolean checkedOut = codes.get(0) == 200;
+            boolean cancelled = codes.get(1) == 204;
+            assertTrue(checkedOut != cancelled, codes.toString());
+            int loser = checkedOut ? codes.get(1) : codes.get(0);
+            assertEquals(404, loser, codes.toString());
+        }
+
+        assertEquals(0, engine.getOpenSessions());
+        assertEquals(STOCK - 2 * engine.getCheckouts(), inventory.getAvailable(PIE));
+    }
+
+    /**
+     * Adding to a session after it checked out is refused, and reserves nothing.
+     */
+    @Test
+    void addAfterCheckoutIsRefused() {
+        String path = openWithPies();
+        assertEquals(200, send("POST", path + "/checkout", null).statusCode());
+
+        HttpResponse<String> added = send("POST", path + "/pie", "{\"option\":\"Pecan Pie\",\"quantity\":5}");
+
+        assertEquals(404, added.statusCode());
+        assertEquals(STOCK - 2, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * A checkout the journal refuses charges nothing and leaves the session open,
+     * so it can be tried again or cancelled.
+     */
+    @Test
+    void refusedCheckoutKeepsSession() throws IOException {
+        OrderJournal journal = OrderJournal.open(directory);
+        start(journal);
+        String path = openWithPies();
+        journal.close();
+
+        assertEquals(503, send("POST", path + "/checkout", null).statusCode());
+
+        assertEquals(200, send("GET", path, null).statusCode());
+        assertEquals(0, engine.getCheckouts());
+        assertEquals(STOCK - 2, inventory.getAvailable(PIE));
+        assertEquals(204, send("DELETE", path, null).statusCode());
+        assertEquals(STOCK, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * A checkout written to the journal but not confirmed durable stands: the
+     * session is closed so a retry cannot journal it again, and its stock stays sold.
+     */
+    @Test
+    void unconfirmedCheckoutIsNotJournaledTwice() throws IOException {
+        OrderJournal journal = new OrderJournal(directory, OrderJournal.DEFAULT_SEGMENT_BYTES) {
+            @Override
+            public void awaitDurable(long sequence) {
+                throw new UncheckedIOException(new IOException("The disk is gone"));
+            }
+        };
+        start(journal);
+        String path = openWithPies();
+
+        assertEquals(500, send("POST", path + "/checkout", null).statusCode());
+        assertEquals(404, send("POST", path + "/checkout", null).statusCode());
+        journal.close();
+
+        assertEquals(1, OrderJournal.scan(directory, record -> { }));
+        assertEquals(1, engine.getUnconfirmed());
+        assertEquals(0, engine.getCheckouts());
+        assertEquals(0, engine.getOpenSessions());
+        assertEquals(STOCK - 2, inventory.getAvailable(PIE));
+    }
+
+    /**
+     * Paths that only start with the sessions path are not sessions.
+     */
+    @Test
+    void sessionsPathMustMatchExactly() {
+        assertEquals(404, send("POST", "/sessionsX", null).statusCode());
+        assertEquals(0, engine.getOpenSessions());
+        assertEquals(201, send("POST", "/sessions", null).statusCode());
+    }
+
+    /**
+     * A session left unused past the timeout is cancelled and its stock given back.
+     */
+    @Test
+    void idleSessionsExpire() throws InterruptedException {
+        String path = openWithPies();
+        assertEquals(STOCK - 2, inventory.getAvailable(PIE));
+        Thread.sleep(5);
+
+        assertEquals(1, engine.expireIdle(1_000_000));
+
+        assertEquals(404, send("GET", path, null).statusCode());
+        assertEquals(STOCK, inventory.getAvailable(PIE));
+        assertEquals(0, engine.getOpenSessions());
+    }
+}
@@ -0,0 +1,169 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that compiled {@code Promotions} count complete sets of each rule, and that
+ * a tally updated purchase by purchase earns what a recount of the same cart does.
+ */
+class PromotionsTest {
+
+    private static final Promotions RULES = Promotions.parse(List.of(
+        "# the rules of the class documentation",
+        "cookie-dozen: 12 cookie = 2.00",
+        "pie-and-pastry: 1 pie + 1 pastry = 1.50",
+        "",
+        "cream-cheese-upgrade: 1 frosting/Cream Cheese Frosting = 0.50"));
+
+    private static final int DOZEN = 0;
+    private static final int PIE_AND_PASTRY = 1;
+    private static final int UPGRADE = 2;
+
+    /**
+     * Any twelve cookies make a dozen, and each further dozen earns the discount again.
+     */
+    @Test
+    void dozenCookies() {
+        Promotions.Tally tally = RULES.newTally();
+        tally.add(BakeryEnum.CookieOptions.SUGAR, 5);
+        tally.add(BakeryEnum.CookieOptions.MM, 6);
+        assertEquals(0, tally.getDiscount());
+
+        tally.add(BakeryEnum.CookieOptions.OATMEAL_RAISIN, 1);
+        assertEquals(200, tally.getDiscount());
+
+        tally.add(BakeryEnum.CookieOptions.SUGAR, 13);
+        assertEquals(2, tally.getSets(DOZEN));
+        assertEquals(400, tally.getDiscount());
+    }
+
+    /**
+     * A pie and a pastry make a set, and a second pastry without a second pie does not.
+     */
+    @Test
+    void pieAndPastry() {
+        Promotions.Tally tally = RULES.newTally();
+        tally.add(BakeryEnum.PastryOptions.ECLAIR, 2);
+        assertEquals(0, tally.getDiscount());
+
+        tally.add(BakeryEnum.PieOptions.APPLE, 1);
+        assertEquals(1, tally.getSets(PIE_AND_PASTRY));
+        assertEquals(150, tally.getDiscount());
+
+        tally.add(BakeryEnum.PieOptions.PECAN, 1);
+        assertEquals(300, tally.getDiscount());
+        tally.add(BakeryEnum.PieOptions.CHERRY, 1);
+        assertEquals(300, tally.getDiscount());
+    }
+
+    /**
+     * The frosting upgrade is earned once per layer of each cake, and only for its frosting.
+     */
+    @Test
+    void frostingUpgradePerLayer() {
+        Promotions.Tally tally = RULES.newTally();
+        tally.addCake(BakeryEnum.CakeOptions.CARROT, BakeryEnum.FrostingOptions.LEMON,
+            BakeryEnum.FillingOptions.CARAMEL, 3, 2);
+        assertEquals(0, tally.getDiscount());
+
+        tally.addCake(BakeryEnum.CakeOptions.CARROT, BakeryEnum.FrostingOptions.CREAM_CHEESE,
+            BakeryEnum.FillingOptions.CARAMEL, 3, 2);
+        assertEquals(6, tally.getSets(UPGRADE));
+        assertEquals(300, tally.getDiscount());
+    }
+
+    /**
+     * Counting purchases one at a time, in any order, earns the same sets and discount
+     * as counting the cart's totals of each option at once.
+     */
+    @Test
+    void incrementalMatchesRecount() {
+        Random random = new Random(42);
+        BakeryOption[] sold = {BakeryEnum.CookieOptions.SUGAR, BakeryEnum.CookieOptions.CHOCOLATE_CHIP,
+            BakeryEnum.PieOptions.APPLE, BakeryEnum.PastryOptions.CROISSANT, BakeryEnum.BreadOptions.WHITE};
+        BakeryEnum.FrostingOptions[] frostings = {BakeryEnum.FrostingOptions.CREAM_CHEESE,
+            BakeryEnum.FrostingOptions.VANILLA};
+
+        for (int cart = 0; cart < 200; cart++) {
+            Promotions.Tally incremental = RULES.newTally();
+            int[] totals = new int[BakeryEnum.optionCount()];
+            BakeryOption[] options = new BakeryOption[totals.length];
+            for (int purchase = random.nextInt(20); purchase > 0; purchase--) {
+                if (random.nextInt(4) == 0) {
+                    BakeryEnum.FrostingOptions frosting = frostings[random.nextInt(frostings.length)];
+                    int layers = 1 + random.nextInt(4);
+                    int quantity = 1 + random.nextInt(3);
+                    incremental.addCake(BakeryEnum.CakeOptions.VANILLA, frosting,
+                        BakeryEnum.FillingOptions.CARAMEL, layers, quantity);
+                    tally(totals, options, BakeryEnum.CakeOptions.VANILLA, quantity);
+                    tally(totals, options, frosting, layers * quantity);
+                    tally(totals, options, BakeryEnum.FillingOptions.CARAMEL, layers * quantity);
+                } else {
+                    BakeryOption option = sold[random.nextInt(sold.length)];
+                    int quantity = 1 + random.nextInt(15);
+                    incremental.add(option, quantity);
+                    tally(totals, options, option, quantity);
+                }
+            }
+
+            Promotions.Tally recount = RULES.newTally();
+            for (int i = 0; i < totals.length; i++) {
+                if (totals[i] > 0) {
+                    recount.add(options[i], totals[i]);
+                }
+            }
+            for (int rule = 0; rule < RULES.size(); rule++) {
+                assertEquals(recount.getSets(rule), incremental.getSets(rule), RULES.getName(rule));
+            }
+            assertEquals(recount.getDiscount(), incremental.getDiscount());
+        }
+    }
+
+    /**
+     * Adds units to the running total of an option.
+     *
+     * @param totals  the units of each option, by option index
+     * @param options the option of each index
+     * @param option  the option
+     * @param units   the units to add
+     */
+    private static void tally(int[] totals, BakeryOption[] options, BakeryOption option, int units) {
+        totals[option.index()] += units;
+        options[option.index()] = option;
+    }
+
+    /**
+     * A rule whose parts share an option is refused when it is compiled, while
+     * separate rules may count the same option.
+     */
+    @Test
+    void overlappingScopesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> Promotions.parse(List.of("pies: 1 pie + 1 pie/Apple Pie = 1.00")));
+        assertThrows(IllegalArgumentException.class,
+            () -> Promotions.parse(List.of("twice: 1 cookie/Sugar Cookie + 1 cookie/SUGAR = 1.00")));
+
+        Promotions separate = Promotions.parse(List.of("pie: 1 pie = 1.00", "apple: 1 pie/Apple Pie = 0.25"));
+        Promotions.Tally tally = separate.newTally();
+        tally.add(BakeryEnum.PieOptions.APPLE, 1);
+        assertEquals(125, tally.getDiscount());
+    }
+
+    /**
+     * Malformed rules are refused with the line they are on.
+     */
+    @Test
+    void malformedRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Promotions.parse(List.of("no-amount: 1 pie")));
+        assertThrows(IllegalArgumentException.class, () -> Promotions.parse(List.of("free: 1 pie = 0.00")));
+        assertThrows(IllegalArgumentException.class, () -> Promotions.parse(List.of("none: 0 pie = 1.00")));
+        assertThrows(IllegalArgumentException.class, () -> Promotions.parse(List.of("odd: 1 muffin = 1.00")));
+        assertThrows(IllegalArgumentException.class, () -> Promotions.parse(List.of("odd: 1 pie/Mud Pie = 1.00")));
+    }
+}
@@ -0,0 +1,71 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts tasks on several threads at the same moment, so tests can make them race.
+ */
+final class Race {
+
+    /**
+     * A task run by one of the racing threads.
+     *
+     * @param <T> the type of the task's result
+     */
+    @FunctionalInterface
+    interface Task<T> {
+
+        /**
+         * Runs the task.
+         *
+         * @param thread the number of the thread, from 0
+         * @return the result of the task
+         * @throws Exception if the task fails
+         */
+        T run(int thread) throws Exception;
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private Race() {
+    }
+
+    /**
+     * Runs a task on several threads held at a latch and released together, and
+     * waits for them all.
+     *
+     * @param <T>     the type of the task's result
+     * @param threads the number of threads
+     * @param task    the task, given the number of its thread
+     * @return the result of each thread, in thread order
+     * @throws Exception if a thread fails
+     */
+    static <T> List<T> all(int threads, Task<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(thread);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@code SpscRing} hands elements from one producer to one consumer
+ * in order, without losing or repeating any, full or empty.
+ */
+class SpscRingTest {
+
+    /**
+     * The ring rounds its capacity up to a power of two, refuses elements once
+     * full, and gives them back in order, no more than the batch holds at a time.
+     */
+    @Test
+    void fillsDrainsAndWrapsInOrder() {
+        SpscRing<Integer> ring = new SpscRing<>(3);
+        assertEquals(4, ring.capacity());
+        Integer[] batch = new Integer[3];
+        assertEquals(0, ring.drain(batch));
+
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 5; round++) {
+            while (ring.offer(next)) {
+                next++;
+            }
+            assertEquals(expected + 4, next);
+            int taken = ring.drain(batch);
+            assertEquals(3, taken);
+            for (int i = 0; i < taken; i++) {
+                assertEquals(expected++, (int) batch[i]);
+            }
+
+            assertTrue(ring.offer(next++));
+            assertTrue(ring.offer(next++));
+            assertTrue(ring.offer(next++));
+            assertFalse(ring.offer(-1));
+            Integer[] rest = new Integer[8];
+            while (expected < next) {
+                taken = ring.drain(rest);
+                assertTrue(taken > 0);
+                for (int i = 0; i < taken; i++) {
+                    assertEquals(expected++, (int) rest[i]);
+                }
+            }
+            assertEquals(0, ring.drain(rest));
+        }
+    }
+
+    /**
+     * A producer and a consumer on their own threads pass a long run of elements
+     * through a small ring in order.
+     */
+    @Test
+    void passesElementsBetweenThreadsInOrder() throws Exception {
+        SpscRing<Integer> ring = new SpscRing<>(16);
+        int count = 200_000;
+
+        long received = Race.all(2, thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < count; i++) {
+                    while (!ring.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+                return 0L;
+            }
+            Integer[] batch = new Integer[8];
+            int expected = 0;
+            while (expected < count) {
+                int taken = ring.drain(batch);
+                for (int i = 0; i < taken; i++) {
+                    if (batch[i] != expected) {
+                        throw new AssertionError("expected " + expected + " but was " + batch[i]);
+                    }
+                    expected++;
+                }
+                if (taken == 0) {
+                    Thread.yield();
+                }
+            }
+            return (long) expected;
+        }).get(1);
+
+        assertEquals(count, received);
+    }
+}
@@ -0,0 +1,106 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@code StoreRing} spreads stores evenly over its nodes and that adding
+ * a node only moves stores onto the new node.
+ */
+class StoreRingTest {
+
+    private static final int STORES = 10_000;
+
+    /**
+     * Builds a ring of nodes.
+     *
+     * @param nodes the node numbers
+     * @return the ring
+     */
+    private static StoreRing ring(int... nodes) {
+        StoreRing ring = StoreRing.EMPTY;
+        for (int node : nodes) {
+            ring = ring.withNode(node);
+        }
+        return ring;
+    }
+
+    /**
+     * A ring with no nodes has nowhere to put a store, and a ring of one node puts
+     * every store on it.
+     */
+    @Test
+    void emptyAndSingleNodeRings() {
+        assertThrows(IllegalStateException.class, () -> StoreRing.EMPTY.nodeFor("downtown"));
+
+        StoreRing one = ring(7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(7, one.nodeFor("store-" + i));
+        }
+        assertTrue(Math.abs(one.share(7) - 1) < 1e-9);
+    }
+
+    /**
+     * Each of four nodes holds about a quarter of the stores, as its share of the
+     * ring predicts, and the same store always lands on the same node.
+     */
+    @Test
+    void storesSpreadEvenly() {
+        StoreRing ring = ring(3, 1, 4, 2);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, ring.getNodes());
+
+        int[] held = new int[5];
+        for (int i = 0; i < STORES; i++) {
+            String store = "store-" + i;
+            int node = ring.nodeFor(store);
+            assertEquals(node, ring(3, 1, 4, 2).nodeFor(store));
+            held[node]++;
+        }
+        double shares = 0;
+        for (int node = 1; node <= 4; node++) {
+            double fraction = held[node] / (double) STORES;
+            assertTrue(fraction > 0.15 && fraction < 0.35, "node " + node + " holds " + fraction);
+            assertTrue(Math.abs(fraction - ring.share(node)) < 0.03, "node " + node + " share " + ring.share(node));
+            shares += ring.share(node);
+        }
+        assertTrue(Math.abs(shares - 1) < 1e-9);
+    }
+
+    /**
+     * Adding a fourth node moves about a quarter of the stores, every one of them
+     * onto the new node; the rest stay where they were.
+     */
+    @Test
+    void addingANodeOnlyMovesStoresOntoIt() {
+        StoreRing before = ring(1, 2, 3);
+        StoreRing after = before.withNode(4);
+
+        int moved = 0;
+        for (int i = 0; i < STORES; i++) {
+            String store = "store-" + i;
+            int from = before.nodeFor(store);
+            int to = after.nodeFor(store);
+            if (from != to) {
+                assertEquals(4, to, store);
+                moved++;
+            }
+        }
+        double fraction = moved / (double) STORES;
+        assertTrue(fraction > 0.15 && fraction < 0.35, "moved " + fraction);
+    }
+
+    /**
+     * A node cannot join a ring twice, and the ring it was added to is unchanged.
+     */
+    @Test
+    void nodesJoinOnce() {
+        StoreRing ring = ring(1, 2);
+        assertThrows(IllegalArgumentException.class, () -> ring.withNode(2));
+        assertArrayEquals(new int[] {1, 2}, ring.getNodes());
+        assertArrayEquals(new int[0], StoreRing.EMPTY.getNodes());
+    }
+}
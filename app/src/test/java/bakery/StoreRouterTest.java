@@ -0,0 +1,122 @@
+package bakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@code StoreRouter} sends each store to the node its ring picks,
+ * and that a node joining moves new sessions without stranding open ones.
+ */
+class StoreRouterTest {
+
+    private StoreNode first;
+    private StoreNode second;
+    private StoreRouter router;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Starts two nodes and a router that knows only the first.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new StoreNode(1, null, new InetSocketAddress("127.0.0.1", 0));
+        second = new StoreNode(2, null, new InetSocketAddress("127.0.0.1", 0));
+        router = new StoreRouter(new InetSocketAddress("127.0.0.1", 0));
+        first.start();
+        second.start();
+        router.start();
+        assertEquals(1, router.addNode("127.0.0.1:" + first.getPort()));
+    }
+
+    /**
+     * Stops the router and the nodes.
+     */
+    @AfterEach
+    void tearDown() {
+        router.close();
+        first.close();
+        second.close();
+    }
+
+    /**
+     * Sends a request to the router and waits for its response.
+     *
+     * @param method the HTTP method
+     * @param path   the path of the request
+     * @param body   the JSON body, or {@code null} for none
+     * @return the response
+     * @throws Exception if the request fails
+     */
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + router.getPort() + path))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Opens a session of a store through the router and puts a pie in its cart.
+     *
+     * @param store the store identifier
+     * @return the session identifier
+     * @throws Exception if a request fails
+     */
+    private long openWithPie(String store) throws Exception {
+        HttpResponse<String> opened = send("POST", "/stores/" + store + "/sessions", null);
+        assertEquals(201, opened.statusCode());
+        long id = Long.parseLong(OrderServer.parseObject(opened.body()).get("session"));
+        assertEquals(200, send("POST", "/stores/" + store + "/sessions/" + id + "/pie",
+            "{\"option\":\"Pecan Pie\",\"quantity\":1}").statusCode());
+        return id;
+    }
+
+    /**
+     * A store the new node takes over opens its new sessions there, while a session
+     * opened before the node joined still checks out on the node that opened it,
+     * and the store's revenue is added up across both.
+     */
+    @Test
+    void joiningNodeTakesNewSessionsOnly() throws Exception {
+        StoreRing ring = StoreRing.EMPTY.withNode(1).withNode(2);
+        String store = null;
+        for (int i = 0; store == null; i++) {
+            if (ring.nodeFor("store-" + i) == 2) {
+                store = "store-" + i;
+            }
+        }
+        long before = openWithPie(store);
+        assertEquals(1, StoreNode.nodeOf(before));
+
+        assertEquals(2, router.addNode("127.0.0.1:" + second.getPort()));
+        long after = openWithPie(store);
+
+        assertEquals(2, StoreNode.nodeOf(after));
+        assertEquals(200, send("POST", "/stores/" + store + "/sessions/" + before + "/checkout", null).statusCode());
+        assertEquals(200, send("POST", "/stores/" + store + "/sessions/" + after + "/checkout", null).statusCode());
+        long pie = PriceTable.current().calculatePrice(BakeryEnum.PieOptions.PECAN, 1);
+        assertEquals(pie, (long) first.revenue().get(store));
+        assertEquals(pie, (long) second.revenue().get(store));
+        assertEquals(2 * pie, (long) router.revenue().get(store));
+    }
+
+    /**
+     * Requests for paths that are not a store's sessions, or for a node that is not
+     * in the cluster, are answered with 404.
+     */
+    @Test
+    void unknownPathsAndNodesAreNotFound() throws Exception {
+        assertEquals(404, send("POST", "/stores/downtown/sessionsX", null).statusCode());
+        assertEquals(404, send("GET", "/stores/downtown/sessions/" + (5L << StoreNode.NODE_SHIFT | 1), null)
+            .statusCode());
+    }
+}
@@ -0,0 +1,114 @@
+package bakery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bakery.BakeryItem;
+import bakery.BakerySession;
+import bakery.CompactCart;
+import bakery.SessionEngine;
+
+/**
+ * Benchmarks filling a cart, walking its lines, and computing its checkout total,
+ * for carts from a single customer's handful of lines up to large catering orders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    private int cartSize;
+
+    private SessionEngine engine;
+    private CompactCart filled;
+
+    /**
+     * Fills the cart that the read-only benchmarks walk.
+     */
+    @Setup
+    public void setUp() {
+        engine = new SessionEngine();
+        BakerySession session = engine.open();
+        Orders.fill(session, cartSize);
+        filled = session.getShoppingCart();
+    }
+
+    /**
+     * Closes the engine used to build the carts.
+     */
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Adds every line to a fresh cart.
+     *
+     * @return the total of the cart in cents
+     */
+    @Benchmark
+    public long addLines() {
+        BakerySession session = engine.open();
+        Orders.fill(session, cartSize);
+        long total = session.getCollectedPrice();
+        session.cancel();
+        return total;
+    }
+
+    /**
+     * Walks the primitive columns of every line.
+     *
+     * @return the number of units in the cart
+     */
+    @Benchmark
+    public long iterateLines() {
+        long units = 0;
+        for (int line = 0; line < filled.size(); line++) {
+            units += filled.getQuantity(line) + filled.getLayers(line);
+        }
+        return units;
+    }
+
+    /**
+     * Walks the cart through its {@code BakeryItem} view, as receipts do.
+     *
+     * @param blackhole sink for the items
+     */
+    @Benchmark
+    public void iterateItems(Blackhole blackhole) {
+        for (BakeryItem item : filled) {
+            blackhole.consume(item);
+        }
+    }
+
+    /**
+     * Recomputes the checkout total from the price of every line.
+     *
+     * @return the total of the cart in cents
+     */
+    @Benchmark
+    public long checkoutTotal() {
+        long total = 0;
+        for (int line = 0; line < filled.size(); line++) {
+            total += filled.getPrice(line);
+        }
+        return total;
+    }
+}
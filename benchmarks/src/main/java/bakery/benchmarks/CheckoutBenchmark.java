@@ -0,0 +1,86 @@
+package bakery.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.BakerySession;
+import bakery.SessionEngine;
+
+/**
+ * Benchmarks complete checkouts through the {@code SessionEngine}, with the given
+ * number of customers shopping at the same time on their own threads. Each operation
+ * is one round in which every customer fills a cart and checks out, so throughput
+ * across thread counts shows how checkouts scale with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"4", "64"})
+    private int cartSize;
+
+    @Param({"1", "4", "16"})
+    private int threads;
+
+    @Param({"256"})
+    private int checkoutsPerThread;
+
+    private SessionEngine engine;
+
+    /**
+     * Starts the engine.
+     */
+    @Setup
+    public void setUp() {
+        engine = new SessionEngine();
+    }
+
+    /**
+     * Stops the engine.
+     */
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Runs one round of checkouts on every customer thread.
+     *
+     * @return the store revenue after the round, in cents
+     */
+    @Benchmark
+    public long checkouts() {
+        CompletableFuture<?>[] customers = new CompletableFuture<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            customers[i] = engine.drive(first -> {
+                BakerySession session = first;
+                for (int n = 0; n < checkoutsPerThread; n++) {
+                    Orders.fill(session, cartSize);
+                    session.checkOut();
+                    session = engine.open();
+                }
+                session.cancel();
+                return null;
+            });
+        }
+        CompletableFuture.allOf(customers).join();
+        return engine.getRevenue();
+    }
+}
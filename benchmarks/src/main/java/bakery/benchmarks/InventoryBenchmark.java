@@ -0,0 +1,65 @@
+package bakery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.BakeryEnum;
+import bakery.Inventory;
+
+/**
+ * Benchmarks many customers reserving the same hot item at once. Every thread
+ * reserves and gives back chocolate chip cookies from one shared {@code Inventory},
+ * so comparing a single stripe against many shows how much striping the count
+ * relieves contention on a popular item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class InventoryBenchmark {
+
+    private static final BakeryEnum.CookieOptions HOT_ITEM = BakeryEnum.CookieOptions.CHOCOLATE_CHIP;
+
+    @Param({"1", "16"})
+    private int stripes;
+
+    private Inventory inventory;
+
+    /**
+     * Stocks the hot item with more units than the threads can hold at once.
+     */
+    @Setup
+    public void setUp() {
+        inventory = new Inventory(stripes);
+        inventory.setStock(HOT_ITEM, 1_000_000);
+    }
+
+    /**
+     * Reserves a dozen of the hot item and gives them back, as a cancelled cart would.
+     *
+     * @return true if the dozen was reserved
+     */
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean reserved = inventory.reserve(HOT_ITEM, 12);
+        if (reserved) {
+            inventory.release(HOT_ITEM, 12);
+        }
+        return reserved;
+    }
+}
@@ -0,0 +1,429 @@
+package bakery.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import bakery.BakeryEnum;
+import bakery.BakeryOption;
+import bakery.BakerySession;
+import bakery.JournalRecord;
+import bakery.LatencyHistogram;
+import bakery.Money;
+import bakery.OrderJournal;
+import bakery.SessionEngine;
+
+/**
+ * Stresses the ordering logic with synthetic customers, or by replaying the
+ * checkouts captured in an order journal. Synthetic customers buy a seeded random
+ * mix of items across the categories, cakes included, so a run with the same
+ * options buys the same things. Customers either arrive at a fixed average rate
+ * (open loop) or a fixed number of them shop back to back (closed loop). The
+ * time of each order is measured from when it was meant to start, so a backlog
+ * shows up as latency. A run can journal its checkouts to be replayed later.
+ * Prints the throughput and latency percentiles at the end.
+ *
+ * <pre>
+ * Usage: LoadGenerator [--customers n [--orders n] | --rate per-second] [--seconds n]
+ *                      [--seed n] [--mix bread=2,cake=1,pastry=2,cookie=3,pie=2]
+ *                      [--items min-max] [--think-ms n] [--journal directory]
+ *        LoadGenerator --replay journal-directory [--speed n]
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final BakeryEnum[] SOLD = {
+        BakeryEnum.BREADLOAF, BakeryEnum.CAKE, BakeryEnum.PASTRY, BakeryEnum.COOKIE, BakeryEnum.PIE
+    };
+
+    private final SessionEngine engine;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final BakeryEnum[] mix;
+    private final int minItems;
+    private final int maxItems;
+
+    /**
+     * One checkout read back from a journal.
+     */
+    private static final class Captured {
+        private final long timestamp;
+        private final BakeryOption[] options;
+        private final BakeryEnum.FrostingOptions[] frostings;
+        private final BakeryEnum.FillingOptions[] fillings;
+        private final int[] quantities;
+        private final int[] layers;
+
+        /**
+         * Copies a checkout out of the journal.
+         *
+         * @param record the journal record
+         */
+        Captured(JournalRecord record) {
+            int lines = record.getLineCount();
+            timestamp = record.getTimestamp();
+            options = new BakeryOption[lines];
+            frostings = new BakeryEnum.FrostingOptions[lines];
+            fillings = new BakeryEnum.FillingOptions[lines];
+            quantities = new int[lines];
+            layers = new int[lines];
+            for (int line = 0; line < lines; line++) {
+                options[line] = record.getOption(line);
+                frostings[line] = record.getFrosting(line);
+                fillings[line] = record.getFilling(line);
+                quantities[line] = record.getQuantity(line);
+                layers[line] = record.getLayers(line);
+            }
+        }
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param engine   the engine to order from
+     * @param weights  the relative weight of each category in the mix
+     * @param minItems the fewest items a customer buys
+     * @param maxItems the most items a customer buys
+     */
+    public LoadGenerator(SessionEngine engine, Map<BakeryEnum, Integer> weights, int minItems, int maxItems) {
+        this.engine = engine;
+        this.minItems = Math.max(1, minItems);
+        this.maxItems = Math.max(this.minItems, maxItems);
+        List<BakeryEnum> slots = new ArrayList<>();
+        for (BakeryEnum category : SOLD) {
+            for (int i = 0; i < weights.getOrDefault(category, 0); i++) {
+                slots.add(category);
+            }
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The mix must include at least one category");
+        }
+        this.mix = slots.toArray(new BakeryEnum[0]);
+    }
+
+    /**
+     * Gets the latencies of the orders placed so far.
+     *
+     * @return the order latencies in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Runs a fixed number of customers that each shop again as soon as they have
+     * checked out, after an optional pause. With a fixed number of orders per
+     * customer every run with the same seed buys exactly the same things.
+     *
+     * @param customers  the number of customers shopping at once
+     * @param seconds    how long to run
+     * @param orders     how many orders each customer places, or 0 to run for the whole time
+     * @param seed       the seed of the random purchases
+     * @param thinkNanos how long each customer pauses between orders
+     */
+    public void closedLoop(int customers, int seconds, int orders, long seed, long thinkNanos) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            SplittableRandom random = seeds.split();
+            running.add(engine.drive(first -> {
+                BakerySession session = first;
+                for (int placed = 1; ; placed++) {
+                    long start = System.nanoTime();
+                    shop(session, random);
+                    latencies.record(System.nanoTime() - start);
+                    if (orders > 0 ? placed == orders : System.nanoTime() + thinkNanos >= deadline) {
+                        return null;
+                    }
+                    if (thinkNanos > 0) {
+                        LockSupport.parkNanos(thinkNanos);
+                    }
+                    session = engine.open();
+                }
+            }));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Starts customers at random times averaging a fixed rate, whether or not the
+     * earlier ones have finished.
+     *
+     * @param ratePerSecond the average number of customers arriving per second
+     * @param seconds       how long customers keep arriving
+     * @param seed          the seed of the arrival times and random purchases
+     */
+    public void openLoop(double ratePerSecond, int seconds, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1_000_000_000.0 / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        long arrival = start;
+        while (true) {
+            arrival += (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos);
+            if (arrival >= end) {
+                break;
+            }
+            SplittableRandom customer = random.split();
+            long intended = arrival;
+            waitUntil(intended);
+            running.add(engine.drive(session -> {
+                shop(session, customer);
+                latencies.record(System.nanoTime() - intended);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Replays the checkouts of an order journal, keeping their original spacing
+     * sped up by the given factor.
+     *
+     * @param directory the journal directory
+     * @param speed     how many times faster than captured to replay
+     * @return the number of checkouts replayed
+     * @throws IOException if the journal cannot be read
+     */
+    public long replay(Path directory, double speed) throws IOException {
+        List<Captured> captured = new ArrayList<>();
+        OrderJournal.scan(directory, record -> captured.add(new Captured(record)));
+        if (captured.isEmpty()) {
+            return 0;
+        }
+        long first = captured.get(0).timestamp;
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (Captured order : captured) {
+            long intended = start + (long) (TimeUnit.MILLISECONDS.toNanos(order.timestamp - first) / speed);
+            waitUntil(intended);
+            running.add(engine.drive(session -> {
+                reorder(session, order);
+                latencies.record(System.nanoTime() - intended);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+        return captured.size();
+    }
+
+    /**
+     * Fills a session with random purchases from the mix and checks out.
+     *
+     * @param session the session to shop in
+     * @param random  the source of the purchases
+     */
+    private void shop(BakerySession session, SplittableRandom random) {
+        int items = random.nextInt(minItems, maxItems + 1);
+        for (int i = 0; i < items; i++) {
+            BakeryEnum category = mix[random.nextInt(mix.length)];
+            BakeryOption option = category.getOption(random.nextInt(category.getOptionCount()));
+            int quantity = random.nextInt(1, 7);
+            switch (category) {
+                case BREADLOAF:
+                    session.addBread((BakeryEnum.BreadOptions) option, quantity);
+                    break;
+                case CAKE:
+                    session.addCake((BakeryEnum.CakeOptions) option,
+                        (BakeryEnum.FrostingOptions) pick(BakeryEnum.FROSTING, random),
+                        (BakeryEnum.FillingOptions) pick(BakeryEnum.FILLING, random),
+                        random.nextInt(1, 5), random.nextInt(1, 3));
+                    break;
+                case PASTRY:
+                    session.addPastry((BakeryEnum.PastryOptions) option, quantity);
+                    break;
+                case COOKIE:
+                    session.addCookie((BakeryEnum.CookieOptions) option, quantity * 2);
+                    break;
+                default:
+                    session.addPie((BakeryEnum.PieOptions) option, quantity);
+                    break;
+            }
+        }
+        session.checkOut();
+    }
+
+    /**
+     * Places a captured checkout again and checks out.
+     *
+     * @param session the session to shop in
+     * @param order   the captured checkout
+     */
+    private static void reorder(BakerySession session, Captured order) {
+        for (int line = 0; line < order.options.length; line++) {
+            BakeryOption option = order.options[line];
+            int quantity = order.quantities[line];
+            switch (option.getCategory()) {
+                case BREADLOAF:
+                    session.addBread((BakeryEnum.BreadOptions) option, quantity);
+                    break;
+                case CAKE:
+                    session.addCake((BakeryEnum.CakeOptions) option, order.frostings[line],
+                        order.fillings[line], order.layers[line], quantity);
+                    break;
+                case PASTRY:
+                    session.addPastry((BakeryEnum.PastryOptions) option, quantity);
+                    break;
+                case COOKIE:
+                    session.addCookie((BakeryEnum.CookieOptions) option, quantity);
+                    break;
+                default:
+                    session.addPie((BakeryEnum.PieOptions) option, quantity);
+                    break;
+            }
+        }
+        session.checkOut();
+    }
+
+    /**
+     * Picks a random option of a category.
+     *
+     * @param category the category
+     * @param random   the source of the choice
+     * @return the option
+     */
+    private static BakeryOption pick(BakeryEnum category, SplittableRandom random) {
+        return category.getOption(random.nextInt(category.getOptionCount()));
+    }
+
+    /**
+     * Waits until a point in time.
+     *
+     * @param nanoTime the time to wait for, in {@code System.nanoTime()} units
+     */
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Parses a mix such as {@code bread=2,cake=1}.
+     *
+     * @param text the mix
+     * @return the weight of each category
+     * @throws IllegalArgumentException if the mix names an unknown category
+     */
+    static Map<BakeryEnum, Integer> parseMix(String text) {
+        Map<BakeryEnum, Integer> weights = new EnumMap<>(BakeryEnum.class);
+        for (String part : text.split(",")) {
+            String[] pair = part.split("=");
+            BakeryEnum category = BakeryEnum.findCategory(pair[0].trim());
+            if (category == null || pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry: " + part);
+            }
+            weights.put(category, Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Main method that runs the load and prints its results.
+     */
+    public static void main(String[] args) throws IOException {
+        int customers = 16;
+        double rate = 0;
+        int seconds = 10;
+        int orders = 0;
+        long seed = 42;
+        long thinkNanos = 0;
+        int minItems = 1;
+        int maxItems = 6;
+        String mix = "bread=2,cake=1,pastry=2,cookie=3,pie=2";
+        String replay = null;
+        String journal = null;
+        double speed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--customers":
+                    customers = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--orders":
+                    orders = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--think-ms":
+                    thinkNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value));
+                    break;
+                case "--items":
+                    String[] range = value.split("-");
+                    minItems = Integer.parseInt(range[0]);
+                    maxItems = Integer.parseInt(range[range.length - 1]);
+                    break;
+                case "--mix":
+                    mix = value;
+                    break;
+                case "--journal":
+                    journal = value;
+                    break;
+                case "--replay":
+                    replay = value;
+                    break;
+                case "--speed":
+                    speed = Double.parseDouble(value);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        OrderJournal capture = journal == null ? null : OrderJournal.open(Paths.get(journal));
+        try (SessionEngine engine = new SessionEngine(capture)) {
+            LoadGenerator generator = new LoadGenerator(engine, parseMix(mix), minItems, maxItems);
+            long start = System.nanoTime();
+            String mode;
+            if (replay != null) {
+                generator.replay(Paths.get(replay), speed);
+                mode = "replay at " + speed + "x";
+            } else if (rate > 0) {
+                generator.openLoop(rate, seconds, seed);
+                mode = "open loop at " + rate + "/sec";
+            } else {
+                generator.closedLoop(customers, seconds, orders, seed, thinkNanos);
+                mode = "closed loop with " + customers + " customers";
+            }
+            double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            LatencyHistogram latencies = generator.getLatencies();
+            System.out.printf("%s: %d orders in %.1f s, %.0f orders/sec, revenue $%s%n", mode,
+                latencies.getCount(), elapsed, latencies.getCount() / elapsed, Money.format(engine.getRevenue()));
+            System.out.printf("order latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                millis(latencies.valueAt(0.5)), millis(latencies.valueAt(0.9)), millis(latencies.valueAt(0.99)),
+                millis(latencies.valueAt(0.999)), millis(latencies.valueAt(1.0)));
+        } finally {
+            if (capture != null) {
+                capture.close();
+            }
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,134 @@
+package bakery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.BakeryEnum;
+
+/**
+ * Benchmarks looking up options by description, comparing the shared index behind
+ * the {@code get*Description} and {@code find*Description} methods with the linear
+ * scan over {@code values()} that the option enums used to do. Misses are measured
+ * separately because the scan paid for an exception on each one. Since the index
+ * falls back to {@code OptionMatcher} when nothing matches exactly, a miss through
+ * the index now also pays for a search for prefixes and near spellings, so it is
+ * no longer comparable with the probe alone. {@code near} measures a misspelling
+ * that the search resolves, which the scan cannot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"hit", "miss", "near"})
+    private String kind;
+
+    private String cookie;
+    private String frosting;
+
+    /**
+     * Picks the descriptions to look up.
+     */
+    @Setup
+    public void setUp() {
+        switch (kind) {
+            case "hit":
+                cookie = "chocolate chip cookie";
+                frosting = "WHIPPED CREAM";
+                break;
+            case "near":
+                cookie = "choclate chip cookie";
+                frosting = "whiped cream";
+                break;
+            default:
+                cookie = "Snickerdoodle";
+                frosting = "Mocha Frosting";
+        }
+    }
+
+    /**
+     * Looks up a cookie through the index, returning an empty {@code Optional} on a miss.
+     *
+     * @return the lookup result
+     */
+    @Benchmark
+    public Object findCookieDescription() {
+        return BakeryEnum.CookieOptions.findCookieDescription(cookie);
+    }
+
+    /**
+     * Looks up a frosting through the index, returning an empty {@code Optional} on a miss.
+     *
+     * @return the lookup result
+     */
+    @Benchmark
+    public Object findFrostingDescription() {
+        return BakeryEnum.FrostingOptions.findFrostingDescription(frosting);
+    }
+
+    /**
+     * Looks up a cookie through the throwing {@code getCookieDescription}.
+     *
+     * @return the lookup result, or {@code null} on a miss
+     */
+    @Benchmark
+    public Object getCookieDescription() {
+        try {
+            return BakeryEnum.CookieOptions.getCookieDescription(cookie);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a cookie the way the option enums did before the index existed.
+     *
+     * @return the lookup result, or {@code null} on a miss
+     */
+    @Benchmark
+    public Object scanCookieDescription() {
+        try {
+            for (BakeryEnum.CookieOptions option : BakeryEnum.CookieOptions.values()) {
+                if (option.getDescription().equalsIgnoreCase(cookie)) {
+                    return option;
+                }
+            }
+            throw new IllegalArgumentException("No cookie found with: " + cookie);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a frosting the way the option enums did before the index existed.
+     *
+     * @return the lookup result, or {@code null} on a miss
+     */
+    @Benchmark
+    public Object scanFrostingDescription() {
+        try {
+            for (BakeryEnum.FrostingOptions option : BakeryEnum.FrostingOptions.values()) {
+                if (option.getDescription().equalsIgnoreCase(frosting)) {
+                    return option;
+                }
+            }
+            throw new IllegalArgumentException("No frosting found with: " + frosting);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package bakery.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import bakery.OrderServer;
+import bakery.SessionEngine;
+
+/**
+ * Load test of the HTTP ordering API over loopback. Starts an {@code OrderServer}
+ * in process and has each client thread repeatedly open a session, add cookies and
+ * a cake, and check out, timing every request. Prints the request rate and the
+ * latency percentiles once the run ends.
+ * Usage: {@code OrderServerLoadTest [clients] [seconds]}
+ */
+public class OrderServerLoadTest {
+
+    private static final String COOKIES = "{\"option\":\"Chocolate Chip Cookie\",\"quantity\":6}";
+    private static final String CAKE = "{\"cake\":\"Carrot Cake\",\"frosting\":\"Lemon Frosting\","
+        + "\"filling\":\"Caramel\",\"layers\":2,\"quantity\":1}";
+
+    /**
+     * Latencies recorded by one client thread.
+     */
+    private static final class Latencies {
+        private long[] nanos = new long[1 << 16];
+        private int count;
+        private int failures;
+
+        /**
+         * Records the latency of one request.
+         *
+         * @param elapsed the latency in nanoseconds
+         */
+        void add(long elapsed) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsed;
+        }
+    }
+
+    /**
+     * Main method that runs the load test and prints its results.
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        try (SessionEngine engine = new SessionEngine();
+            OrderServer server = new OrderServer(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.getPort() + "/sessions";
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            run(client, base, clients, 2);
+            long start = System.nanoTime();
+            Latencies[] results = run(client, base, clients, seconds);
+            double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            int total = 0;
+            int failures = 0;
+            for (Latencies result : results) {
+                total += result.count;
+                failures += result.failures;
+            }
+            long[] all = new long[total];
+            int at = 0;
+            for (Latencies result : results) {
+                System.arraycopy(result.nanos, 0, all, at, result.count);
+                at += result.count;
+            }
+            Arrays.sort(all);
+            System.out.printf("%d clients, %d requests, %d failed, %.0f requests/sec%n",
+                clients, total, failures, total / elapsed);
+            System.out.printf("latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0));
+            System.out.printf("%d checkouts, revenue $%.2f%n", engine.getCheckouts(), engine.getRevenue() / 100.0);
+        }
+    }
+
+    /**
+     * Drives the server from every client thread for a number of seconds.
+     *
+     * @param client  the HTTP client
+     * @param base    the URL of the sessions resource
+     * @param clients the number of client threads
+     * @param seconds how long to run
+     * @return the latencies recorded by each client thread
+     * @throws Exception if a client thread fails
+     */
+    private static Latencies[] run(HttpClient client, String base, int clients, int seconds) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try {
+            List<Future<Latencies>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(threads.submit(() -> customer(client, base, deadline)));
+            }
+            Latencies[] results = new Latencies[clients];
+            for (int i = 0; i < clients; i++) {
+                results[i] = futures.get(i).get();
+            }
+            return results;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Places orders one after another until the deadline.
+     *
+     * @param client   the HTTP client
+     * @param base     the URL of the sessions resource
+     * @param deadline when to stop, in {@code System.nanoTime()} units
+     * @return the latencies of the requests made
+     * @throws IOException if a request cannot be sent
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static Latencies customer(HttpClient client, String base, long deadline)
+        throws IOException, InterruptedException {
+
+        Latencies latencies = new Latencies();
+        while (System.nanoTime() < deadline) {
+            String opened = send(client, latencies, base, "");
+            if (opened == null) {
+                continue;
+            }
+            String session = base + "/" + opened.replaceAll("\\D", "");
+            send(client, latencies, session + "/cookie", COOKIES);
+            send(client, latencies, session + "/cake", CAKE);
+            send(client, latencies, session + "/checkout", "");
+        }
+        return latencies;
+    }
+
+    /**
+     * Posts a request and records its latency.
+     *
+     * @param client    the HTTP client
+     * @param latencies where to record the latency
+     * @param url       the URL to post to
+     * @param body      the request body
+     * @return the response body, or {@code null} if the request failed
+     * @throws IOException if the request cannot be sent
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static String send(HttpClient client, Latencies latencies, String url, String body)
+        throws IOException, InterruptedException {
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .header("Content-Type", "application/json")
+            .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        latencies.add(System.nanoTime() - start);
+        if (response.statusCode() >= 300) {
+            latencies.failures++;
+            return null;
+        }
+        return response.body();
+    }
+
+    /**
+     * Gets a percentile of sorted latencies.
+     *
+     * @param sorted   the latencies in ascending order
+     * @param fraction the percentile as a fraction, such as 0.99
+     * @return the latency in milliseconds
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
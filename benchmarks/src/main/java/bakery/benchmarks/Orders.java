@@ -0,0 +1,52 @@
+package bakery.benchmarks;
+
+import bakery.BakeryEnum;
+import bakery.BakerySession;
+
+/**
+ * Fills sessions with a repeatable mix of purchases for the benchmarks.
+ */
+final class Orders {
+
+    private static final BakeryEnum.BreadOptions[] BREADS = BakeryEnum.BreadOptions.values();
+    private static final BakeryEnum.CakeOptions[] CAKES = BakeryEnum.CakeOptions.values();
+    private static final BakeryEnum.FrostingOptions[] FROSTINGS = BakeryEnum.FrostingOptions.values();
+    private static final BakeryEnum.FillingOptions[] FILLINGS = BakeryEnum.FillingOptions.values();
+    private static final BakeryEnum.PastryOptions[] PASTRIES = BakeryEnum.PastryOptions.values();
+    private static final BakeryEnum.CookieOptions[] COOKIES = BakeryEnum.CookieOptions.values();
+    private static final BakeryEnum.PieOptions[] PIES = BakeryEnum.PieOptions.values();
+
+    private Orders() {
+    }
+
+    /**
+     * Adds the given number of purchases to a session, cycling through every category.
+     * Repeated purchases of the same item share a cart line.
+     *
+     * @param session the session to fill
+     * @param lines   the number of purchases to add
+     */
+    static void fill(BakerySession session, int lines) {
+        for (int i = 0; i < lines; i++) {
+            int quantity = 1 + i % 6;
+            switch (i % 5) {
+                case 0:
+                    session.addBread(BREADS[i % BREADS.length], quantity);
+                    break;
+                case 1:
+                    session.addCake(CAKES[i % CAKES.length], FROSTINGS[i % FROSTINGS.length],
+                        FILLINGS[i % FILLINGS.length], 1 + i % 3, 1);
+                    break;
+                case 2:
+                    session.addPastry(PASTRIES[i % PASTRIES.length], quantity);
+                    break;
+                case 3:
+                    session.addCookie(COOKIES[i % COOKIES.length], quantity * 2);
+                    break;
+                default:
+                    session.addPie(PIES[i % PIES.length], quantity);
+                    break;
+            }
+        }
+    }
+}
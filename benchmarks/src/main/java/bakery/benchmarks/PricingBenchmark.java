@@ -0,0 +1,79 @@
+package bakery.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.BakeryEnum;
+import bakery.PriceTable;
+
+/**
+ * Benchmarks pricing a single line: the {@code calculatePrice} method of the option
+ * enums, the same lookup through a pinned {@code PriceTable}, and the layered cake
+ * pricing that {@code Bakery.cakeConstruct} performs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private final PriceTable prices = PriceTable.current();
+    private BakeryEnum.BreadOptions bread = BakeryEnum.BreadOptions.SOURDOUGH;
+    private BakeryEnum.CookieOptions cookie = BakeryEnum.CookieOptions.CHOCOLATE_CHIP;
+    private BakeryEnum.CakeOptions cake = BakeryEnum.CakeOptions.RED_VELVET;
+    private BakeryEnum.FrostingOptions frosting = BakeryEnum.FrostingOptions.CREAM_CHEESE;
+    private BakeryEnum.FillingOptions filling = BakeryEnum.FillingOptions.RASPBERRIES;
+    private int quantity = 12;
+    private int layers = 3;
+
+    /**
+     * Prices bread through the option enum, which reads the current price table.
+     *
+     * @return the price in cents
+     */
+    @Benchmark
+    public long breadCalculatePrice() {
+        return bread.calculatePrice(quantity);
+    }
+
+    /**
+     * Prices cookies through the option enum, which reads the current price table.
+     *
+     * @return the price in cents
+     */
+    @Benchmark
+    public long cookieCalculatePrice() {
+        return cookie.calculatePrice(quantity);
+    }
+
+    /**
+     * Prices cookies through a price table held by the caller, as a session does.
+     *
+     * @return the price in cents
+     */
+    @Benchmark
+    public long pinnedTableCalculatePrice() {
+        return prices.calculatePrice(cookie, quantity);
+    }
+
+    /**
+     * Prices layered cakes with frosting and filling, as {@code Bakery.cakeConstruct} does.
+     *
+     * @return the price in cents
+     */
+    @Benchmark
+    public long cakeConstructPrice() {
+        return prices.cakePrice(cake, frosting, filling, layers, quantity);
+    }
+}
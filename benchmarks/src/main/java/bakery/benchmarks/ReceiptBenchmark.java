@@ -0,0 +1,147 @@
+package bakery.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.BakeryItem;
+import bakery.BakerySession;
+import bakery.CompactCart;
+import bakery.Money;
+import bakery.ReceiptRenderer;
+import bakery.SessionEngine;
+
+/**
+ * Benchmarks printing receipts for a batch of 100k orders, comparing the
+ * {@code ReceiptRenderer} against building each line with {@code toString()}.
+ * Output goes to a channel that discards it, so only rendering is measured.
+ * Run with {@code -prof gc} to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptBenchmark {
+
+    private static final int DISTINCT_CARTS = 64;
+
+    @Param({"100000"})
+    private int orders;
+
+    @Param({"8"})
+    private int cartSize;
+
+    private SessionEngine engine;
+    private CompactCart[] carts;
+    private ReceiptRenderer renderer;
+    private final NullChannel channel = new NullChannel();
+
+    /**
+     * Channel that counts and discards everything written to it.
+     */
+    private static final class NullChannel implements GatheringByteChannel {
+        private long written;
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) {
+            long bytes = 0;
+            for (int i = offset; i < offset + length; i++) {
+                bytes += write(sources[i]);
+            }
+            return bytes;
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources) {
+            return write(sources, 0, sources.length);
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            int bytes = source.remaining();
+            source.position(source.limit());
+            written += bytes;
+            return bytes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Fills the carts the receipts are printed for.
+     */
+    @Setup
+    public void setUp() {
+        engine = new SessionEngine();
+        carts = new CompactCart[DISTINCT_CARTS];
+        for (int i = 0; i < DISTINCT_CARTS; i++) {
+            BakerySession session = engine.open();
+            Orders.fill(session, cartSize + i % 5);
+            carts[i] = session.getShoppingCart();
+        }
+        renderer = new ReceiptRenderer(channel);
+    }
+
+    /**
+     * Stops the engine.
+     */
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Prints the receipts with the renderer.
+     *
+     * @return the number of bytes written
+     */
+    @Benchmark
+    public long renderer() {
+        for (int order = 0; order < orders; order++) {
+            renderer.writeReceipt(order, carts[order % DISTINCT_CARTS]);
+        }
+        renderer.flush();
+        return channel.written;
+    }
+
+    /**
+     * Prints the receipts by building strings, as the console used to.
+     *
+     * @return the number of characters built
+     */
+    @Benchmark
+    public long strings() {
+        long characters = 0;
+        for (int order = 0; order < orders; order++) {
+            CompactCart cart = carts[order % DISTINCT_CARTS];
+            characters += ("Receipt " + order).length();
+            for (BakeryItem item : cart) {
+                characters += item.toString().length();
+            }
+            characters += ("Total: $" + Money.format(cart.getTotal())).length();
+        }
+        return characters;
+    }
+}
@@ -0,0 +1,132 @@
+package bakery.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bakery.Bakery;
+import bakery.ConsoleReader;
+import bakery.SessionEngine;
+
+/**
+ * Benchmarks replaying a recorded console session of a million commands. The
+ * script is read with {@code ConsoleReader} and, as the baseline, with the
+ * {@code Scanner} the console used to read with, making the same calls the menus
+ * make. The whole script is also replayed through {@code Bakery} itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+
+    /**
+     * Answers to the purchase menu, each followed by the answers its menu asks for.
+     */
+    private static final String[][] PURCHASES = {
+        {"bread", "White Bread", "2"},
+        {"cookie", "Chocolate Chip Cookie", "12"},
+        {"pastry", "Croissant", "3"},
+        {"cake", "Carrot Cake", "Lemon Frosting", "Caramel", "3", "1"},
+        {"pie", "Apple Pie", "1"},
+    };
+
+    @Param({"1000000"})
+    private int commands;
+
+    private byte[] script;
+    private int purchases;
+
+    /**
+     * Records a script of purchases that ends with a checkout.
+     */
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        int lines = 0;
+        while (lines < commands - 2) {
+            for (String answer : PURCHASES[purchases++ % PURCHASES.length]) {
+                text.append(answer).append('\n');
+                lines++;
+            }
+        }
+        text.append("checkout\nyes\n");
+        script = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the script with {@code ConsoleReader}.
+     *
+     * @return a value derived from every answer read
+     */
+    @Benchmark
+    public long consoleReader() {
+        ConsoleReader in = new ConsoleReader(Channels.newChannel(new ByteArrayInputStream(script)), null);
+        long sum = 0;
+        for (int i = 0; i < purchases; i++) {
+            String[] purchase = PURCHASES[i % PURCHASES.length];
+            sum += in.next().length();
+            in.nextLine();
+            for (int answer = 1; answer < purchase.length - 1; answer++) {
+                sum += in.nextLine().length();
+            }
+            sum += in.nextCount();
+            in.nextLine();
+        }
+        return sum;
+    }
+
+    /**
+     * Reads the script with {@code Scanner}.
+     *
+     * @return a value derived from every answer read
+     */
+    @Benchmark
+    public long scanner() {
+        Scanner in = new Scanner(new ByteArrayInputStream(script), StandardCharsets.UTF_8);
+        long sum = 0;
+        for (int i = 0; i < purchases; i++) {
+            String[] purchase = PURCHASES[i % PURCHASES.length];
+            sum += in.next().length();
+            in.nextLine();
+            for (int answer = 1; answer < purchase.length - 1; answer++) {
+                sum += in.nextLine().length();
+            }
+            sum += in.nextInt();
+            in.nextLine();
+        }
+        return sum;
+    }
+
+    /**
+     * Replays the script through the console menus, discarding their output.
+     *
+     * @return the store revenue after the checkout, in cents
+     */
+    @Benchmark
+    public long bakery() {
+        try (SessionEngine engine = new SessionEngine()) {
+            PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+            new Bakery(engine.open(), Channels.newChannel(new ByteArrayInputStream(script)), out).buying();
+            return engine.getRevenue();
+        }
+    }
+}